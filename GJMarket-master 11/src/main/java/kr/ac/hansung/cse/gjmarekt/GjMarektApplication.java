@@ -1,12 +1,22 @@
 package kr.ac.hansung.cse.gjmarekt;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.data.redis.RedisHealthContributorAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.data.redis.RedisReactiveHealthContributorAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableJpaAuditing
-@SpringBootApplication
+@EnableScheduling
+// Redis 자동 설정은 gjmarket.chat.bus=redis 일 때만 RedisConfig에서 켠다
+@SpringBootApplication(exclude = {RedisAutoConfiguration.class, RedisReactiveAutoConfiguration.class,
+        RedisRepositoriesAutoConfiguration.class, RedisHealthContributorAutoConfiguration.class,
+        RedisReactiveHealthContributorAutoConfiguration.class})
 @EntityScan(basePackages = {"kr.ac.hansung.cse.gjmarekt.entity"})
 public class GjMarektApplication {
 
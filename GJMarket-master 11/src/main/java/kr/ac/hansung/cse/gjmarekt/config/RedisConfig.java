@@ -0,0 +1,46 @@
+package kr.ac.hansung.cse.gjmarekt.config;
+
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.actuate.data.redis.RedisHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+// Redis는 여러 서버 사이 채팅 전달(gjmarket.chat.bus=redis)에만 쓴다.
+// 자동 설정은 GjMarektApplication에서 꺼두고 이때만 연결과 health 검사를 만들므로,
+// 서버 한 대로 띄울 때는 Redis 없이도 health가 UP이다. 접속 정보는 spring.data.redis.* 를 그대로 쓴다.
+// 여러 서버로 띄울 때는 서버마다 다른 gjmarket.node-id가 필요하다 (채팅 메시지 id, 접속 상태 이벤트의 보낸 서버 구분).
+// 기본값 0으로 두면 서버끼리 같은 메시지 id를 만들 수 있으므로, 설정하지 않았으면 시작하지 않는다.
+@Configuration
+@ConditionalOnProperty(name = "gjmarket.chat.bus", havingValue = "redis")
+@EnableConfigurationProperties(RedisProperties.class)
+public class RedisConfig {
+
+    public RedisConfig(Environment environment) {
+        if (!environment.containsProperty("gjmarket.node-id")) {
+            throw new IllegalStateException("gjmarket.node-id must be set on every node when gjmarket.chat.bus=redis");
+        }
+    }
+
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties properties) {
+        RedisStandaloneConfiguration configuration =
+                new RedisStandaloneConfiguration(properties.getHost(), properties.getPort());
+        configuration.setDatabase(properties.getDatabase());
+        configuration.setUsername(properties.getUsername());
+        configuration.setPassword(RedisPassword.of(properties.getPassword()));
+        return new LettuceConnectionFactory(configuration);
+    }
+
+    @Bean
+    @ConditionalOnEnabledHealthIndicator("redis")
+    public RedisHealthIndicator redisHealthContributor(LettuceConnectionFactory redisConnectionFactory) {
+        return new RedisHealthIndicator(redisConnectionFactory);
+    }
+}
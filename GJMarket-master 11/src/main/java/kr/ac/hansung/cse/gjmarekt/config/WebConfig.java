@@ -1,15 +1,25 @@
 package kr.ac.hansung.cse.gjmarekt.config;
 
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUserArgumentResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.thymeleaf.extras.springsecurity6.dialect.SpringSecurityDialect;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer
 {
+    private final AuthUserArgumentResolver authUserArgumentResolver;
+
+    public WebConfig(AuthUserArgumentResolver authUserArgumentResolver) {
+        this.authUserArgumentResolver = authUserArgumentResolver;
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry)   {
 //        registry.addViewController("/").setViewName("home");
@@ -38,6 +48,12 @@ public class WebConfig implements WebMvcConfigurer
                 .allowedHeaders("*");
     }
 
+    // 컨트롤러의 @AuthUser 파라미터에 토큰의 사용자 정보를 넣어준다
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authUserArgumentResolver);
+    }
+
     @Bean
     public SpringSecurityDialect securityDialect() {
         return new SpringSecurityDialect();
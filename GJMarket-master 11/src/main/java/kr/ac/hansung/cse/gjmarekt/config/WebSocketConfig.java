@@ -22,7 +22,8 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(chatWebSocketHandler, "/ws/chat/*").setAllowedOrigins("*");
+        // /ws/chat/{chatRoomId}: 채팅방마다 연결, /ws/user: 연결 하나로 여러 채팅방 구독
+        registry.addHandler(chatWebSocketHandler, "/ws/chat/*", ChatWebSocketHandler.USER_PATH).setAllowedOrigins("*");
     }
 //    @Bean
 //    public ServerEndpointExporter serverEndpointExporter() {
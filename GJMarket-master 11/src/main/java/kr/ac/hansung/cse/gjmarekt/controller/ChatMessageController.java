@@ -1,7 +1,7 @@
 package kr.ac.hansung.cse.gjmarekt.controller;
 
 import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
-import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUser;
 import kr.ac.hansung.cse.gjmarekt.service.ChatMessageService;
 import kr.ac.hansung.cse.gjmarekt.service.ChatRoomService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,14 +19,12 @@ import java.util.List;
 public class ChatMessageController {
 
     private final ChatMessageService chatMessageService;
-    private final JWTUtil jwtUtil;
     private final ChatRoomService chatRoomService;
 
 
     @Autowired
-    public ChatMessageController(ChatMessageService chatMessageService, JWTUtil jwtUtil, ChatRoomService chatRoomService) {
+    public ChatMessageController(ChatMessageService chatMessageService, ChatRoomService chatRoomService) {
         this.chatMessageService = chatMessageService;
-        this.jwtUtil = jwtUtil;
         this.chatRoomService = chatRoomService;
     }
 
@@ -34,16 +32,17 @@ public class ChatMessageController {
     @GetMapping("/api/chatroom/{chatRoomId}/recent")
     public ResponseEntity<List<ChatMessageDTO>> getRecentMessages(
             @PathVariable Integer chatRoomId, @RequestParam(defaultValue = "20") int size,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
         if (!chatRoomService.isUserInChatRoom(userId, chatRoomId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
         List<ChatMessageDTO> messages = chatMessageService.getRecentMessages(chatRoomId, size);
+        // 채팅방을 열면 최신 메시지까지 읽은 것으로 본다 (이미 읽었으면 쓰지 않음)
+        if (!messages.isEmpty()) {
+            chatRoomService.markRecentAsRead(userId, chatRoomId, messages.get(0).getId());
+        }
         return ResponseEntity.ok(messages);
     }
 
@@ -51,12 +50,9 @@ public class ChatMessageController {
     @GetMapping("/api/chatroom/{chatRoomId}/before/{chatId}")
     public ResponseEntity<List<ChatMessageDTO>> getMessagesBeforeCursor(
             @PathVariable Integer chatRoomId,
-            @PathVariable Integer chatId,
+            @PathVariable Long chatId,
             @RequestParam(defaultValue = "20") int size,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
         if (!chatRoomService.isUserInChatRoom(userId, chatRoomId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -1,9 +1,10 @@
 package kr.ac.hansung.cse.gjmarekt.controller;
 
 
+import kr.ac.hansung.cse.gjmarekt.dto.ChatInboxDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.ChatRoom;
 import kr.ac.hansung.cse.gjmarekt.entity.Post;
-import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUser;
 import kr.ac.hansung.cse.gjmarekt.service.ChatMessageService;
 import kr.ac.hansung.cse.gjmarekt.service.ChatRoomService;
 import kr.ac.hansung.cse.gjmarekt.service.PostService;
@@ -20,22 +21,17 @@ public class ChatRoomController {
 
     private final ChatRoomService chatRoomService;
     private final PostService postService;
-    private final JWTUtil jwtUtil;
 
-    public ChatRoomController(ChatRoomService chatRoomService, ChatMessageService chatMessageService, PostService postService, JWTUtil jwtUtil) {
+    public ChatRoomController(ChatRoomService chatRoomService, ChatMessageService chatMessageService, PostService postService) {
         this.chatRoomService = chatRoomService;
         this.postService = postService;
-        this.jwtUtil = jwtUtil;
     }
 
     // 채팅방 만들기
     @PostMapping("/api/post/{postId}/chatroom")
     public ResponseEntity<ChatRoom> createChatRoom(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
 //        Post post=postService.getPostById(postId);
 //        post.getUser().getId().equals(userId);
@@ -50,12 +46,40 @@ public class ChatRoomController {
     @GetMapping("/api/users/{userId}/chatrooms")
     public ResponseEntity<List<ChatRoom>> getChatRoomsByUserId(
             //@PathVariable Integer userId,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
         List<ChatRoom> chatRooms = chatRoomService.getChatRoomsByUserId(userId);
         return ResponseEntity.ok(chatRooms);
     }
+
+    // 채팅 목록 (최근 활동순, 마지막 메시지 미리보기와 안 읽은 메시지 수 포함)
+    // 첫 요청은 cursor 없이, 이후에는 응답의 nextCursor를 넘긴다
+    @GetMapping("/api/chatrooms/inbox")
+    public ResponseEntity<ChatInboxDTO> getInbox(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthUser Integer userId) {
+
+        try {
+            return ResponseEntity.ok(chatRoomService.getInbox(userId, cursor, Math.min(Math.max(size, 1), 100)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // 채팅방의 특정 메시지까지 읽음 처리
+    @PostMapping("/api/chatroom/{chatRoomId}/read/{chatId}")
+    public ResponseEntity<Void> markAsRead(
+            @PathVariable Integer chatRoomId,
+            @PathVariable Long chatId,
+            @AuthUser Integer userId) {
+
+        if (!chatRoomService.isUserInChatRoom(userId, chatRoomId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!chatRoomService.markAsRead(userId, chatRoomId, chatId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -1,32 +1,69 @@
 package kr.ac.hansung.cse.gjmarekt.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kr.ac.hansung.cse.gjmarekt.service.ImageProcessingService;
+import kr.ac.hansung.cse.gjmarekt.service.ImageStorageLayout;
+import kr.ac.hansung.cse.gjmarekt.service.ImageStorageService;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 @Controller
 @ResponseBody
 public class ImageController {
 
-    //사진이 저장되어있는 경로
-    @Value("${file.upload.path}")
-    private String uploadPath;
+    // Tomcat이 sendfile을 쓸 수 있으면 요청에 넣어주는 속성, 파일 이름을 넘기면 응답 본문을 커널이 바로 보낸다
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 업로드 파일 이름은 해시 또는 UUID라 같은 이름의 내용이 바뀌지 않는다
+    private static final Pattern UUID_NAME =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\..*)?");
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    // 확장자 -> Content-Type, 요청마다 probeContentType을 부르지 않는다
+    private static final Map<String, MediaType> CONTENT_TYPES = new ConcurrentHashMap<>();
+
+    //사진이 저장되어있는 위치
+    private final ImageStorageLayout layout;
+
+    // 이보다 작은 파일은 sendfile 대신 직접 쓴다 (Tomcat DefaultServlet과 같은 기준)
+    @Value("${gjmarket.image.sendfile-min-bytes:49152}")
+    private long sendfileMinBytes;
+
+    public ImageController(ImageStorageLayout layout) {
+        this.layout = layout;
+    }
 
     @GetMapping("/images/profile/{filename}")
-    public ResponseEntity<Resource> getImage(@PathVariable String filename) {
+    public void getImage(@PathVariable String filename,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
 //        System.out.println(filename);
 //        try {
 //            Path file = Paths.get(uploadPath).resolve(filename);
@@ -43,55 +80,149 @@ public class ImageController {
 //            return ResponseEntity.badRequest().build();
 //        }
 
+        // 새 프로필 사진은 게시물 이미지와 같은 곳에 해시 이름으로 있다 (예전 profile 폴더도 찾는다)
+        Path file = layout.locate(filename);
+        send(filename, file, cacheControl(filename, false), request, response);
+    }
+
+    // w를 주면 그 크기 이상인 축소본 중 가장 작은 것을 보낸다 (없으면 원본)
+    @GetMapping("/images/{filename}")
+    public void getPostImage(
+            @PathVariable String filename,
+            @RequestParam(value = "w", required = false) Integer width,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = selectVariant(filename, width);
+        // 축소본이 아직 만들어지지 않아 원본을 보냈으면 같은 URL의 응답이 나중에 바뀐다
+        boolean variantPending = width != null && file.getFileName().toString().equals(filename);
+        send(filename, file, cacheControl(filename, variantPending), request, response);
+    }
+
+    // 조건부 요청(304)과 구간 요청(206)을 처리하고 파일을 복사 없이 보낸다
+    private void send(String filename, Path file, CacheControl cacheControl,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes;
         try {
-            Path file = Paths.get(uploadPath, "profile", filename);
-            Resource resource = new UrlResource(file.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = Files.probeContentType(file);
-                if (contentType != null) {
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.parseMediaType(contentType));
-                    return new ResponseEntity<>(resource, headers, HttpStatus.OK);
-                } else {
-                    return ResponseEntity.ok().body(resource);
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = etag(filename, file, length, lastModified);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // If-None-Match / If-Modified-Since가 맞으면 304로 끝난다 (ETag, Last-Modified도 여기서 붙는다)
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setContentType(contentType(file.getFileName().toString()).toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // 여러 구간을 한번에 요청하는 경우는 드물어서 전체를 보낸다
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
                 }
-            } else {
-                return ResponseEntity.notFound().build();
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
             }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count <= 0) {
+            return;
         }
 
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
 
+    private CacheControl cacheControl(String filename, boolean mayChange) {
+        if (!mayChange && (ImageStorageService.hashOf(filename) != null || UUID_NAME.matcher(filename).matches())) {
+            return IMMUTABLE;
+        }
+        // 매번 ETag로 확인하게 한다 (바뀌지 않았으면 304)
+        return CacheControl.noCache();
     }
 
-    @GetMapping("/images/{filename}")
-    public ResponseEntity<Resource> getPostImage(@PathVariable String filename) {
+    // 해시 이름(과 그 축소본)은 서버가 여러 대여도 같은 값이 되도록 보낸 파일 이름을, 나머지는 크기와 수정 시각을 쓴다
+    private String etag(String filename, Path file, long length, long lastModified) {
+        if (ImageStorageService.hashOf(filename) != null) {
+            return "\"" + file.getFileName() + "\"";
+        }
+        return "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    // If-Range가 없거나 현재 파일과 같을 때만 구간 요청을 따른다
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !etag.startsWith("W/") && ifRange.equals(etag);
+        }
         try {
-            Path file = Paths.get(uploadPath, filename);
-            Resource resource = new UrlResource(file.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = Files.probeContentType(file);
-                if (contentType != null) {
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.parseMediaType(contentType));
-                    return new ResponseEntity<>(resource, headers, HttpStatus.OK);
-                } else {
-                    return ResponseEntity.ok().body(resource);
-                }
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
+    }
 
+    private MediaType contentType(String filename) {
+        int dot = filename.lastIndexOf('.');
+        String extension = dot < 0 ? "" : filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return CONTENT_TYPES.computeIfAbsent(extension, key ->
+                MediaTypeFactory.getMediaType("file." + key).orElse(MediaType.APPLICATION_OCTET_STREAM));
+    }
 
+    private Path selectVariant(String filename, Integer width) {
+        if (width != null) {
+            for (int variantWidth : ImageProcessingService.VARIANT_WIDTHS) {
+                if (variantWidth >= width) {
+                    Path variant = layout.locate(ImageProcessingService.variantFilename(filename, variantWidth));
+                    if (Files.exists(variant)) {
+                        return variant;
+                    }
+                }
+            }
+        }
+        return layout.locate(filename);
     }
 }
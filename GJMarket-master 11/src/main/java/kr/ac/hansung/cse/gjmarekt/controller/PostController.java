@@ -2,14 +2,21 @@ package kr.ac.hansung.cse.gjmarekt.controller;
 
 import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
 import kr.ac.hansung.cse.gjmarekt.dto.PostDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostFeedDTO;
 import kr.ac.hansung.cse.gjmarekt.dto.PostImageDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostSearchResultDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
 import kr.ac.hansung.cse.gjmarekt.entity.Post;
-import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUser;
 import kr.ac.hansung.cse.gjmarekt.service.ChatRoomService;
+import kr.ac.hansung.cse.gjmarekt.service.PostSearchService;
 import kr.ac.hansung.cse.gjmarekt.service.PostService;
+import kr.ac.hansung.cse.gjmarekt.service.TrendingService;
+import kr.ac.hansung.cse.gjmarekt.service.WishlistService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -17,35 +24,34 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Controller
 @ResponseBody
 public class PostController {
 
     private final PostService postService;
-    private final JWTUtil jwtUtil;
     private final ChatRoomService chatRoomService;
+    private final PostSearchService postSearchService;
+    private final TrendingService trendingService;
+    private final WishlistService wishlistService;
 
-    public PostController(PostService postService, JWTUtil jwtUtil, ChatRoomService chatRoomService) {
+    public PostController(PostService postService, ChatRoomService chatRoomService, PostSearchService postSearchService, TrendingService trendingService, WishlistService wishlistService) {
         this.postService = postService;
-        this.jwtUtil = jwtUtil;
         this.chatRoomService = chatRoomService;
+        this.postSearchService = postSearchService;
+        this.trendingService = trendingService;
+        this.wishlistService = wishlistService;
     }
 
     @PostMapping("/api/post")
     public ResponseEntity<Post> post(
-            @RequestHeader("Authorization") String authorization,
+            @AuthUser Integer userId,
             PostDTO postDTO,
             @RequestPart(value = "images", required = false) List<MultipartFile> images
     ) {
         System.out.println("sadfadsfdafsdasf");
 
-        System.out.println(authorization);
-        String token = authorization.split(" ")[1];
-        // jwt를 이용해 userId를 찾는다
-        // 다른사람 글로 위조하는 것을 막기 위함
-        Integer userId = jwtUtil.getUserId(token);
-
         List<PostImageDTO> imageDTOs = new ArrayList<>();
         if (images != null && !images.isEmpty()) { // images가 null이 아니고 비어있지 않은 경우에만 처리
             for (MultipartFile image : images) {
@@ -64,12 +70,10 @@ public class PostController {
     @PutMapping("/api/post/{postId}")
     public ResponseEntity<Post> updatePost(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization,
+            @AuthUser Integer userId,
             PostDTO postDTO,
             @RequestPart(value = "images", required = false) List<MultipartFile> images
     ) {
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
 
         List<PostImageDTO> imageDTOs = new ArrayList<>();
         if (images != null && !images.isEmpty()) {
@@ -88,12 +92,10 @@ public class PostController {
     @PatchMapping("/api/post/{postId}")
     public ResponseEntity<Post> partialUpdatePost(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization,
+            @AuthUser Integer userId,
             PostDTO postDTO,
             @RequestPart(value = "images", required = false) List<MultipartFile> images
     ) {
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
 
         List<PostImageDTO> imageDTOs = new ArrayList<>();
         if (images != null && !images.isEmpty()) {
@@ -112,10 +114,8 @@ public class PostController {
     @DeleteMapping("/api/post/{postId}")
     public ResponseEntity<Void> deletePost(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization
+            @AuthUser Integer userId
     ) {
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
 
         postService.deletePost(postId, userId);
         return ResponseEntity.noContent().build();
@@ -124,12 +124,10 @@ public class PostController {
 
     // 상품 정보 요청
     @GetMapping("/api/post/{postId}")
-    public ResponseEntity<Post> getPost(
+    public ResponseEntity<byte[]> getPost(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization
+            @AuthUser Integer userId
     ) {
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
 
         System.out.println("postId: " + postId);
         return postService.findPostById(postId);
@@ -139,10 +137,7 @@ public class PostController {
     @GetMapping("/api/posts/{postId}/chatroom")
     public ResponseEntity<Integer> getChatRoomIdByPostIdAndUserId(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
         Integer chatRoomId = chatRoomService.getChatRoomIdByPostIdAndBuyerId(postId, userId);
         return ResponseEntity.ok(chatRoomId);
@@ -150,36 +145,105 @@ public class PostController {
 
     // 페이지로 상품 정보 요청
     @GetMapping("/api/posts")
-    public ResponseEntity<Page<Post>> getPosts(
+    public ResponseEntity<Page<PostSummaryDTO>> getPosts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @AuthUser(required = false) Integer userId
     ) {
-        Page<Post> posts = postService.getPosts(page, size);
+        Page<PostSummaryDTO> posts = postService.getPosts(page, size);
+        wishlistService.markWished(userId, posts.getContent());
         return new ResponseEntity<>(posts, HttpStatus.OK);
     }
 
+    // 최근 수정순 피드 (전체 개수 없이 커서로 이어서 읽는다)
+    // 다음 페이지는 응답의 nextCursor로 요청한다, 페이지가 깊어져도 비용이 같다
+    @GetMapping("/api/posts/feed")
+    public ResponseEntity<PostFeedDTO> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthUser(required = false) Integer userId) {
+
+        try {
+            PostFeedDTO feed = postService.getFeed(cursor, size);
+            wishlistService.markWished(userId, feed.getPosts());
+            return ResponseEntity.ok(feed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // 조건으로 둘러보기
+    // status는 여러 개 줄 수 있다 (예: 판매완료 제외 status=0&status=1), sort는 newest, cheapest, most_wished
+    @GetMapping("/api/posts/browse")
+    public ResponseEntity<PostFeedDTO> browsePosts(
+            @RequestParam(required = false) List<Integer> status,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthUser(required = false) Integer userId) {
+
+        try {
+            PostService.BrowseSort browseSort = PostService.BrowseSort.valueOf(sort.toUpperCase(Locale.ROOT));
+            PostFeedDTO result = postService.browse(status, minPrice, maxPrice, browseSort, cursor, size);
+            wishlistService.markWished(userId, result.getPosts());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // 상품 검색 (제목, 내용)
+    // 가격 범위와 판매 상태로 거를 수 있고, 다음 페이지는 응답의 nextCursor로 요청한다
+    @GetMapping("/api/posts/search")
+    public ResponseEntity<PostSearchResultDTO> searchPosts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthUser(required = false) Integer userId) {
+
+        try {
+            PostSearchResultDTO result = postSearchService.search(query, minPrice, maxPrice, status, cursor, size);
+            wishlistService.markWished(userId, result.getPosts());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // 인기 게시물 (최근 조회, 찜, 채팅 요청이 많은 순)
+    // 미리 만들어 둔 JSON을 그대로 내보낸다
+    @GetMapping("/api/posts/trending")
+    public ResponseEntity<byte[]> getTrendingPosts() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(trendingService.getTrending());
+    }
+
     // 처음 상품 화면 들어왔을 때
     @GetMapping("/api/posts/recent")
-    public ResponseEntity<List<Post>> getRecentPosts(
+    public ResponseEntity<List<PostSummaryDTO>> getRecentPosts(
             @RequestParam(defaultValue = "20") int size,
-            @RequestHeader("Authorization") String authorization) {
+            @AuthUser Integer userId) {
 
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
 
-
-        List<Post> posts = postService.getRecentPosts(size);
+        List<PostSummaryDTO> posts = postService.getRecentPosts(size);
+        wishlistService.markWished(userId, posts);
         return ResponseEntity.ok(posts);
     }
 
     // 특정 postid이전의 게시물들을 볼 때 클라이언트에서 스크롤시 사용
     @GetMapping("/api/posts/before/{cursor}")
-    public ResponseEntity<List<Post>> getPostsBeforeCursor(
+    public ResponseEntity<List<PostSummaryDTO>> getPostsBeforeCursor(
             @PathVariable Integer cursor,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @AuthUser(required = false) Integer userId) {
 
 
-        List<Post> posts = postService.getPostsBeforeCursor(cursor, size);
+        List<PostSummaryDTO> posts = postService.getPostsBeforeCursor(cursor, size);
+        wishlistService.markWished(userId, posts);
         return ResponseEntity.ok(posts);
     }
 }
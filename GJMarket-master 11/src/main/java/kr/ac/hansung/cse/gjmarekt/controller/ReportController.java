@@ -2,7 +2,7 @@ package kr.ac.hansung.cse.gjmarekt.controller;
 
 import kr.ac.hansung.cse.gjmarekt.dto.ReportRequestDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.Report;
-import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUser;
 import kr.ac.hansung.cse.gjmarekt.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -14,12 +14,10 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 public class ReportController {
     private final ReportService reportService;
-    private final JWTUtil jwtUtil;
 
     @Autowired
-    public ReportController(ReportService reportService, JWTUtil jwtUtil) {
+    public ReportController(ReportService reportService) {
         this.reportService = reportService;
-        this.jwtUtil = jwtUtil;
     }
 
 //    @PostMapping("/api/posts/{postId}/report")
@@ -39,10 +37,7 @@ public ResponseEntity<Report> createReport(
         @PathVariable Integer postId,
         @RequestParam("reason") String reason,
         @RequestParam("content") String content,
-        @RequestHeader("Authorization") String authorization) {
-
-    String token = authorization.split(" ")[1];
-    Integer userId = jwtUtil.getUserId(token);
+        @AuthUser Integer userId) {
 
     Report report = reportService.createReport(postId, userId, reason, content);
     return new ResponseEntity<>(report, HttpStatus.CREATED);
@@ -2,7 +2,7 @@ package kr.ac.hansung.cse.gjmarekt.controller;
 
 import kr.ac.hansung.cse.gjmarekt.dto.ReviewRequestDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.Review;
-import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUser;
 import kr.ac.hansung.cse.gjmarekt.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -16,12 +16,10 @@ import java.util.List;
 @ResponseBody
 public class ReviewController {
     private final ReviewService reviewService;
-    private final JWTUtil jwtUtil;
 
     @Autowired
-    public ReviewController(ReviewService reviewService, JWTUtil jwtUtil) {
+    public ReviewController(ReviewService reviewService) {
         this.reviewService = reviewService;
-        this.jwtUtil = jwtUtil;
     }
 
     // 리뷰 남기기
@@ -30,10 +28,7 @@ public class ReviewController {
             @PathVariable Integer postId,
             @PathVariable Integer revieweeId,
             ReviewRequestDTO reviewRequestDTO,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer reviewerId = jwtUtil.getUserId(token);
+            @AuthUser Integer reviewerId) {
 
         try {
             Review review = reviewService.createReview(postId, reviewerId, revieweeId, reviewRequestDTO.getRating(), reviewRequestDTO.getComment());
@@ -47,10 +42,7 @@ public class ReviewController {
     // 내가 보낸 리뷰
     @GetMapping("/api/reviews/sent")
     public ResponseEntity<List<Review>> getSentReviews(
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
 
         List<Review> reviews = reviewService.getReviewsByReviewerId(userId);
@@ -60,10 +52,7 @@ public class ReviewController {
     // 내가 받은 리뷰
     @GetMapping("/api/reviews/received")
     public ResponseEntity<List<Review>> getReceivedReviews(
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
         List<Review> reviews = reviewService.getReviewsByRevieweeId(userId);
         return ResponseEntity.ok(reviews);
@@ -73,10 +62,7 @@ public class ReviewController {
     @GetMapping("/api/users/{userId}/reviews")
     public ResponseEntity<List<Review>> getReviewsByUser(
             @PathVariable Integer userId,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer requesterId = jwtUtil.getUserId(token);
+            @AuthUser Integer requesterId) {
 
 
         List<Review> reviews = reviewService.getReviewsByRevieweeId(userId);
@@ -88,10 +74,7 @@ public class ReviewController {
     public ResponseEntity<Review> updateReview(
             @PathVariable Integer reviewId,
             ReviewRequestDTO reviewRequestDTO,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer reviewerId = jwtUtil.getUserId(token);
+            @AuthUser Integer reviewerId) {
 
         Review updatedReview = reviewService.updateReview(reviewId, reviewerId, reviewRequestDTO.getRating(), reviewRequestDTO.getComment());
         return ResponseEntity.ok(updatedReview);
@@ -102,10 +85,7 @@ public class ReviewController {
     public ResponseEntity<Review> patchReview(
             @PathVariable Integer reviewId,
             ReviewRequestDTO reviewRequestDTO,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer reviewerId = jwtUtil.getUserId(token);
+            @AuthUser Integer reviewerId) {
 
         Review patchedReview = reviewService.patchReview(reviewId, reviewerId, reviewRequestDTO.getRating(), reviewRequestDTO.getComment());
         return ResponseEntity.ok(patchedReview);
@@ -115,10 +95,7 @@ public class ReviewController {
     @DeleteMapping("/api/reviews/{reviewId}")
     public ResponseEntity<Void> deleteReview(
             @PathVariable Integer reviewId,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer reviewerId = jwtUtil.getUserId(token);
+            @AuthUser Integer reviewerId) {
 
         reviewService.deleteReview(reviewId, reviewerId);
         return ResponseEntity.ok().build();
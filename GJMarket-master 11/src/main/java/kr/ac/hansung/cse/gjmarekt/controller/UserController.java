@@ -4,7 +4,8 @@ package kr.ac.hansung.cse.gjmarekt.controller;
 import kr.ac.hansung.cse.gjmarekt.dto.SignUpDTO;
 import kr.ac.hansung.cse.gjmarekt.dto.UserDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
-import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUser;
+import kr.ac.hansung.cse.gjmarekt.jwt.JWTClaims;
 import kr.ac.hansung.cse.gjmarekt.service.UserService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
@@ -17,14 +18,12 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
-    private final JWTUtil jwtUtil;
 
 
 
 
-    public UserController(UserService userService, JWTUtil jwtUtil) {
+    public UserController(UserService userService) {
         this.userService = userService;
-        this.jwtUtil = jwtUtil;
     }
 
     @PostMapping("/api/signup")
@@ -38,15 +37,13 @@ public class UserController {
     //회원 정보 수정
     @PutMapping("/api/updateuser")
     public String updateUserProcess(
-            @RequestHeader("Authorization") String authorization,
+            @AuthUser JWTClaims claims,
             SignUpDTO signUpDTO) {
         // 본인이 맞는지 확인 필요
-        System.out.println(authorization);
-        String token = authorization.split(" ")[1];
         GJUser updatedUser = new GJUser();
         // GJUser 객체를 만들어서 보낸다
         // 토큰으로 이메일을 설정한다.
-        updatedUser.setEmail(jwtUtil.getEmail(token));
+        updatedUser.setEmail(claims.getEmail());
 
         updatedUser.setPassword(signUpDTO.getPassword());
 
@@ -60,11 +57,10 @@ public class UserController {
     // 회원 탈퇴
     @DeleteMapping("/api/deleteuser")
     public String deleteUserProcess(
-            @RequestHeader("Authorization") String authorization) {
+            @AuthUser JWTClaims claims) {
 
-        String token = authorization.split(" ")[1];
         GJUser deleteUser = new GJUser();
-        deleteUser.setEmail(jwtUtil.getEmail(token));
+        deleteUser.setEmail(claims.getEmail());
 
         userService.deleteUser(deleteUser);
         return "deleteduser";
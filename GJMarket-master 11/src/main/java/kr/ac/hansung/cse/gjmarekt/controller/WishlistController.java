@@ -1,7 +1,7 @@
 package kr.ac.hansung.cse.gjmarekt.controller;
 
 import kr.ac.hansung.cse.gjmarekt.entity.Wishlist;
-import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.jwt.AuthUser;
 import kr.ac.hansung.cse.gjmarekt.service.WishlistService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,20 +15,15 @@ import java.util.List;
 public class WishlistController {
 
     private final WishlistService wishlistService;
-    private final JWTUtil jwtUtil;
 
-    public WishlistController(WishlistService wishlistService, JWTUtil jwtUtil) {
+    public WishlistController(WishlistService wishlistService) {
         this.wishlistService = wishlistService;
-        this.jwtUtil = jwtUtil;
     }
 
     @PostMapping("/api/wishlist/{postId}")
     public ResponseEntity<Wishlist> addWishlist(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization) {
-
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
         Wishlist wishlist = wishlistService.addToWishlist(userId, postId);
         return ResponseEntity.ok(wishlist);
@@ -37,24 +32,30 @@ public class WishlistController {
     @DeleteMapping("/api/wishlist/{postId}")
     public ResponseEntity<Void> deleteWishlist(
             @PathVariable Integer postId,
-            @RequestHeader("Authorization") String authorization
+            @AuthUser Integer userId
     ){
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
 
         wishlistService.removeFromWishlist(userId, postId);
 
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    // 여러 게시물의 찜 여부를 한번에 확인 (요청: 게시물 id 배열, 응답: 그 중 찜한 id 배열)
+    @PostMapping("/api/wishlist/contains")
+    public ResponseEntity<List<Integer>> containsWishlist(
+            @RequestBody List<Integer> postIds,
+            @AuthUser Integer userId) {
+
+        try {
+            return ResponseEntity.ok(wishlistService.filterWished(userId, postIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
     @GetMapping("/api/wishlist/getmywishlist")
     public ResponseEntity<List<Wishlist>> getMyWishlist(
-            @RequestHeader("Authorization") String authorization) {
-
-
-        System.out.println(authorization.split(" ")[1]);
-        String token = authorization.split(" ")[1];
-        Integer userId = jwtUtil.getUserId(token);
+            @AuthUser Integer userId) {
 
         System.out.println("userid="+userId);
 
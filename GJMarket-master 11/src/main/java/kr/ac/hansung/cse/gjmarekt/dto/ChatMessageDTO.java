@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 public class ChatMessageDTO {
-    private Integer id;
+    private Long id;
+    private Integer chatRoomId;
+    // 채팅방 안의 순번, 재접속한 클라이언트는 마지막으로 받은 seq를 보내 놓친 메시지를 받는다
+    private Long seq;
     private GJUser sender;
     private String content;
     private LocalDateTime sentAt;
@@ -0,0 +1,27 @@
+package kr.ac.hansung.cse.gjmarekt.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+// 채팅방 참여자에게 보내는 접속 상태 이벤트 (저장하지 않음)
+// type이 "presence"이면 online, "typing"이면 typing 값이 채워진다.
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatPresenceDTO {
+    public static final String PRESENCE = "presence";
+    public static final String TYPING = "typing";
+
+    private String type;
+    private Integer chatRoomId;
+    private Integer userId;
+    private Boolean online;
+    private Boolean typing;
+
+    // 다른 서버가 새 이벤트에 답하며 자기 접속자를 다시 알리는 경우 true (이 이벤트에는 다시 답하지 않는다)
+    private Boolean reply;
+
+    // 이벤트를 보낸 서버 (gjmarket.node-id), 다른 서버의 이벤트에만 답한다
+    private Integer node;
+}
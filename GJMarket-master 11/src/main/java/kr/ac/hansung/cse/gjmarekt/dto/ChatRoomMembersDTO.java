@@ -0,0 +1,24 @@
+package kr.ac.hansung.cse.gjmarekt.dto;
+
+// 채팅방 참여자 (판매자, 구매자) id
+public final class ChatRoomMembersDTO {
+    private final int sellerId;
+    private final int buyerId;
+
+    public ChatRoomMembersDTO(int sellerId, int buyerId) {
+        this.sellerId = sellerId;
+        this.buyerId = buyerId;
+    }
+
+    public int getSellerId() {
+        return sellerId;
+    }
+
+    public int getBuyerId() {
+        return buyerId;
+    }
+
+    public boolean contains(int userId) {
+        return sellerId == userId || buyerId == userId;
+    }
+}
@@ -0,0 +1,28 @@
+package kr.ac.hansung.cse.gjmarekt.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// 채팅 목록(inbox)의 채팅방 한 줄
+@Getter
+@Setter
+public class ChatRoomSummaryDTO {
+    private Integer chatRoomId;
+    private Integer postId;
+    private String postTitle;
+
+    // 상대방 정보
+    private Integer partnerId;
+    private String partnerNickname;
+    private String partnerProfileImageUrl;
+
+    private Long lastMessageId;
+    private String lastMessagePreview;
+    private LocalDateTime lastMessageAt;
+    private LocalDateTime lastActivityAt;
+
+    // 상대방이 보낸 메시지 중 아직 읽지 않은 수
+    private long unreadCount;
+}
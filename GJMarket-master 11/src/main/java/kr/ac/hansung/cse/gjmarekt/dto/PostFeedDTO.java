@@ -0,0 +1,19 @@
+package kr.ac.hansung.cse.gjmarekt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// 피드 한 페이지 (전체 개수는 세지 않는다)
+// nextCursor를 다음 요청의 cursor로 넘기면 이어지는 게시물을 받는다 (마지막 페이지면 null)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostFeedDTO {
+    private List<PostSummaryDTO> posts;
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package kr.ac.hansung.cse.gjmarekt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// 검색 결과 한 페이지
+// nextCursor를 다음 요청의 cursor로 넘기면 이어지는 결과를 받는다 (마지막 페이지면 null)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostSearchResultDTO {
+    private List<PostSummaryDTO> posts;
+    private String nextCursor;
+}
@@ -0,0 +1,48 @@
+package kr.ac.hansung.cse.gjmarekt.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// 상품 목록(피드)용 DTO
+// Post 엔티티를 그대로 내보내면 작성자와 이미지까지 매 행마다 조회되므로 목록에 필요한 값만 담는다
+@Getter
+@Setter
+@NoArgsConstructor
+public class PostSummaryDTO {
+    private Integer id;
+    private String title;
+    private int price;
+    private int status;
+    // 썸네일 (순서가 0번인 이미지)
+    private String thumbnailUrl;
+    private int viewCount;
+    private int wishlistCount;
+    private Integer sellerId;
+    private String sellerNickname;
+    private LocalDateTime updatedAt;
+    // 로그인한 사용자가 찜한 게시물인지, 알 수 없으면(로그인하지 않음, 인기 게시물) null이고 응답에서 빠진다
+    @JsonProperty("isWished")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean wished;
+
+    // JPQL 생성자 표현식에서 사용
+    public PostSummaryDTO(Integer id, String title, int price, int status, String thumbnailUrl,
+                          int viewCount, int wishlistCount, Integer sellerId, String sellerNickname,
+                          LocalDateTime updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+        this.status = status;
+        this.thumbnailUrl = thumbnailUrl;
+        this.viewCount = viewCount;
+        this.wishlistCount = wishlistCount;
+        this.sellerId = sellerId;
+        this.sellerNickname = sellerNickname;
+        this.updatedAt = updatedAt;
+    }
+}
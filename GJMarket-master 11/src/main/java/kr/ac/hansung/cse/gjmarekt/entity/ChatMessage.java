@@ -9,15 +9,20 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        // 채팅방별 최근 메시지/안 읽은 메시지 수 조회용
+        @Index(name = "idx_chat_messages_room_id", columnList = "chat_room_id, id"),
+        // 재접속시 놓친 메시지 조회용
+        @Index(name = "uk_chat_messages_room_seq", columnList = "chat_room_id, room_seq", unique = true)
+})
 @Getter
 @Setter
 @EntityListeners(AuditingEntityListener.class) // Auditing 사용
 public class ChatMessage {
 
+    // id는 ChatMessageIdGenerator가 정한다 (batch insert를 위해 IDENTITY를 쓰지 않음)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer id;
+    private Long id;
 
     @ManyToOne
     @JoinColumn(name = "chat_room_id")
@@ -27,6 +32,10 @@ public class ChatMessage {
     @JoinColumn(name = "sender_id")
     private GJUser sender;
 
+    // 채팅방 안에서 1부터 빠짐없이 증가하는 번호 (이 기능 이전에 저장된 메시지는 null)
+    @Column(name = "room_seq")
+    private Long roomSeq;
+
     @Column(name = "content", columnDefinition = "TEXT")
     private String content;
 
@@ -1,16 +1,24 @@
 package kr.ac.hansung.cse.gjmarekt.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_rooms")
+@Table(name = "chat_rooms", indexes = {
+        // 채팅 목록(inbox)을 최근 활동순으로 읽기 위한 인덱스
+        @Index(name = "idx_chat_rooms_seller_activity", columnList = "seller_id, last_activity_at, id"),
+        @Index(name = "idx_chat_rooms_buyer_activity", columnList = "buyer_id, last_activity_at, id"),
+        // 재시작시 최근 채팅 요청으로 인기 게시물 점수를 다시 만들기 위한 인덱스
+        @Index(name = "idx_chat_rooms_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @EntityListeners(AuditingEntityListener.class) // Auditing 사용
@@ -36,4 +44,34 @@ public class ChatRoom {
     @CreatedDate
     @Column(name = "created_at")
     private LocalDateTime createdAt;
+
+    // 아래는 채팅 목록용으로 중복 저장하는 값, 메시지가 저장될 때 ChatMessageWriter가 갱신한다
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "last_message_preview", length = 100)
+    private String lastMessagePreview;
+
+    // 마지막 메시지 시간, 메시지가 없으면 채팅방 생성 시간
+    @ColumnDefault("CURRENT_TIMESTAMP(6)")
+    @Column(name = "last_activity_at", nullable = false)
+    private LocalDateTime lastActivityAt;
+
+    // 참여자별로 마지막으로 읽은 메시지 id
+    @JsonIgnore
+    @Column(name = "seller_last_read_id")
+    private Long sellerLastReadId;
+
+    @JsonIgnore
+    @Column(name = "buyer_last_read_id")
+    private Long buyerLastReadId;
+
+    // 이 채팅방에 마지막으로 저장된 메시지의 seq, ChatMessageWriter가 row lock을 잡고 올린다
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq = 0L;
 }
@@ -5,11 +5,15 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
 @Entity
-@Table(name="users")
+@Table(name="users", indexes = {
+        // 이미지 정리 작업이 파일 이름으로 참조 여부를 확인하기 위한 인덱스
+        @Index(name = "idx_users_profile_image_url", columnList = "profile_image_url")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -62,4 +66,14 @@ public class GJUser {
     // 별점
     @Column(name = "rating")
     private Float rating;
+
+    // 받은 별점의 합계와 개수, 리뷰가 바뀔 때마다 SQL로 더하고 뺀다
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_count", nullable = false)
+    private Integer ratingCount = 0;
 }
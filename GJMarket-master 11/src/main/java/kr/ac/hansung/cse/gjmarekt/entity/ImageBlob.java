@@ -0,0 +1,45 @@
+package kr.ac.hansung.cse.gjmarekt.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+// 업로드된 이미지 파일 하나, 내용의 SHA-256을 이름으로 저장하므로 같은 사진은 한번만 저장된다.
+// 게시물 이미지(PostImage.imageUrl)와 프로필 사진(GJUser.profileImageUrl)이 참조하는 수를 센다.
+@Entity
+@Table(name = "image_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImageBlob {
+
+    // 내용의 SHA-256 (16진수 64자)
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // 처음 업로드된 파일의 확장자 (소문자, 점 제외)
+    @Column(length = 16)
+    private String extension;
+
+    private long size;
+
+    @ColumnDefault("0")
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    // 만들어진 축소본 가로 크기 목록, 아직 없으면 null
+    private String variants;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // 저장된 파일 이름: {hash}.{확장자}
+    public String getFilename() {
+        return extension == null || extension.isEmpty() ? hash : hash + "." + extension;
+    }
+}
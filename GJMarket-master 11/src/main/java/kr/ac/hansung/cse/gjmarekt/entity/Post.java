@@ -14,7 +14,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        // 최근 수정순 피드를 커서(updatedAt, id)로 읽기 위한 인덱스
+        @Index(name = "idx_posts_updated_at_id", columnList = "updated_at, id"),
+        // 둘러보기(browse)용, 판매 상태 하나와 정렬값으로 읽고 가격 조건은 인덱스 안에서 거른다
+        @Index(name = "idx_posts_status_updated_at", columnList = "status, updated_at DESC, id DESC, price"),
+        @Index(name = "idx_posts_status_price", columnList = "status, price, id"),
+        @Index(name = "idx_posts_status_wishlist", columnList = "status, wishlist_count DESC, id DESC, price")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -43,7 +50,7 @@ public class Post {
 
     // 마지막 수정일시
     @LastModifiedDate
-    @Column(nullable = false)
+    @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
     // 가격, 0일경우 나눔
@@ -55,7 +62,7 @@ public class Post {
     private int viewCount;
 
     // 위시리스트수 기본값 0
-    @Column(nullable = false, columnDefinition = "integer default 0")
+    @Column(name = "wishlist_count", nullable = false, columnDefinition = "integer default 0")
     private int wishlistCount;
 
     // 판매 상태 (기본값: 판매중)
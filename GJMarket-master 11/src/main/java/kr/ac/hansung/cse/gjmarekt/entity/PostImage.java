@@ -6,7 +6,10 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "post_images")
+@Table(name = "post_images", indexes = {
+        // 이미지 정리 작업이 파일 이름으로 참조 여부를 확인하기 위한 인덱스
+        @Index(name = "idx_post_images_image_url", columnList = "image_url")
+})
 @Getter
 @Setter
 public class PostImage {
@@ -22,4 +25,7 @@ public class PostImage {
     private String imageUrl;
 
     private Integer sequence;
+
+    // 만들어진 축소본 가로 크기 목록 (예: "200,640,1280"), 아직 없으면 null
+    private String variants;
 }
@@ -0,0 +1,36 @@
+package kr.ac.hansung.cse.gjmarekt.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// 게시물 조회수를 시간 구간별로 모아둔 것, ViewCountService가 flush할 때 같이 쌓는다.
+// 서버가 다시 시작되면 인기 게시물 점수(TrendingIndex)를 이 기록으로 다시 만든다.
+@Entity
+@Table(name = "post_view_buckets", indexes = {
+        @Index(name = "uk_post_view_buckets_post_bucket", columnList = "post_id, bucket_start", unique = true),
+        // 오래된 구간 삭제와 재시작시 최근 구간을 읽기 위한 인덱스
+        @Index(name = "idx_post_view_buckets_bucket", columnList = "bucket_start")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class PostViewBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "post_id", nullable = false)
+    private Integer postId;
+
+    // 구간 시작 시각
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private long views;
+}
@@ -8,12 +8,22 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "wishlists")
+@Table(name = "wishlists", indexes = {
+        // 사용자별 찜한 게시물 id를 테이블을 읽지 않고 가져오기 위한 인덱스
+        @Index(name = "idx_wishlists_user_post", columnList = "user_id, post_id"),
+        // 재시작시 최근 찜 기록으로 인기 게시물 점수를 다시 만들기 위한 인덱스
+        @Index(name = "idx_wishlists_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
+@EntityListeners(AuditingEntityListener.class) // Auditing 사용
 public class Wishlist {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,4 +38,9 @@ public class Wishlist {
     @JsonManagedReference
     @JoinColumn(name = "post_id", nullable = false)
     private Post post;
+
+    // 찜한 시각 (이 컬럼이 추가되기 전의 찜은 null)
+    @CreatedDate
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
 }
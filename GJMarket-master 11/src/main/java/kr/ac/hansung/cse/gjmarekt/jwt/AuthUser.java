@@ -0,0 +1,15 @@
+package kr.ac.hansung.cse.gjmarekt.jwt;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 로그인한 사용자를 컨트롤러 파라미터로 받는다
+// Integer 타입이면 userId, JWTClaims 타입이면 토큰 내용 전체가 들어간다.
+// 토큰이 없거나 유효하지 않으면 401을 응답한다. required = false면 401 대신 null이 들어간다.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AuthUser {
+    boolean required() default true;
+}
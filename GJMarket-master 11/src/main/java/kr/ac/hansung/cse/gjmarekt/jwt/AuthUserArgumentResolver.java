@@ -0,0 +1,59 @@
+package kr.ac.hansung.cse.gjmarekt.jwt;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+// @AuthUser 파라미터를 채운다
+// JWTFilter가 검증해 둔 JWTClaims를 사용하므로 컨트롤러에서 토큰을 다시 파싱하지 않는다.
+@Component
+public class AuthUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final JWTUtil jwtUtil;
+
+    public AuthUserArgumentResolver(JWTUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(AuthUser.class)
+                && (parameter.getParameterType() == Integer.class || parameter.getParameterType() == JWTClaims.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        JWTClaims claims = (JWTClaims) request.getAttribute(JWTClaims.REQUEST_ATTRIBUTE);
+
+        if (claims == null) {
+            // 필터를 거치지 않은 경우에만 직접 검증 (JWTUtil 캐시 사용)
+            boolean required = parameter.getParameterAnnotation(AuthUser.class).required();
+            String authorization = request.getHeader("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                if (!required) {
+                    return null;
+                }
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+            }
+            try {
+                claims = jwtUtil.verify(authorization.substring(7));
+            } catch (JwtException | IllegalArgumentException e) {
+                if (!required) {
+                    return null;
+                }
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+            }
+        }
+
+        return parameter.getParameterType() == JWTClaims.class ? claims : claims.getUserId();
+    }
+}
@@ -0,0 +1,24 @@
+package kr.ac.hansung.cse.gjmarekt.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+// 서명 검증이 끝난 JWT의 내용
+// JWTFilter가 요청마다 한번 만들어 request attribute에 넣고, 컨트롤러는 @AuthUser로 받는다.
+@Getter
+@AllArgsConstructor
+public class JWTClaims {
+
+    public static final String REQUEST_ATTRIBUTE = JWTClaims.class.getName();
+
+    private final Integer userId;
+    private final String email;
+    private final String role;
+    private final Date expiration;
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+}
@@ -1,5 +1,6 @@
 package kr.ac.hansung.cse.gjmarekt.jwt;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -42,21 +43,27 @@ public class JWTFilter extends OncePerRequestFilter {
         //Bearer 부분 제거 후 순수 토큰만 획득
         String token = authorization.split(" ")[1];
 
-        //토큰 소멸 시간 검증
-        if (jwtUtil.isExpired(token)) {
-            System.out.println("token expired");
+        //토큰 검증은 여기서 한번만 한다 (서명, 만료 시간)
+        JWTClaims claims;
+        try {
+            claims = jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            System.out.println("token invalid or expired");
             filterChain.doFilter(request, response);
             //조건이 해당되면 메소드 종료 (필수)
             return;
         }
 
+        //컨트롤러에서 @AuthUser로 꺼내 쓸 수 있도록 저장
+        request.setAttribute(JWTClaims.REQUEST_ATTRIBUTE, claims);
 
         //토큰에서 email과 role 획득
-        String email = jwtUtil.getEmail(token);
-        String role = jwtUtil.getRole(token);
+        String email = claims.getEmail();
+        String role = claims.getRole();
 
         //userEntity를 생성하여 값 set
         GJUser gjUser = new GJUser();
+        gjUser.setId(claims.getUserId());
         gjUser.setEmail(email);
         gjUser.setPassword("temppassword");
         // Role 설정
@@ -1,5 +1,7 @@
 package kr.ac.hansung.cse.gjmarekt.jwt;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -7,34 +9,101 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class JWTUtil {
 
     private SecretKey secretKey;
+    private final JwtParser parser;
 
-    public JWTUtil(@Value("${spring.jwt.secret}") String secret) {
+    // 검증이 끝난 토큰 캐시 (토큰의 SHA-256 -> JWTClaims), 만료될 때까지 재검증하지 않는다
+    // 모든 요청이 지나가므로 전역 lock 없이 읽고 쓰고, 한도를 넘으면 한 스레드만 모아서 정리한다
+    private final Map<String, CachedClaims> verifiedTokens = new ConcurrentHashMap<>();
+    private final int cacheSize;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public JWTUtil(@Value("${spring.jwt.secret}") String secret,
+                   @Value("${gjmarket.jwt.cache-size:10000}") int cacheSize) {
         this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8),
                 Jwts.SIG.HS256.key().build().getAlgorithm());
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
+        this.cacheSize = cacheSize;
+    }
+
+    // 토큰을 검증하고 내용을 반환한다. 서명이 틀리거나 만료되었으면 JwtException이 발생한다.
+    public JWTClaims verify(String token) {
+        String key = hash(token);
+        CachedClaims cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (!cached.claims.isExpired()) {
+                cached.lastUsed = System.nanoTime();
+                return cached.claims;
+            }
+            verifiedTokens.remove(key, cached);
+        }
+
+        // 만료된 토큰은 여기서 ExpiredJwtException이 발생한다
+        Claims payload = parser.parseSignedClaims(token).getPayload();
+        JWTClaims claims = new JWTClaims(payload.get("id", Integer.class), payload.get("email", String.class),
+                payload.get("role", String.class), payload.getExpiration());
+        verifiedTokens.put(key, new CachedClaims(claims));
+        if (verifiedTokens.size() > cacheSize) {
+            evict();
+        }
+        return claims;
+    }
+
+    // 만료된 토큰을 먼저 버리고, 그래도 한도를 넘으면 가장 오래 사용하지 않은 토큰부터 한도의 90%까지 버린다
+    // (넣을 때마다 정리하지 않도록 여유를 둔다) 다른 스레드가 정리 중이면 기다리지 않고 넘어간다
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            verifiedTokens.values().removeIf(cached -> cached.claims.isExpired());
+            int excess = verifiedTokens.size() - cacheSize * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            long[] lastUsed = verifiedTokens.values().stream().mapToLong(cached -> cached.lastUsed).sorted().toArray();
+            long cutoff = lastUsed[Math.min(excess, lastUsed.length) - 1];
+            verifiedTokens.values().removeIf(cached -> cached.lastUsed <= cutoff);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    // 검증 결과와 마지막 사용 시각
+    private static class CachedClaims {
+        private final JWTClaims claims;
+        private volatile long lastUsed = System.nanoTime();
+
+        private CachedClaims(JWTClaims claims) {
+            this.claims = claims;
+        }
     }
 
     public String getEmail(String token) {
-        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().get("email", String.class);
+        return verify(token).getEmail();
     }
 
     public String getRole(String token) {
-        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().get("role", String.class);
+        return verify(token).getRole();
     }
 
     public Boolean isExpired(String token) {
-        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().getExpiration().before(new Date());
+        return verify(token).isExpired();
     }
 
     public Integer getUserId(String token) {
-//        String id = Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().get("id", Integer.class);
-//        return Integer.parseInt(id);
-        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().get("id", Integer.class);
+        return verify(token).getUserId();
     }
 
     public String createJwt(Integer id ,String email, String role, Long expiredMs) {
@@ -47,4 +116,14 @@ public class JWTUtil {
                 .signWith(secretKey)
                 .compact();
     }
+
+    // 토큰 원문을 메모리에 들고 있지 않도록 해시를 키로 사용한다
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
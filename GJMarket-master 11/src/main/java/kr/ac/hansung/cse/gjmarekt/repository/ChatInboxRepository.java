@@ -0,0 +1,83 @@
+package kr.ac.hansung.cse.gjmarekt.repository;
+
+import kr.ac.hansung.cse.gjmarekt.dto.ChatRoomSummaryDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// 채팅 목록(inbox) 조회
+// 판매자/구매자 쪽을 각각 (seller_id|buyer_id, last_activity_at, id) 인덱스로 필요한 만큼만 읽고 합친다.
+// OR 조건 하나로 읽으면 인덱스 순서로 정렬할 수 없어 사용자의 채팅방을 모두 읽고 정렬하게 된다.
+@Repository
+public class ChatInboxRepository {
+
+    private static final String BRANCH =
+            "SELECT cr.id, cr.post_id, cr.last_message_id, cr.last_message_preview, cr.last_message_at, " +
+            "cr.last_activity_at, cr.%1$s_id AS partner_id, cr.%2$s_last_read_id AS last_read_id " +
+            "FROM chat_rooms cr WHERE cr.%2$s_id = ? %3$s " +
+            "ORDER BY cr.last_activity_at DESC, cr.id DESC LIMIT ?";
+
+    private static final String CURSOR_CONDITION =
+            "AND (cr.last_activity_at < ? OR (cr.last_activity_at = ? AND cr.id < ?))";
+
+    private static final RowMapper<ChatRoomSummaryDTO> ROW_MAPPER = (rs, rowNum) -> {
+        ChatRoomSummaryDTO dto = new ChatRoomSummaryDTO();
+        dto.setChatRoomId(rs.getInt("id"));
+        dto.setPostId(rs.getObject("post_id", Integer.class));
+        dto.setPostTitle(rs.getString("title"));
+        dto.setPartnerId(rs.getInt("partner_id"));
+        dto.setPartnerNickname(rs.getString("nickname"));
+        String profileImageUrl = rs.getString("profile_image_url");
+        dto.setPartnerProfileImageUrl(profileImageUrl == null ? null : "/profile/" + profileImageUrl);
+        dto.setLastMessageId(rs.getObject("last_message_id", Long.class));
+        dto.setLastMessagePreview(rs.getString("last_message_preview"));
+        dto.setLastMessageAt(toLocalDateTime(rs.getTimestamp("last_message_at")));
+        dto.setLastActivityAt(toLocalDateTime(rs.getTimestamp("last_activity_at")));
+        dto.setUnreadCount(rs.getLong("unread_count"));
+        return dto;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChatInboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // 최근 활동순 채팅방 목록, (beforeActivityAt, beforeId)가 있으면 그 다음부터
+    public List<ChatRoomSummaryDTO> findInbox(Integer userId, LocalDateTime beforeActivityAt, Integer beforeId, int size) {
+        boolean hasCursor = beforeActivityAt != null && beforeId != null;
+        String cursorCondition = hasCursor ? CURSOR_CONDITION : "";
+        String sql = "SELECT i.*, u.nickname, u.profile_image_url, p.title, " +
+                "(SELECT COUNT(*) FROM chat_messages m WHERE m.chat_room_id = i.id " +
+                "AND m.id > COALESCE(i.last_read_id, 0) AND m.sender_id <> ?) AS unread_count " +
+                "FROM ((" + String.format(BRANCH, "buyer", "seller", cursorCondition) + ") UNION ALL (" +
+                String.format(BRANCH, "seller", "buyer", cursorCondition) + ")) i " +
+                "JOIN users u ON u.id = i.partner_id " +
+                "LEFT JOIN posts p ON p.id = i.post_id " +
+                "ORDER BY i.last_activity_at DESC, i.id DESC LIMIT ?";
+
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        for (int branch = 0; branch < 2; branch++) {
+            args.add(userId);
+            if (hasCursor) {
+                Timestamp before = Timestamp.valueOf(beforeActivityAt);
+                args.add(before);
+                args.add(before);
+                args.add(beforeId);
+            }
+            args.add(size);
+        }
+        args.add(size);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
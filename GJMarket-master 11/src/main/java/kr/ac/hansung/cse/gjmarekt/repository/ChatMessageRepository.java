@@ -9,15 +9,24 @@ import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface ChatMessageRepository extends JpaRepository<ChatMessage, Integer> {
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     List<ChatMessage> findByChatRoomIdOrderBySentAtAsc(Integer chatRoomId);
 
 
     // 채팅방 화면에 처음 들어왔을 때 몇개의 채팅 내역을 보여준다
-    List<ChatMessage> findByChatRoomIdOrderBySentAtDesc(Integer chatRoomId, Pageable pageable);
+    // id는 시간순이므로 (chat_room_id, id) 인덱스 순서로 읽는다
+    List<ChatMessage> findByChatRoomIdOrderByIdDesc(Integer chatRoomId, Pageable pageable);
 
 
     // 특정 id 이전의 채팅을 보여준다.
     @Query("SELECT cm FROM ChatMessage cm WHERE cm.chatRoom.id = :chatRoomId AND cm.id < :cursor ORDER BY cm.id DESC")
-    List<ChatMessage> findByChatRoomIdAndIdBefore(@Param("chatRoomId") Integer chatRoomId, @Param("cursor") Integer cursor, Pageable pageable);
+    List<ChatMessage> findByChatRoomIdAndIdBefore(@Param("chatRoomId") Integer chatRoomId, @Param("cursor") Long cursor, Pageable pageable);
+
+
+    // 읽음 처리할 메시지가 그 채팅방의 메시지인지 확인
+    boolean existsByIdAndChatRoomId(Long id, Integer chatRoomId);
+
+
+    // 재접속한 클라이언트가 놓친 메시지, (chat_room_id, room_seq) 인덱스 순서로 읽는다
+    List<ChatMessage> findByChatRoomIdAndRoomSeqGreaterThanOrderByRoomSeqAsc(Integer chatRoomId, Long roomSeq, Pageable pageable);
 }
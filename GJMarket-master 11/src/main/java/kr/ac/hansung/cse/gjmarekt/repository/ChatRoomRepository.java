@@ -1,9 +1,12 @@
 package kr.ac.hansung.cse.gjmarekt.repository;
 
 import kr.ac.hansung.cse.gjmarekt.entity.ChatRoom;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatRoomMembersDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,4 +19,29 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Integer> {
 
 
     Optional<ChatRoom> findByPostIdAndBuyerId(Integer postId, Integer buyerId);
+
+    // 참여자 id만 읽는다 (GJUser는 읽지 않음)
+    @Query("SELECT new kr.ac.hansung.cse.gjmarekt.dto.ChatRoomMembersDTO(cr.seller.id, cr.buyer.id) " +
+            "FROM ChatRoom cr WHERE cr.id = :chatRoomId")
+    Optional<ChatRoomMembersDTO> findMembersById(@Param("chatRoomId") Integer chatRoomId);
+
+    // userId의 읽음 위치 (읽은 적이 없으면 empty)
+    @Query("SELECT CASE WHEN cr.seller.id = :userId THEN cr.sellerLastReadId ELSE cr.buyerLastReadId END " +
+            "FROM ChatRoom cr WHERE cr.id = :chatRoomId")
+    Optional<Long> findLastReadId(@Param("chatRoomId") Integer chatRoomId, @Param("userId") Integer userId);
+
+    // 읽음 위치는 앞으로만 이동한다
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChatRoom cr SET cr.sellerLastReadId = :messageId WHERE cr.id = :chatRoomId " +
+            "AND cr.seller.id = :userId AND (cr.sellerLastReadId IS NULL OR cr.sellerLastReadId < :messageId)")
+    int markReadBySeller(@Param("chatRoomId") Integer chatRoomId, @Param("userId") Integer userId,
+                         @Param("messageId") Long messageId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChatRoom cr SET cr.buyerLastReadId = :messageId WHERE cr.id = :chatRoomId " +
+            "AND cr.buyer.id = :userId AND (cr.buyerLastReadId IS NULL OR cr.buyerLastReadId < :messageId)")
+    int markReadByBuyer(@Param("chatRoomId") Integer chatRoomId, @Param("userId") Integer userId,
+                        @Param("messageId") Long messageId);
 }
@@ -0,0 +1,40 @@
+package kr.ac.hansung.cse.gjmarekt.repository;
+
+import kr.ac.hansung.cse.gjmarekt.entity.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    // 저장된 파일 이름, ImageBlob.getFilename()과 같은 규칙
+    String FILENAME = "CASE WHEN b.extension IS NULL OR b.extension = '' THEN b.hash " +
+            "ELSE CONCAT(b.hash, '.', b.extension) END";
+
+    // 참조 수 증가, 없는 이미지면 0을 반환한다
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash")
+    int increment(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash AND b.refCount > 0")
+    int decrement(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.variants = :variants WHERE b.hash = :hash")
+    int updateVariants(@Param("hash") String hash, @Param("variants") String variants);
+
+    // 참조 수를 post_images, users에 실제로 남아 있는 참조로부터 다시 만든다
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE image_blobs b SET ref_count = " +
+            "(SELECT COUNT(*) FROM post_images pi WHERE pi.image_url = " + FILENAME + ") + " +
+            "(SELECT COUNT(*) FROM users u WHERE u.profile_image_url = " + FILENAME + ")",
+            nativeQuery = true)
+    int rebuildRefCounts();
+}
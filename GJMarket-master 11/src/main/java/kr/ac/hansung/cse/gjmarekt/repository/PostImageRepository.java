@@ -0,0 +1,17 @@
+package kr.ac.hansung.cse.gjmarekt.repository;
+
+import kr.ac.hansung.cse.gjmarekt.entity.PostImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PostImageRepository extends JpaRepository<PostImage, Integer> {
+
+    // 축소본 생성이 끝나면 만들어진 크기 목록을 기록한다
+    @Modifying
+    @Transactional
+    @Query("UPDATE PostImage pi SET pi.variants = :variants WHERE pi.imageUrl = :imageUrl")
+    int updateVariants(@Param("imageUrl") String imageUrl, @Param("variants") String variants);
+}
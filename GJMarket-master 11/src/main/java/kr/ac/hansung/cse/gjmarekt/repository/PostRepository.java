@@ -1,21 +1,105 @@
 package kr.ac.hansung.cse.gjmarekt.repository;
 
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.search.SearchDocument;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PostRepository extends JpaRepository<Post, Integer> {
 
+    // 목록 조회용 select 절
+    // 작성자는 join, 썸네일은 순서 0번 이미지만 left join 해서 한번의 쿼리로 가져온다
+    String SUMMARY_SELECT = "SELECT new kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO("
+            + "p.id, p.title, p.price, p.status, i.imageUrl, p.viewCount, p.wishlistCount, u.id, u.nickname, p.updatedAt) "
+            + "FROM Post p JOIN p.user u LEFT JOIN p.images i ON i.sequence = 0 ";
+
+    // 둘러보기(browse)용 id 조회
+    // 판매 상태 하나씩 (status, 정렬값, id) 인덱스만 따라 읽으므로 정렬(filesort)이나 전체 스캔이 없다
+    // status는 고정값이지만 ORDER BY를 인덱스 컬럼 순서와 똑같이 맞춰 둔다
+    String BROWSE_SELECT = "SELECT p.id FROM Post p "
+            + "WHERE p.status = :status AND p.price BETWEEN :minPrice AND :maxPrice ";
+
     Page<Post> findAll(Pageable pageable);
 
 
-    List<Post> findAllByOrderByIdDesc(Pageable pageable);
+    @Query(value = SUMMARY_SELECT,
+            countQuery = "SELECT COUNT(p) FROM Post p")
+    Page<PostSummaryDTO> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "ORDER BY p.id DESC")
+    List<PostSummaryDTO> findRecentSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id < :cursor ORDER BY p.id DESC")
+    List<PostSummaryDTO> findSummariesBeforeCursor(@Param("cursor") Integer cursor, Pageable pageable);
+
+    // 최근 수정순 피드, idx_posts_updated_at_id를 따라 읽으므로 OFFSET/COUNT 없이 어느 페이지든 비용이 같다
+    @Query(SUMMARY_SELECT + "ORDER BY p.updatedAt DESC, p.id DESC")
+    List<PostSummaryDTO> findFeed(Pageable pageable);
+
+    // (updatedAt, id)가 커서보다 작은 게시물부터
+    @Query(SUMMARY_SELECT + "WHERE p.updatedAt <= :updatedAt AND (p.updatedAt < :updatedAt OR p.id < :id) "
+            + "ORDER BY p.updatedAt DESC, p.id DESC")
+    List<PostSummaryDTO> findFeedAfter(@Param("updatedAt") LocalDateTime updatedAt, @Param("id") Integer id,
+                                       Pageable pageable);
+
+    // 최근 수정순
+    @Query(BROWSE_SELECT + "ORDER BY p.status, p.updatedAt DESC, p.id DESC")
+    List<Integer> browseNewest(@Param("status") int status, @Param("minPrice") int minPrice,
+                               @Param("maxPrice") int maxPrice, Pageable pageable);
+
+    @Query(BROWSE_SELECT + "AND p.updatedAt <= :updatedAt AND (p.updatedAt < :updatedAt OR p.id < :id) "
+            + "ORDER BY p.status, p.updatedAt DESC, p.id DESC")
+    List<Integer> browseNewestAfter(@Param("status") int status, @Param("minPrice") int minPrice,
+                                    @Param("maxPrice") int maxPrice, @Param("updatedAt") LocalDateTime updatedAt,
+                                    @Param("id") Integer id, Pageable pageable);
+
+    // 낮은 가격순
+    @Query(BROWSE_SELECT + "ORDER BY p.status, p.price ASC, p.id ASC")
+    List<Integer> browseCheapest(@Param("status") int status, @Param("minPrice") int minPrice,
+                                 @Param("maxPrice") int maxPrice, Pageable pageable);
+
+    @Query(BROWSE_SELECT + "AND p.price >= :price AND (p.price > :price OR p.id > :id) "
+            + "ORDER BY p.status, p.price ASC, p.id ASC")
+    List<Integer> browseCheapestAfter(@Param("status") int status, @Param("minPrice") int minPrice,
+                                      @Param("maxPrice") int maxPrice, @Param("price") int price,
+                                      @Param("id") Integer id, Pageable pageable);
+
+    // 위시리스트 많은 순
+    @Query(BROWSE_SELECT + "ORDER BY p.status, p.wishlistCount DESC, p.id DESC")
+    List<Integer> browseMostWished(@Param("status") int status, @Param("minPrice") int minPrice,
+                                   @Param("maxPrice") int maxPrice, Pageable pageable);
+
+    @Query(BROWSE_SELECT + "AND p.wishlistCount <= :wishlistCount AND (p.wishlistCount < :wishlistCount OR p.id < :id) "
+            + "ORDER BY p.status, p.wishlistCount DESC, p.id DESC")
+    List<Integer> browseMostWishedAfter(@Param("status") int status, @Param("minPrice") int minPrice,
+                                        @Param("maxPrice") int maxPrice, @Param("wishlistCount") int wishlistCount,
+                                        @Param("id") Integer id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id IN :ids")
+    List<PostSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+
+    // 검색 색인 생성용, id 순으로 나눠서 읽는다
+    @Query("SELECT new kr.ac.hansung.cse.gjmarekt.search.SearchDocument(p.id, p.title, p.content, p.price, p.status) "
+            + "FROM Post p WHERE p.id > :after ORDER BY p.id ASC")
+    List<SearchDocument> findSearchDocumentsAfter(@Param("after") Integer after, Pageable pageable);
+
+    // (updatedAt, id) 순서로 (at, afterId) 다음에 수정된 게시물
+    @Query("SELECT new kr.ac.hansung.cse.gjmarekt.search.SearchDocument(p.id, p.title, p.content, p.price, p.status, p.updatedAt) "
+            + "FROM Post p WHERE p.updatedAt > :at OR (p.updatedAt = :at AND p.id > :afterId) "
+            + "ORDER BY p.updatedAt ASC, p.id ASC")
+    List<SearchDocument> findSearchDocumentsUpdatedAfter(@Param("at") LocalDateTime at,
+                                                         @Param("afterId") Integer afterId,
+                                                         Pageable pageable);
 
-    @Query("SELECT p FROM Post p WHERE p.id < :cursor ORDER BY p.id DESC")
-    List<Post> findPostsBeforeCursor(@Param("cursor") Integer cursor, Pageable pageable);
+    @Query("SELECT p.id FROM Post p WHERE p.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 }
@@ -18,4 +18,27 @@ public interface UserRepository extends JpaRepository<GJUser, Integer> {
     @Transactional
     @Query("UPDATE GJUser u SET u.rating = :rating WHERE u.id = :userId")
     void updateUserRating(@Param("userId") Integer userId, @Param("rating") Float rating);
+
+    // 별점 합계/개수를 더하고 평균을 다시 계산한다 (읽지 않고 한 문장으로 처리)
+    // MySQL은 SET을 왼쪽부터 적용하므로 rating을 먼저, 바뀌기 전 값 기준으로 계산한다
+    @Modifying
+    @Transactional
+    @Query("UPDATE GJUser u SET " +
+            "u.rating = CASE WHEN u.ratingCount + :countDelta > 0 " +
+            "THEN CAST(u.ratingSum + :sumDelta AS float) / (u.ratingCount + :countDelta) ELSE NULL END, " +
+            "u.ratingSum = u.ratingSum + :sumDelta, " +
+            "u.ratingCount = u.ratingCount + :countDelta " +
+            "WHERE u.id = :userId")
+    int applyRatingChange(@Param("userId") Integer userId,
+                          @Param("sumDelta") long sumDelta,
+                          @Param("countDelta") int countDelta);
+
+    // reviews 테이블로부터 모든 사용자의 별점 집계를 다시 만든다
+    @Modifying
+    @Transactional
+    @Query("UPDATE GJUser u SET " +
+            "u.ratingSum = COALESCE((SELECT SUM(r.rating) FROM Review r WHERE r.reviewee = u), 0), " +
+            "u.ratingCount = (SELECT COUNT(r.rating) FROM Review r WHERE r.reviewee = u), " +
+            "u.rating = (SELECT CAST(AVG(r.rating) AS float) FROM Review r WHERE r.reviewee = u)")
+    int rebuildRatings();
 }
@@ -4,6 +4,8 @@ import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
 import kr.ac.hansung.cse.gjmarekt.entity.Post;
 import kr.ac.hansung.cse.gjmarekt.entity.Wishlist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -11,6 +13,10 @@ import java.util.List;
 public interface WishlistRepository extends JpaRepository<Wishlist, Integer> {
     List<Wishlist> findByUserId(Integer userId);
 
+    // 찜 여부 확인용, idx_wishlists_user_post만 읽는다
+    @Query("SELECT w.post.id FROM Wishlist w WHERE w.user.id = :userId")
+    List<Integer> findPostIdsByUserId(@Param("userId") Integer userId);
+
     @Transactional
     void deleteByUserIdAndPostId(Integer userId,Integer postId);
 
@@ -0,0 +1,66 @@
+package kr.ac.hansung.cse.gjmarekt.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// 문자 2-gram 토크나이저
+// 한국어는 띄어쓰기와 조사가 불규칙해서 단어 단위로 자르면 "아이폰을"과 "아이폰"이 매칭되지 않는다.
+// 글자/숫자 연속 구간을 2글자씩 겹쳐 잘라 부분 문자열 검색이 되도록 한다.
+// 한 글자 검색어("폰", "책")도 찾을 수 있도록 문서는 글자 하나씩(1-gram)도 색인한다.
+public final class NGramTokenizer {
+
+    private static final int N = 2;
+
+    private NGramTokenizer() {
+    }
+
+    // 색인할 문서의 토큰: 2-gram과 1-gram
+    public static List<String> tokenize(String text) {
+        return split(text, true);
+    }
+
+    // 검색어의 토큰: 2-gram, 한 글자짜리 구간만 1-gram
+    public static List<String> tokenizeQuery(String text) {
+        return split(text, false);
+    }
+
+    private static List<String> split(String text, boolean unigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        // 전각/반각 등을 통일하고 소문자로 바꾼다
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (unigrams && i - start > 1) {
+                    for (int j = start; j < i; j++) {
+                        tokens.add(normalized.substring(j, j + 1));
+                    }
+                }
+                addGrams(normalized, start, i, tokens);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addGrams(String text, int start, int end, List<String> tokens) {
+        // 한 글자짜리 구간은 그대로 토큰으로 사용
+        if (end - start <= N) {
+            tokens.add(text.substring(start, end));
+            return;
+        }
+        for (int i = start; i + N <= end; i++) {
+            tokens.add(text.substring(i, i + N));
+        }
+    }
+}
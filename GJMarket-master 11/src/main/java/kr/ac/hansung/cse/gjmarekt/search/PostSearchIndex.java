@@ -0,0 +1,215 @@
+package kr.ac.hansung.cse.gjmarekt.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 게시물 제목/내용에 대한 메모리 역색인
+// 게시물이 생성/수정/삭제될 때마다 해당 문서만 갱신하고, 점수는 BM25로 계산한다.
+@Component
+public class PostSearchIndex {
+
+    // BM25 파라미터
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // 제목에 나온 토큰은 내용보다 가중치를 더 준다
+    private static final int TITLE_WEIGHT = 2;
+
+    // 정렬 순서: 점수 내림차순, 같으면 id 내림차순
+    private static final Comparator<Hit> RANKING =
+            Comparator.comparingDouble(Hit::getScore).reversed().thenComparing(Hit::getId, Comparator.reverseOrder());
+
+    // 토큰 -> (postId -> 토큰 빈도)
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private final Map<Integer, IndexedDoc> docs = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 문서를 색인한다. 이미 있는 문서면 교체한다.
+    public void index(SearchDocument document) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : NGramTokenizer.tokenize(document.getTitle())) {
+            termFreqs.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : NGramTokenizer.tokenize(document.getContent())) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+        int length = termFreqs.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.getId());
+            for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(document.getId(), entry.getValue());
+            }
+            docs.put(document.getId(), new IndexedDoc(termFreqs.keySet().toArray(new String[0]), length,
+                    document.getPrice(), document.getStatus()));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer postId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 색인된 게시물 id (오름차순)
+    public int[] ids() {
+        lock.readLock().lock();
+        try {
+            return docs.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 검색어로 문서를 찾아 점수순으로 size개 반환
+    // after가 있으면 그 결과 다음 순서부터 반환한다 (keyset paging)
+    // 다음 페이지는 첫 페이지의 stats로 점수를 계산해야 한다. 그 사이 다른 게시물이 색인되어 점수가 바뀌면
+    // after 기준으로 자른 결과가 겹치거나 빠지기 때문이다. stats가 null이면 현재 색인으로 새로 만든다.
+    public Page search(String query, SearchFilter filter, Stats stats, Hit after, int size) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(NGramTokenizer.tokenizeQuery(query)));
+        if (stats != null && stats.docFreqs.length != terms.size()) {
+            throw new IllegalArgumentException("Search stats do not match query: " + query);
+        }
+        if (terms.isEmpty() || size <= 0) {
+            return new Page(Collections.emptyList(), stats, false);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (stats == null) {
+                int[] docFreqs = new int[terms.size()];
+                for (int i = 0; i < terms.size(); i++) {
+                    Map<Integer, Integer> posting = postings.get(terms.get(i));
+                    docFreqs[i] = posting == null ? 0 : posting.size();
+                }
+                stats = new Stats(docs.size(), totalLength, docFreqs);
+            }
+            int docCount = stats.docCount;
+            if (docCount == 0) {
+                return new Page(Collections.emptyList(), stats, false);
+            }
+            double avgLength = (double) stats.totalLength / docCount;
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (int i = 0; i < terms.size(); i++) {
+                Map<Integer, Integer> posting = postings.get(terms.get(i));
+                if (posting == null) {
+                    continue;
+                }
+                int docFreq = stats.docFreqs[i];
+                double idf = Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+                for (Map.Entry<Integer, Integer> entry : posting.entrySet()) {
+                    IndexedDoc doc = docs.get(entry.getKey());
+                    if (!filter.matches(doc.price, doc.status)) {
+                        continue;
+                    }
+                    int tf = entry.getValue();
+                    double norm = tf + K1 * (1 - B + B * doc.length / avgLength);
+                    scores.merge(entry.getKey(), idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+
+            // 상위 size + 1개만 유지하는 힙 (가장 순위가 낮은 것이 맨 앞), 하나 더 찾아 다음 페이지가 있는지 안다
+            PriorityQueue<Hit> top = new PriorityQueue<>(size + 2, RANKING.reversed());
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                Hit hit = new Hit(entry.getKey(), entry.getValue());
+                if (after != null && RANKING.compare(hit, after) <= 0) {
+                    continue;
+                }
+                top.offer(hit);
+                if (top.size() > size + 1) {
+                    top.poll();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(RANKING);
+            boolean hasMore = hits.size() > size;
+            if (hasMore) {
+                hits.remove(size);
+            }
+            return new Page(hits, stats, hasMore);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Integer postId) {
+        IndexedDoc old = docs.remove(postId);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.terms) {
+            Map<Integer, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(postId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= old.length;
+    }
+
+    @AllArgsConstructor
+    private static class IndexedDoc {
+        private final String[] terms;
+        private final int length;
+        private final int price;
+        private final int status;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hit {
+        private final Integer id;
+        private final double score;
+    }
+
+    // 점수 계산 기준: 문서 수, 전체 길이, 검색어 토큰별(토큰화 순서) 문서 수
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int docCount;
+        private final long totalLength;
+        private final int[] docFreqs;
+    }
+
+    // 검색 결과 한 페이지와 다음 페이지 요청에 넘길 stats
+    @Getter
+    @AllArgsConstructor
+    public static class Page {
+        private final List<Hit> hits;
+        private final Stats stats;
+        private final boolean hasMore;
+    }
+}
@@ -0,0 +1,23 @@
+package kr.ac.hansung.cse.gjmarekt.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// 검색 색인에 넣을 게시물 정보
+@Getter
+@AllArgsConstructor
+public class SearchDocument {
+    private Integer id;
+    private String title;
+    private String content;
+    private int price;
+    private int status;
+    // 다른 서버에서 바뀐 게시물을 따라잡을 때의 위치, 그 외에는 null
+    private LocalDateTime updatedAt;
+
+    public SearchDocument(Integer id, String title, String content, int price, int status) {
+        this(id, title, content, price, status, null);
+    }
+}
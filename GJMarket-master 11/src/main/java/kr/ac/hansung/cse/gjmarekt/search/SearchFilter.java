@@ -0,0 +1,23 @@
+package kr.ac.hansung.cse.gjmarekt.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 검색 결과 필터 (null이면 조건 없음)
+@Getter
+@AllArgsConstructor
+public class SearchFilter {
+    private Integer minPrice;
+    private Integer maxPrice;
+    private Integer status;
+
+    public boolean matches(int price, int status) {
+        if (minPrice != null && price < minPrice) {
+            return false;
+        }
+        if (maxPrice != null && price > maxPrice) {
+            return false;
+        }
+        return this.status == null || this.status == status;
+    }
+}
@@ -0,0 +1,66 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+// chat_messages.id를 BIGINT로 바꾼다.
+// 예전 테이블은 AUTO_INCREMENT INT로 만들어졌는데, ChatMessageIdGenerator의 53비트 id는 INT에 들어가지 않고
+// ddl-auto=update는 컬럼 타입을 바꾸지 않는다.
+// 웹 서버가 요청을 받기 전(모든 bean 생성 직후)에 실행한다.
+// 자동으로 바꾸지 않으려면 --gjmarket.chat.migrate-id-column=false (INT이면 시작하지 않는다)
+@Component
+public class ChatMessageIdColumnMigration implements SmartInitializingSingleton {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String ALTER_SQL = "ALTER TABLE chat_messages MODIFY id BIGINT NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean migrate;
+
+    public ChatMessageIdColumnMigration(JdbcTemplate jdbcTemplate,
+                                        @Value("${gjmarket.chat.migrate-id-column:true}") boolean migrate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.migrate = migrate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer type = idColumnType();
+        if (type == null || type == Types.BIGINT) {
+            return;
+        }
+        if (!migrate) {
+            throw new IllegalStateException("chat_messages.id must be BIGINT, run: " + ALTER_SQL);
+        }
+        long start = System.currentTimeMillis();
+        jdbcTemplate.execute(ALTER_SQL);
+        logger.info("chat_messages.id widened to BIGINT in {} ms", System.currentTimeMillis() - start);
+    }
+
+    // 테이블이 없으면 null
+    Integer idColumnType() {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // 식별자를 대문자로 저장하는 DB(H2 등)도 있다
+            for (String table : new String[]{"chat_messages", "CHAT_MESSAGES"}) {
+                for (String column : new String[]{"id", "ID"}) {
+                    try (ResultSet rs = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+                        if (rs.next()) {
+                            return rs.getInt("DATA_TYPE");
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// 채팅 메시지 id 생성기
+// DB의 AUTO_INCREMENT 대신 애플리케이션에서 id를 정해야 insert를 JDBC batch로 묶을 수 있다.
+// [시간(ms) 41비트][노드 5비트][순번 7비트] = 53비트
+// 자바스크립트 Number로도 정확히 표현되도록 53비트 안에 맞춘다.
+@Component
+public class ChatMessageIdGenerator {
+
+    // 2025-01-01T00:00:00Z
+    private static final long EPOCH = 1735689600000L;
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 7;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private long lastMillis = -1;
+    private long sequence;
+
+    public ChatMessageIdGenerator(@Value("${gjmarket.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId >= (1L << NODE_BITS)) {
+            throw new IllegalArgumentException("gjmarket.node-id must be between 0 and " + ((1L << NODE_BITS) - 1));
+        }
+        this.nodeId = nodeId;
+    }
+
+    public synchronized long nextId() {
+        long now = System.currentTimeMillis() - EPOCH;
+        if (now <= lastMillis) {
+            // 같은 ms이거나 시계가 뒤로 간 경우, 순번을 올리고 다 쓰면 다음 ms를 미리 사용한다
+            now = lastMillis;
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                now = lastMillis + 1;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return (now << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
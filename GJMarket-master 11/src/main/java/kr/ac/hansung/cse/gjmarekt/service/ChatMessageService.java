@@ -2,45 +2,47 @@ package kr.ac.hansung.cse.gjmarekt.service;
 
 import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.ChatMessage;
-import kr.ac.hansung.cse.gjmarekt.entity.ChatRoom;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
 import kr.ac.hansung.cse.gjmarekt.repository.ChatMessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ChatMessageService {
 
     private final ChatMessageRepository chatMessageRepository;
-    private final ChatRoomService chatRoomService;
-    private final UserService userService;
+    private final ChatMessageWriter chatMessageWriter;
+    private final ChatMessageIdGenerator chatMessageIdGenerator;
+    private final RecentMessageCache recentMessageCache;
 
     @Autowired
-    public ChatMessageService(ChatMessageRepository chatMessageRepository, ChatRoomService chatRoomService, UserService userService) {
+    public ChatMessageService(ChatMessageRepository chatMessageRepository, ChatMessageWriter chatMessageWriter, ChatMessageIdGenerator chatMessageIdGenerator, RecentMessageCache recentMessageCache) {
         this.chatMessageRepository = chatMessageRepository;
-        this.chatRoomService = chatRoomService;
-        this.userService = userService;
+        this.chatMessageWriter = chatMessageWriter;
+        this.chatMessageIdGenerator = chatMessageIdGenerator;
+        this.recentMessageCache = recentMessageCache;
     }
 
-    @Transactional
-    public ChatMessage sendMessage(Integer chatRoomId, Integer senderId, String content) {
-        System.out.println("ChatMessageService.sendMessage"+chatRoomId);
-        GJUser sender = userService.getUserById(senderId);
-        ChatRoom chatRoom = chatRoomService.getChatRoomById(chatRoomId);
-
-        ChatMessage chatMessage = new ChatMessage();
-        chatMessage.setChatRoom(chatRoom);
-        chatMessage.setSender(sender);
-        chatMessage.setContent(content);
-        chatMessage.setSentAt(LocalDateTime.now());
-        return chatMessageRepository.save(chatMessage);
+    // 메시지를 저장 큐에 넣는다
+    // 반환된 future는 DB에 저장된 뒤 완료되며, 그때 클라이언트에 전달하면 된다
+    public CompletableFuture<ChatMessageDTO> sendMessage(Integer chatRoomId, GJUser sender, String content) {
+        ChatMessageDTO chatMessageDTO = new ChatMessageDTO();
+        chatMessageDTO.setId(chatMessageIdGenerator.nextId());
+        chatMessageDTO.setChatRoomId(chatRoomId);
+        chatMessageDTO.setSender(sender);
+        chatMessageDTO.setContent(content);
+        chatMessageDTO.setSentAt(LocalDateTime.now());
+        return chatMessageWriter.write(chatMessageDTO).thenApply(saved -> {
+            recentMessageCache.add(saved);
+            return saved;
+        });
     }
 
     public List<ChatMessage> getMessagesByChatRoomId(Integer chatRoomId) {
@@ -48,23 +50,50 @@ public class ChatMessageService {
     }
 
     // 처음 채팅방 접속시 이전 채팅내역 불러오기
+    // 최근 메시지 캐시에 없을 때만 DB에서 읽는다
     public List<ChatMessageDTO> getRecentMessages(Integer chatRoomId, int size) {
-        Pageable pageable = PageRequest.of(0, size);
-        List<ChatMessage> chatMessages = chatMessageRepository.findByChatRoomIdOrderBySentAtDesc(chatRoomId, pageable);
-        return convertToDTOList(chatMessages);
+        return recentMessageCache.getRecent(chatRoomId, size, limit -> loadRecent(chatRoomId, limit));
     }
     // 특정 id이전 채팅내역 불러오기
-    public List<ChatMessageDTO> getMessagesBeforeCursor(Integer chatRoomId, Integer cursor, int size) {
+    public List<ChatMessageDTO> getMessagesBeforeCursor(Integer chatRoomId, Long cursor, int size) {
+        // 첫 페이지는 대부분 최근 메시지 캐시에 있다
+        List<ChatMessageDTO> cached = recentMessageCache.getBefore(chatRoomId, cursor, size);
+        if (cached != null) {
+            return cached;
+        }
         Pageable pageable = PageRequest.of(0, size);
         List<ChatMessage> chatMessages = chatMessageRepository.findByChatRoomIdAndIdBefore(chatRoomId, cursor, pageable);
         return convertToDTOList(chatMessages);
     }
 
+    // 재접속한 클라이언트가 놓친 메시지 (seq 오름차순)
+    // 놓친 메시지가 limit개보다 많으면 null, 이때 클라이언트는 REST로 채팅 내역을 다시 읽는다
+    public List<ChatMessageDTO> getMessagesAfterSeq(Integer chatRoomId, long afterSeq, int limit) {
+        // 짧게 끊겼다가 다시 접속한 경우 대부분 최근 메시지 캐시에 있다
+        List<ChatMessageDTO> messages = recentMessageCache.getAfter(chatRoomId, afterSeq,
+                size -> loadRecent(chatRoomId, size));
+        if (messages == null) {
+            Pageable pageable = PageRequest.of(0, limit + 1);
+            messages = convertToDTOList(chatMessageRepository
+                    .findByChatRoomIdAndRoomSeqGreaterThanOrderByRoomSeqAsc(chatRoomId, afterSeq, pageable));
+        }
+        return messages.size() > limit ? null : messages;
+    }
+
+    // 최근 메시지 캐시를 채울 때 사용 (최신이 앞)
+    private List<ChatMessageDTO> loadRecent(Integer chatRoomId, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        List<ChatMessage> chatMessages = chatMessageRepository.findByChatRoomIdOrderByIdDesc(chatRoomId, pageable);
+        return convertToDTOList(chatMessages);
+    }
+
     private List<ChatMessageDTO> convertToDTOList(List<ChatMessage> chatMessages) {
         List<ChatMessageDTO> chatMessageDTOs = new ArrayList<>();
         for (ChatMessage chatMessage : chatMessages) {
             ChatMessageDTO dto = new ChatMessageDTO();
             dto.setId(chatMessage.getId());
+            dto.setChatRoomId(chatMessage.getChatRoom().getId());
+            dto.setSeq(chatMessage.getRoomSeq());
             dto.setContent(chatMessage.getContent());
             dto.setSender(chatMessage.getSender());
             dto.setSentAt(chatMessage.getSentAt());
@@ -0,0 +1,297 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// 채팅 메시지를 큐에 모았다가 JDBC batch insert로 저장한다.
+// 메시지마다 트랜잭션을 여는 대신 몇 ms 또는 N개 단위로 한번에 커밋한다.
+// 저장(커밋)이 끝나면 각 메시지의 future가 완료된다.
+// future는 저장 스레드가 아닌 별도 스레드에서 batch 순서대로 완료하므로, 콜백(채팅방 전송 등)이 다음 batch 저장을 늦추지 않는다.
+// MySQL에서 실제로 한 문장으로 묶으려면 JDBC URL에 rewriteBatchedStatements=true가 필요하다.
+// 채팅방별 seq도 여기서 정한다. batch마다 채팅방 row lock을 한번 잡으므로 서버가 여러 대여도 seq는 빠짐없이 증가한다.
+@Service
+public class ChatMessageWriter {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_messages (id, chat_room_id, room_seq, sender_id, content, sent_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // 커밋할 때까지 다른 서버가 같은 채팅방의 seq를 정하지 못하도록 잠근다
+    private static final String LOCK_ROOMS_SQL = "SELECT id, last_seq FROM chat_rooms WHERE id IN (%s) FOR UPDATE";
+    private static final String UPDATE_SEQ_SQL = "UPDATE chat_rooms SET last_seq = ? WHERE id = ?";
+
+    // 채팅 목록용 마지막 메시지 정보 갱신 (더 최신 메시지가 이미 반영되어 있으면 건너뛴다)
+    private static final String UPDATE_ROOM_SQL =
+            "UPDATE chat_rooms SET last_message_id = ?, last_message_at = ?, last_message_preview = ?, last_activity_at = ? " +
+            "WHERE id = ? AND (last_message_id IS NULL OR last_message_id < ?)";
+
+    // 미리보기로 저장할 최대 글자 수
+    private static final int PREVIEW_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writerThread;
+    private final ExecutorService completer;
+    private volatile boolean running = true;
+
+    // 한번에 저장할 최대 메시지 수
+    private final int batchSize;
+    // 첫 메시지가 들어온 뒤 batch를 채우기 위해 기다리는 최대 시간
+    private final long lingerMs;
+    // 큐가 가득 찼을 때 기다리는 최대 시간
+    private final long offerTimeoutMs;
+
+    private final Counter written;
+    private final Counter failed;
+    private final Timer batchTimer;
+
+    public ChatMessageWriter(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${gjmarket.chat.writer.queue-capacity:10000}") int queueCapacity,
+                             @Value("${gjmarket.chat.writer.batch-size:100}") int batchSize,
+                             @Value("${gjmarket.chat.writer.linger-ms:5}") long lingerMs,
+                             @Value("${gjmarket.chat.writer.offer-timeout-ms:100}") long offerTimeoutMs) {
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.written = meterRegistry.counter("gjmarket.chat.writer.written");
+        this.failed = meterRegistry.counter("gjmarket.chat.writer.failed");
+        this.batchTimer = meterRegistry.timer("gjmarket.chat.writer.batch");
+        meterRegistry.gauge("gjmarket.chat.writer.queue.depth", queue, BlockingQueue::size);
+
+        this.completer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-message-completer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writerThread = new Thread(this::run, "chat-message-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // 메시지를 저장 큐에 넣는다. 반환된 future는 DB에 커밋된 뒤 완료된다.
+    public CompletableFuture<ChatMessageDTO> write(ChatMessageDTO message) {
+        CompletableFuture<ChatMessageDTO> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new RejectedExecutionException("Chat message writer is shut down"));
+            return future;
+        }
+        try {
+            if (!queue.offer(new Pending(message, future), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                future.completeExceptionally(new RejectedExecutionException("Chat message queue is full"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // linger 시간 동안 batch를 채운다
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 종료 여부는 running으로 판단하고, 남은 메시지는 계속 저장한다
+            } catch (RuntimeException e) {
+                logger.error("chat message writer loop error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        try {
+            batchTimer.record(() -> transactionTemplate.executeWithoutResult(status -> save(batch)));
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            // 잘못된 메시지 하나(없는 채팅방 등) 때문에 batch 전체가 실패하지 않도록 하나씩 다시 저장
+            logger.warn("chat message batch of {} failed, retrying one by one", batch.size(), e);
+            for (Pending pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> save(List.of(pending)));
+                    written.increment();
+                } catch (RuntimeException single) {
+                    failed.increment();
+                    pending.error = single;
+                }
+            }
+        }
+        complete(List.copyOf(batch));
+    }
+
+    private void complete(List<Pending> batch) {
+        try {
+            completer.execute(() -> {
+                for (Pending pending : batch) {
+                    pending.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 종료 중
+            for (Pending pending : batch) {
+                pending.complete();
+            }
+        }
+    }
+
+    // 트랜잭션 안에서 호출
+    private void save(List<Pending> batch) {
+        assignSequences(batch);
+        jdbcTemplate.batchUpdate(INSERT_SQL, toArgs(batch));
+        updateRooms(batch);
+    }
+
+    // 채팅방 row를 잠그고 batch 순서대로 seq를 붙인다
+    private void assignSequences(List<Pending> batch) {
+        Map<Integer, Long> lastSeqs = new HashMap<>();
+        for (Pending pending : batch) {
+            lastSeqs.put(pending.message.getChatRoomId(), null);
+        }
+        String placeholders = String.join(",", Collections.nCopies(lastSeqs.size(), "?"));
+        jdbcTemplate.query(String.format(LOCK_ROOMS_SQL, placeholders),
+                rs -> {
+                    lastSeqs.put(rs.getInt("id"), rs.getLong("last_seq"));
+                },
+                lastSeqs.keySet().toArray());
+
+        for (Pending pending : batch) {
+            // 없는 채팅방이면 seq 없이 insert하다가 실패한다
+            Long last = lastSeqs.get(pending.message.getChatRoomId());
+            Long seq = last == null ? null : last + 1;
+            pending.message.setSeq(seq);
+            if (seq != null) {
+                lastSeqs.put(pending.message.getChatRoomId(), seq);
+            }
+        }
+
+        List<Object[]> args = new ArrayList<>(lastSeqs.size());
+        for (Map.Entry<Integer, Long> entry : lastSeqs.entrySet()) {
+            if (entry.getValue() != null) {
+                args.add(new Object[]{entry.getValue(), entry.getKey()});
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SEQ_SQL, args);
+    }
+
+    // 채팅방마다 batch 안의 가장 최신 메시지로 한번만 갱신한다
+    private void updateRooms(List<Pending> batch) {
+        Map<Integer, ChatMessageDTO> latest = new HashMap<>();
+        for (Pending pending : batch) {
+            latest.merge(pending.message.getChatRoomId(), pending.message,
+                    (a, b) -> a.getId() > b.getId() ? a : b);
+        }
+        List<Object[]> args = new ArrayList<>(latest.size());
+        for (ChatMessageDTO message : latest.values()) {
+            Timestamp sentAt = Timestamp.valueOf(message.getSentAt());
+            args.add(new Object[]{message.getId(), sentAt, preview(message.getContent()), sentAt,
+                    message.getChatRoomId(), message.getId()});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_ROOM_SQL, args);
+    }
+
+    private String preview(String content) {
+        if (content == null || content.codePointCount(0, content.length()) <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, content.offsetByCodePoints(0, PREVIEW_LENGTH));
+    }
+
+    private List<Object[]> toArgs(List<Pending> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            args.add(toArgs(pending.message));
+        }
+        return args;
+    }
+
+    private Object[] toArgs(ChatMessageDTO message) {
+        return new Object[]{message.getId(), message.getChatRoomId(), message.getSeq(), message.getSender().getId(),
+                message.getContent(), Timestamp.valueOf(message.getSentAt())};
+    }
+
+    // 종료시 큐에 남은 메시지를 모두 저장한 뒤 끝낸다
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        if (writerThread.isAlive()) {
+            logger.warn("chat message writer did not drain, {} messages left", queue.size());
+        }
+        completer.shutdown();
+        completer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static class Pending {
+        private final ChatMessageDTO message;
+        private final CompletableFuture<ChatMessageDTO> future;
+        // 저장에 실패했으면 그 예외
+        private RuntimeException error;
+
+        private Pending(ChatMessageDTO message, CompletableFuture<ChatMessageDTO> future) {
+            this.message = message;
+            this.future = future;
+        }
+
+        private void complete() {
+            if (error == null) {
+                future.complete(message);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+}
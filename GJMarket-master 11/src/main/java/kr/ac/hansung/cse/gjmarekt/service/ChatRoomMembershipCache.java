@@ -0,0 +1,53 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatRoomMembersDTO;
+import kr.ac.hansung.cse.gjmarekt.repository.ChatRoomRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 채팅방 id -> 참여자 id 캐시
+// 채팅방의 판매자/구매자는 바뀌지 않고 채팅방도 삭제되지 않으므로 한번 읽으면 계속 보관한다.
+// 채팅 API와 웹소켓 인증에서 권한 확인할 때 DB를 읽지 않기 위해 사용한다.
+@Component
+public class ChatRoomMembershipCache {
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final Map<Integer, ChatRoomMembersDTO> members = new ConcurrentHashMap<>();
+
+    public ChatRoomMembershipCache(ChatRoomRepository chatRoomRepository, MeterRegistry meterRegistry) {
+        this.chatRoomRepository = chatRoomRepository;
+        meterRegistry.gauge("gjmarket.chat.membership.size", members, Map::size);
+    }
+
+    // 없는 채팅방이면 null
+    public ChatRoomMembersDTO get(Integer chatRoomId) {
+        ChatRoomMembersDTO cached = members.get(chatRoomId);
+        if (cached != null) {
+            return cached;
+        }
+        // 없는 채팅방은 나중에 만들어질 수 있으므로 저장하지 않는다
+        return chatRoomRepository.findMembersById(chatRoomId)
+                .map(found -> {
+                    ChatRoomMembersDTO previous = members.putIfAbsent(chatRoomId, found);
+                    return previous != null ? previous : found;
+                })
+                .orElse(null);
+    }
+
+    public boolean isMember(Integer userId, Integer chatRoomId) {
+        if (userId == null || chatRoomId == null) {
+            return false;
+        }
+        ChatRoomMembersDTO found = get(chatRoomId);
+        return found != null && found.contains(userId);
+    }
+
+    // 채팅방 생성시 호출, 트랜잭션 안이면 커밋된 뒤에 넣는다
+    public void put(Integer chatRoomId, int sellerId, int buyerId) {
+        ChatRoomMembersDTO created = new ChatRoomMembersDTO(sellerId, buyerId);
+        TransactionCallbacks.afterCommit(() -> members.putIfAbsent(chatRoomId, created));
+    }
+}
@@ -1,10 +1,14 @@
 package kr.ac.hansung.cse.gjmarekt.service;
 
 
+import kr.ac.hansung.cse.gjmarekt.dto.ChatInboxDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatRoomMembersDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatRoomSummaryDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.ChatMessage;
 import kr.ac.hansung.cse.gjmarekt.entity.ChatRoom;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
 import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.repository.ChatInboxRepository;
 import kr.ac.hansung.cse.gjmarekt.repository.ChatMessageRepository;
 import kr.ac.hansung.cse.gjmarekt.repository.ChatRoomRepository;
 import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
@@ -15,8 +19,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,12 +32,18 @@ public class ChatRoomService {
     private PostRepository postRepository;
     private final UserRepository userRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatInboxRepository chatInboxRepository;
+    private final ChatRoomMembershipCache chatRoomMembershipCache;
+    private final TrendingService trendingService;
 
-    public ChatRoomService(ChatRoomRepository chatRoomRepository, PostRepository postRepository, UserRepository userRepository, ChatMessageRepository chatMessageRepository) {
+    public ChatRoomService(ChatRoomRepository chatRoomRepository, PostRepository postRepository, UserRepository userRepository, ChatMessageRepository chatMessageRepository, ChatInboxRepository chatInboxRepository, ChatRoomMembershipCache chatRoomMembershipCache, TrendingService trendingService) {
         this.chatRoomRepository = chatRoomRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.chatInboxRepository = chatInboxRepository;
+        this.chatRoomMembershipCache = chatRoomMembershipCache;
+        this.trendingService = trendingService;
     }
 
     // 채팅방 만들기
@@ -64,8 +76,12 @@ public class ChatRoomService {
         chatRoom.setPostId(postId);
         chatRoom.setSeller(seller);
         chatRoom.setBuyer(buyer);
+        chatRoom.setLastActivityAt(LocalDateTime.now());
         System.out.println("asfasdfafsd buyid" + buyerId);
-        return chatRoomRepository.save(chatRoom);
+        ChatRoom savedChatRoom = chatRoomRepository.save(chatRoom);
+        chatRoomMembershipCache.put(savedChatRoom.getId(), sellerId, buyerId);
+        trendingService.recordChat(postId);
+        return savedChatRoom;
     }
 
     @Transactional
@@ -79,13 +95,64 @@ public class ChatRoomService {
         return chatRoomRepository.findChatRoomsByUserId(userId);
     }
 
-    // 특정 유저가 채팅방 내에 있는지 확인
-    public boolean isUserInChatRoom(Integer userId, Integer chatRoomId) {
-        Optional<ChatRoom> chatRoom = chatRoomRepository.findById(chatRoomId);
-        if (chatRoom.isPresent()) {
-            return chatRoom.get().getSeller().getId().equals(userId) || chatRoom.get().getBuyer().getId().equals(userId);
+    // 채팅 목록 (최근 활동순, 마지막 메시지와 안 읽은 메시지 수 포함)
+    public ChatInboxDTO getInbox(Integer userId, String cursor, int size) {
+        LocalDateTime beforeActivityAt = null;
+        Integer beforeId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('_');
+                beforeActivityAt = LocalDateTime.parse(raw.substring(0, separator));
+                beforeId = Integer.valueOf(raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+
+        // 하나 더 읽어서 다음 페이지가 있는지 확인한다
+        List<ChatRoomSummaryDTO> rooms = chatInboxRepository.findInbox(userId, beforeActivityAt, beforeId, size + 1);
+        String nextCursor = null;
+        if (rooms.size() > size) {
+            rooms = new ArrayList<>(rooms.subList(0, size));
+            // 커서는 "마지막 활동 시간_id"를 base64로 감싼 문자열
+            ChatRoomSummaryDTO last = rooms.get(size - 1);
+            String raw = last.getLastActivityAt() + "_" + last.getChatRoomId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ChatInboxDTO(rooms, nextCursor);
+    }
+
+    // 채팅방의 messageId까지 읽음으로 표시, 그 채팅방의 메시지가 아니면 false
+    public boolean markAsRead(Integer userId, Integer chatRoomId, Long messageId) {
+        if (!chatMessageRepository.existsByIdAndChatRoomId(messageId, chatRoomId)) {
+            return false;
+        }
+        markRecentAsRead(userId, chatRoomId, messageId);
+        return true;
+    }
+
+    // 채팅방을 열 때 조회한 최신 메시지(latestMessageId)까지 읽음으로 표시
+    // 이미 그 뒤까지 읽었으면(다시 열거나 새로고침한 경우) 쓰지 않는다
+    public void markRecentAsRead(Integer userId, Integer chatRoomId, Long latestMessageId) {
+        ChatRoomMembersDTO members = chatRoomMembershipCache.get(chatRoomId);
+        if (members == null) {
+            return;
+        }
+        Long lastReadId = chatRoomRepository.findLastReadId(chatRoomId, userId).orElse(null);
+        if (lastReadId != null && lastReadId >= latestMessageId) {
+            return;
+        }
+        if (members.getSellerId() == userId) {
+            chatRoomRepository.markReadBySeller(chatRoomId, userId, latestMessageId);
+        } else if (members.getBuyerId() == userId) {
+            chatRoomRepository.markReadByBuyer(chatRoomId, userId, latestMessageId);
         }
-        return false;
+    }
+
+    // 특정 유저가 채팅방 내에 있는지 확인 (캐시 사용)
+    public boolean isUserInChatRoom(Integer userId, Integer chatRoomId) {
+        return chatRoomMembershipCache.isMember(userId, chatRoomId);
     }
 
     // 게시물 조회시 특정 유저가 채팅방이 이미 있는지 확인 할 때 사용
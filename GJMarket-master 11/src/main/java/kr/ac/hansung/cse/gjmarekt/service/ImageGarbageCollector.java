@@ -0,0 +1,242 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 업로드 폴더에서 아무도 참조하지 않는 이미지 파일을 지운다.
+// post_images.image_url, users.profile_image_url에 없는 파일이 대상이며, 축소본은 원본을 따라간다.
+// 나눠진 폴더(ImageStorageLayout)와 예전 위치를 모두 보며, 폴더는 DirectoryStream으로 하나씩 읽고 batch 단위로 DB와 비교하므로 파일이 많아도 메모리를 적게 쓴다.
+// 업로드 중인(아직 커밋되지 않은) 파일을 지우지 않도록 수정된 지 grace 기간이 지난 파일만 본다.
+@Service
+public class ImageGarbageCollector {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String POST_IMAGES_SQL = "SELECT image_url FROM post_images WHERE image_url IN (%s)";
+    private static final String PROFILE_IMAGES_SQL = "SELECT profile_image_url FROM users WHERE profile_image_url IN (%s)";
+    private static final String BLOBS_SQL = "SELECT hash, ref_count FROM image_blobs WHERE hash IN (%s)";
+    // 그 사이 같은 내용이 다시 업로드되어 참조 수가 늘었으면 지우지 않는다
+    private static final String DELETE_BLOB_SQL = "DELETE FROM image_blobs WHERE hash = ? AND ref_count = 0";
+
+    private final ImageStorageLayout layout;
+    private final JdbcTemplate jdbcTemplate;
+
+    // 이 시간보다 최근에 수정된 파일은 건드리지 않는다
+    private final long graceMs;
+    // DB와 한번에 비교할 파일 수
+    private final int batchSize;
+
+    private final Counter deletedFiles;
+    private final Counter reclaimedBytes;
+    private final Timer runTimer;
+
+    public ImageGarbageCollector(ImageStorageLayout layout,
+                                 JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${gjmarket.image.gc.grace-ms:3600000}") long graceMs,
+                                 @Value("${gjmarket.image.gc.batch-size:500}") int batchSize) {
+        this.layout = layout;
+        this.jdbcTemplate = jdbcTemplate;
+        this.graceMs = graceMs;
+        this.batchSize = batchSize;
+        this.deletedFiles = meterRegistry.counter("gjmarket.image.gc.deleted.files");
+        this.reclaimedBytes = meterRegistry.counter("gjmarket.image.gc.reclaimed.bytes");
+        this.runTimer = meterRegistry.timer("gjmarket.image.gc.run");
+    }
+
+    @Scheduled(initialDelayString = "${gjmarket.image.gc.interval-ms:3600000}",
+            fixedDelayString = "${gjmarket.image.gc.interval-ms:3600000}")
+    public void run() {
+        try {
+            collect();
+        } catch (RuntimeException e) {
+            logger.error("image garbage collection failed", e);
+        }
+    }
+
+    // 한번 정리하고 지운 파일 수와 회수한 바이트 수를 반환한다
+    public Result collect() {
+        long start = System.currentTimeMillis();
+        long cutoff = start - graceMs;
+        Result result = new Result();
+        runTimer.record(() -> walk(layout.getRoot(), 0, cutoff, result));
+        logger.info("image gc scanned {} files, deleted {} files, reclaimed {} bytes in {} ms",
+                result.scanned, result.deleted, result.reclaimedBytes, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    // depth 0: 업로드 폴더, 1~2: 나눠진 폴더
+    private void walk(Path dir, int depth, long cutoff, Result result) {
+        List<Candidate> batch = new ArrayList<>(batchSize);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    String name = file.getFileName().toString();
+                    if (depth < 2 && ImageStorageLayout.isShard(name)) {
+                        walk(file, depth + 1, cutoff, result);
+                    } else if (depth == 0 && ImageStorageLayout.LEGACY_PROFILE_DIR.equals(name)) {
+                        walk(file, 2, cutoff, result);
+                    }
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                result.scanned++;
+                if (attributes.lastModifiedTime().toMillis() > cutoff) {
+                    continue;
+                }
+                batch.add(new Candidate(file, attributes.size()));
+                if (batch.size() >= batchSize) {
+                    collect(batch, cutoff, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                collect(batch, cutoff, result);
+            }
+        } catch (IOException e) {
+            logger.warn("image gc could not read {}", dir, e);
+        }
+    }
+
+    private void collect(List<Candidate> batch, long cutoff, Result result) {
+        Set<String> owners = new LinkedHashSet<>();
+        for (Candidate candidate : batch) {
+            owners.add(candidate.owner);
+        }
+        Set<String> referenced = referenced(owners);
+        Map<String, Integer> blobs = blobs(owners);
+
+        for (Candidate candidate : batch) {
+            if (referenced.contains(candidate.owner)) {
+                continue;
+            }
+            String hash = ImageStorageService.hashOf(candidate.owner);
+            // null이면 이번 batch에서 이미 행을 지웠다 (같은 원본의 축소본)
+            Integer refCount = hash == null ? null : blobs.get(hash);
+            if (refCount != null) {
+                // 참조 수가 남아 있으면 아직 커밋되지 않은 게시물이 쓰는 중일 수 있다
+                // (참조 수가 실제 참조와 어긋났으면 ImageRefCountReconciliationJob으로 다시 만든다)
+                if (refCount > 0 || jdbcTemplate.update(DELETE_BLOB_SQL, hash) == 0) {
+                    continue;
+                }
+                blobs.put(hash, null);
+            }
+            if (delete(candidate, cutoff)) {
+                result.deleted++;
+                result.reclaimedBytes += candidate.size;
+            }
+        }
+    }
+
+    private boolean delete(Candidate candidate, long cutoff) {
+        try {
+            // 비교하는 사이 같은 이름으로 새로 저장되었으면 지우지 않는다
+            if (Files.getLastModifiedTime(candidate.path).toMillis() > cutoff) {
+                return false;
+            }
+            if (Files.deleteIfExists(candidate.path)) {
+                deletedFiles.increment();
+                reclaimedBytes.increment(candidate.size);
+                return true;
+            }
+        } catch (NoSuchFileException e) {
+            // 다른 서버가 먼저 지웠다
+        } catch (IOException e) {
+            logger.warn("image gc could not delete {}", candidate.path, e);
+        }
+        return false;
+    }
+
+    private Set<String> referenced(Set<String> owners) {
+        String placeholders = placeholders(owners.size());
+        Object[] args = owners.toArray();
+        Set<String> referenced = new HashSet<>();
+        referenced.addAll(jdbcTemplate.queryForList(String.format(POST_IMAGES_SQL, placeholders), String.class, args));
+        referenced.addAll(jdbcTemplate.queryForList(String.format(PROFILE_IMAGES_SQL, placeholders), String.class, args));
+        return referenced;
+    }
+
+    // 해시 이름 파일의 image_blobs 참조 수
+    private Map<String, Integer> blobs(Set<String> owners) {
+        List<String> hashes = new ArrayList<>();
+        for (String owner : owners) {
+            String hash = ImageStorageService.hashOf(owner);
+            if (hash != null) {
+                hashes.add(hash);
+            }
+        }
+        Map<String, Integer> blobs = new HashMap<>();
+        if (hashes.isEmpty()) {
+            return blobs;
+        }
+        jdbcTemplate.query(String.format(BLOBS_SQL, placeholders(hashes.size())),
+                rs -> {
+                    blobs.put(rs.getString("hash"), rs.getInt("ref_count"));
+                },
+                hashes.toArray());
+        return blobs;
+    }
+
+    private String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static class Candidate {
+        private final Path path;
+        private final String owner;
+        private final long size;
+
+        private Candidate(Path path, long size) {
+            this.path = path;
+            this.owner = ImageStorageLayout.ownerOf(path.getFileName().toString());
+            this.size = size;
+        }
+    }
+
+    public static class Result {
+        private long scanned;
+        private long deleted;
+        private long reclaimedBytes;
+
+        public long getScanned() {
+            return scanned;
+        }
+
+        public long getDeleted() {
+            return deleted;
+        }
+
+        public long getReclaimedBytes() {
+            return reclaimedBytes;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// 업로드 폴더 바로 아래와 profile 폴더에 있는 예전 파일을 나눠진 폴더(ImageStorageLayout)로 옮긴다.
+// 서비스를 멈추지 않고 백그라운드 스레드에서 batch 단위로 옮기며, batch 사이에 쉬어서 디스크 부하를 줄인다.
+// 옮기는 중에도 ImageStorageLayout.locate가 두 위치를 모두 찾으므로 요청은 계속 처리된다.
+// 실행: --gjmarket.image.migrate-layout=true (끝나면 로그를 남기고 스레드가 종료된다)
+@Component
+@ConditionalOnProperty(name = "gjmarket.image.migrate-layout", havingValue = "true")
+public class ImageLayoutMigrationJob implements ApplicationRunner {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ImageStorageLayout layout;
+    private final int batchSize;
+    private final long pauseMs;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public ImageLayoutMigrationJob(ImageStorageLayout layout,
+                                   @Value("${gjmarket.image.migrate-layout.batch-size:1000}") int batchSize,
+                                   @Value("${gjmarket.image.migrate-layout.pause-ms:100}") long pauseMs) {
+        this.layout = layout;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.thread = new Thread(this::migrate, "image-layout-migration");
+        this.thread.setDaemon(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        thread.start();
+    }
+
+    private void migrate() {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        try {
+            // 폴더를 읽는 도중 파일이 빠져나가면 일부를 건너뛸 수 있어, 옮길 것이 없을 때까지 반복한다
+            long moved;
+            do {
+                moved = progress.moved;
+                migrate(layout.getRoot(), progress);
+                Path profile = layout.getRoot().resolve(ImageStorageLayout.LEGACY_PROFILE_DIR);
+                if (Files.isDirectory(profile)) {
+                    migrate(profile, progress);
+                }
+            } while (running && progress.moved > moved);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.error("image layout migration failed after {} files", progress.moved, e);
+            return;
+        }
+        logger.info("image layout migration {}: moved {} files, skipped {} in {} ms",
+                running ? "finished" : "stopped", progress.moved, progress.skipped, System.currentTimeMillis() - start);
+    }
+
+    private void migrate(Path dir, Progress progress) throws IOException, InterruptedException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+            for (Path file : stream) {
+                if (!running) {
+                    return;
+                }
+                String name = file.getFileName().toString();
+                // 저장 중인 임시 파일은 그 자리에서 옮겨지거나 지워진다
+                if (name.endsWith(".upload") || name.endsWith(".tmp")) {
+                    continue;
+                }
+                if (move(file, layout.prepare(name))) {
+                    progress.moved++;
+                    if (progress.moved % batchSize == 0) {
+                        logger.info("image layout migration moved {} files", progress.moved);
+                        Thread.sleep(pauseMs);
+                    }
+                } else {
+                    progress.skipped++;
+                }
+            }
+        }
+    }
+
+    private boolean move(Path source, Path target) throws IOException {
+        try {
+            if (Files.exists(target)) {
+                // 같은 파일이 이미 옮겨져 있으면 (해시 이름은 내용이 같다) 남은 쪽을 지운다
+                if (Files.size(target) == Files.size(source)) {
+                    Files.delete(source);
+                    return true;
+                }
+                logger.warn("image layout migration skipped {}, {} already exists", source, target);
+                return false;
+            }
+            // 같은 파일 시스템 안의 rename이라 읽는 쪽에는 어느 한 위치에 항상 파일이 있다
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (NoSuchFileException e) {
+            // GC 등이 먼저 지웠다
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        thread.join(5000);
+    }
+
+    private static class Progress {
+        private long moved;
+        private long skipped;
+    }
+}
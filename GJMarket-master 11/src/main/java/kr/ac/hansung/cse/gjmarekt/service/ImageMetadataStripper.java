@@ -0,0 +1,260 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// 업로드된 원본을 저장하기 전에 위치(GPS), 촬영 기기, 설명 등의 메타데이터를 지운다.
+// 원본은 /images/{filename}, /images/profile/{filename}으로 그대로 제공되므로 축소본만 다시 인코딩해서는 부족하다.
+// 픽셀 데이터는 그대로 복사하고(무손실) 메타데이터 블록만 빼며, 회전 정보(Orientation)는 그 값 하나만 남긴다.
+// jpeg, png만 처리하고 나머지 형식은 그대로 저장한다.
+final class ImageMetadataStripper {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+    private static final byte[] ICC_PROFILE = "ICC_PROFILE\0".getBytes(StandardCharsets.US_ASCII);
+
+    private ImageMetadataStripper() {
+    }
+
+    // in을 out으로 복사하면서 extension에 맞는 형식이면 메타데이터를 뺀다
+    static void copy(InputStream in, OutputStream out, String extension) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        BufferedOutputStream target = new BufferedOutputStream(out);
+        try {
+            switch (extension) {
+                case "jpg":
+                case "jpeg":
+                    copyJpeg(buffered, target);
+                    break;
+                case "png":
+                    copyPng(buffered, target);
+                    break;
+                default:
+                    buffered.transferTo(target);
+            }
+        } catch (EOFException e) {
+            // 잘린 파일은 읽은 데까지 저장한다 (원본을 그대로 저장했을 때와 같다)
+        }
+        target.flush();
+    }
+
+    // SOI부터 EOI까지 세그먼트 단위로 복사한다
+    // APP0(JFIF), APP2(ICC 색 프로필), APP14(Adobe 색 변환), 표/프레임/스캔 세그먼트와 압축 데이터는 남기고
+    // 나머지 APPn(Exif, XMP, IPTC, MPF 미리보기 등)과 COM, EOI 뒤에 붙은 데이터는 뺀다
+    private static void copyJpeg(BufferedInputStream in, OutputStream out) throws IOException {
+        in.mark(2);
+        if (in.read() != 0xFF || in.read() != 0xD8) {
+            in.reset();
+            in.transferTo(out);
+            return;
+        }
+        out.write(0xFF);
+        out.write(0xD8);
+        DataInputStream data = new DataInputStream(in);
+        boolean orientationWritten = false;
+        // 압축 데이터를 복사하다 만난 다음 마커, 없으면 -1
+        int pending = -1;
+        while (true) {
+            int marker = pending >= 0 ? pending : nextMarker(data);
+            pending = -1;
+            if (marker == 0xD9) {
+                out.write(0xFF);
+                out.write(0xD9);
+                return;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                // 길이가 없는 마커
+                out.write(0xFF);
+                out.write(marker);
+                continue;
+            }
+            int length = data.readUnsignedShort();
+            if (length < 2) {
+                throw new IOException("Invalid jpeg segment length");
+            }
+            byte[] segment = new byte[length - 2];
+            data.readFully(segment);
+
+            if (marker == 0xE1 && startsWith(segment, EXIF_HEADER)) {
+                int orientation = ImageProcessingService.parseOrientation(segment);
+                if (!orientationWritten && orientation > 1) {
+                    byte[] exif = orientationExif(orientation);
+                    writeSegment(out, 0xE1, exif);
+                    orientationWritten = true;
+                }
+                continue;
+            }
+            if (!keepJpegSegment(marker, segment)) {
+                continue;
+            }
+            writeSegment(out, marker, segment);
+            if (marker == 0xDA) {
+                pending = copyScan(data, out);
+            }
+        }
+    }
+
+    private static boolean keepJpegSegment(int marker, byte[] segment) {
+        if (marker == 0xE2) {
+            return startsWith(segment, ICC_PROFILE);
+        }
+        if (marker >= 0xE0 && marker <= 0xEF) {
+            return marker == 0xE0 || marker == 0xEE;
+        }
+        return marker != 0xFE;
+    }
+
+    // 스캔 뒤의 압축 데이터를 다음 마커 직전까지 복사하고 그 마커를 반환한다 (0xFF00과 RSTn은 데이터의 일부)
+    private static int copyScan(DataInputStream in, OutputStream out) throws IOException {
+        while (true) {
+            int b = in.readUnsignedByte();
+            if (b != 0xFF) {
+                out.write(b);
+                continue;
+            }
+            int next = in.readUnsignedByte();
+            while (next == 0xFF) {
+                next = in.readUnsignedByte();
+            }
+            if (next == 0x00 || (next >= 0xD0 && next <= 0xD7)) {
+                out.write(0xFF);
+                out.write(next);
+                continue;
+            }
+            return next;
+        }
+    }
+
+    private static int nextMarker(DataInputStream in) throws IOException {
+        if (in.readUnsignedByte() != 0xFF) {
+            throw new IOException("Invalid jpeg marker");
+        }
+        // 마커 앞의 0xFF 채움 바이트는 건너뛴다
+        int marker;
+        do {
+            marker = in.readUnsignedByte();
+        } while (marker == 0xFF);
+        return marker;
+    }
+
+    private static void writeSegment(OutputStream out, int marker, byte[] segment) throws IOException {
+        out.write(0xFF);
+        out.write(marker);
+        int length = segment.length + 2;
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.write(segment);
+    }
+
+    // Orientation 항목 하나만 있는 Exif (big-endian TIFF)
+    private static byte[] orientationExif(int orientation) {
+        byte[] tiff = orientationTiff(orientation);
+        byte[] exif = Arrays.copyOf(EXIF_HEADER, EXIF_HEADER.length + tiff.length);
+        System.arraycopy(tiff, 0, exif, EXIF_HEADER.length, tiff.length);
+        return exif;
+    }
+
+    private static byte[] orientationTiff(int orientation) {
+        return new byte[]{
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                // IFD0: 항목 1개 (Orientation, SHORT, 1개, 값), 다음 IFD 없음
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+    }
+
+    // 청크 단위로 복사하며 eXIf와 텍스트 청크(tEXt, zTXt, iTXt), tIME을 뺀다
+    private static void copyPng(BufferedInputStream in, OutputStream out) throws IOException {
+        in.mark(PNG_SIGNATURE.length);
+        byte[] signature = in.readNBytes(PNG_SIGNATURE.length);
+        if (!Arrays.equals(signature, PNG_SIGNATURE)) {
+            in.reset();
+            in.transferTo(out);
+            return;
+        }
+        out.write(signature);
+        DataInputStream data = new DataInputStream(in);
+        while (true) {
+            int length = data.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid png chunk length");
+            }
+            byte[] typeBytes = new byte[4];
+            data.readFully(typeBytes);
+            String type = new String(typeBytes, StandardCharsets.US_ASCII);
+            switch (type) {
+                case "eXIf": {
+                    byte[] tiff = new byte[length];
+                    data.readFully(tiff);
+                    data.skipNBytes(4);
+                    byte[] exif = Arrays.copyOf(EXIF_HEADER, EXIF_HEADER.length + tiff.length);
+                    System.arraycopy(tiff, 0, exif, EXIF_HEADER.length, tiff.length);
+                    int orientation = ImageProcessingService.parseOrientation(exif);
+                    if (orientation > 1) {
+                        writePngChunk(out, typeBytes, orientationTiff(orientation));
+                    }
+                    continue;
+                }
+                case "tEXt":
+                case "zTXt":
+                case "iTXt":
+                case "tIME":
+                    data.skipNBytes(length + 4L);
+                    continue;
+                default:
+                    out.write(length >>> 24);
+                    out.write(length >>> 16);
+                    out.write(length >>> 8);
+                    out.write(length);
+                    out.write(typeBytes);
+                    copyBytes(data, out, length + 4L);
+            }
+            if ("IEND".equals(type)) {
+                return;
+            }
+        }
+    }
+
+    private static void writePngChunk(OutputStream out, byte[] type, byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(body);
+        int length = body.length;
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(type);
+        out.write(body);
+        long value = crc.getValue();
+        out.write((int) (value >>> 24));
+        out.write((int) (value >>> 16));
+        out.write((int) (value >>> 8));
+        out.write((int) value);
+    }
+
+    private static void copyBytes(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (count > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+            if (read < 0) {
+                throw new EOFException();
+            }
+            out.write(buffer, 0, read);
+            count -= read;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        return bytes.length >= prefix.length && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+    }
+}
@@ -0,0 +1,305 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import kr.ac.hansung.cse.gjmarekt.repository.ImageBlobRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.PostImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// 업로드된 게시물 이미지의 축소본(썸네일)을 백그라운드에서 만든다.
+// 요청 스레드는 원본만 저장하고, 디코딩/리사이즈는 제한된 작업 스레드에서 처리한다.
+// 다시 인코딩하면서 EXIF 등 메타데이터는 자연스럽게 제거되므로, EXIF 회전 정보(Orientation)는 픽셀에 먼저 적용한다.
+// 원본의 메타데이터는 저장할 때 ImageMetadataStripper가 지운다 (Orientation만 남는다).
+@Service
+public class ImageProcessingService {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // 만들어 둘 축소본 가로 크기 (작은 순서)
+    public static final int[] VARIANT_WIDTHS = {200, 640, 1280};
+
+    // EXIF Orientation 태그, 1이면 회전 없음
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final ImageStorageLayout layout;
+    private final PostImageRepository postImageRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final ThreadPoolExecutor executor;
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public ImageProcessingService(ImageStorageLayout layout,
+                                  PostImageRepository postImageRepository,
+                                  ImageBlobRepository imageBlobRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${gjmarket.image.workers:2}") int workers,
+                                  @Value("${gjmarket.image.queue-capacity:200}") int queueCapacity) {
+        this.layout = layout;
+        this.postImageRepository = postImageRepository;
+        this.imageBlobRepository = imageBlobRepository;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.processed = meterRegistry.counter("gjmarket.image.processed");
+        this.failed = meterRegistry.counter("gjmarket.image.failed");
+        this.rejected = meterRegistry.counter("gjmarket.image.rejected");
+        meterRegistry.gauge("gjmarket.image.queue.depth", executor, e -> e.getQueue().size());
+    }
+
+    // 축소본 파일 이름: {hash}_w{width}.{확장자}
+    public static String variantFilename(String filename, int width) {
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0) {
+            return filename + "_w" + width;
+        }
+        return filename.substring(0, dot) + "_w" + width + filename.substring(dot);
+    }
+
+    // 원본 저장 후 호출, 트랜잭션 안이면 커밋된 뒤에 작업을 넣는다
+    public void enqueue(String filename) {
+        TransactionCallbacks.afterCommit(() -> submit(filename));
+    }
+
+    private void submit(String filename) {
+        try {
+            executor.execute(() -> process(filename));
+        } catch (RejectedExecutionException e) {
+            // 큐가 가득 차면 축소본 없이 원본만 제공한다
+            rejected.increment();
+            logger.warn("image queue full, skipped variants for {}", filename);
+        }
+    }
+
+    private void process(String filename) {
+        try {
+            Path original = layout.locate(filename);
+            String format = formatOf(filename);
+            BufferedImage source = ImageIO.read(original.toFile());
+            if (source == null || format == null) {
+                // ImageIO가 읽거나 쓸 수 없는 형식 (heic, webp 등)
+                return;
+            }
+            // 휴대폰 사진은 센서 방향 그대로 저장하고 EXIF로 회전을 표시하므로, 축소본에는 미리 돌려서 저장한다
+            if ("jpg".equals(format)) {
+                source = applyOrientation(source, readOrientation(original), format);
+            }
+
+            List<Integer> ready = new ArrayList<>();
+            for (int width : VARIANT_WIDTHS) {
+                // 원본보다 큰 축소본은 만들지 않는다
+                if (width >= source.getWidth()) {
+                    break;
+                }
+                // 축소본은 원본과 같은 폴더에 둔다
+                writeVariant(source, width, format, layout.prepare(variantFilename(filename, width)));
+                ready.add(width);
+            }
+
+            if (!ready.isEmpty()) {
+                String variants = ready.stream().map(String::valueOf).collect(Collectors.joining(","));
+                postImageRepository.updateVariants(filename, variants);
+                // 나중에 같은 내용이 다시 업로드되면 이 값을 그대로 쓴다
+                String hash = ImageStorageService.hashOf(filename);
+                if (hash != null) {
+                    imageBlobRepository.updateVariants(hash, variants);
+                }
+            }
+            processed.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            logger.warn("image processing failed for {}", filename, e);
+        }
+    }
+
+    private void writeVariant(BufferedImage source, int width, String format, Path target) throws IOException {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        // jpeg는 알파 채널을 쓸 수 없으므로 RGB로 그린다
+        int type = "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage resized = new BufferedImage(width, height, type);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        // 임시 파일에 쓴 뒤 옮겨서, 파일이 보이면 항상 완성된 상태가 되도록 한다
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (!ImageIO.write(resized, format, temp.toFile())) {
+            Files.deleteIfExists(temp);
+            throw new IOException("No image writer for " + format);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // jpeg의 APP1(Exif) 세그먼트에서 IFD0의 Orientation 값을 읽는다, 없거나 읽을 수 없으면 1
+    static int readOrientation(Path jpeg) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(jpeg)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                // SOS 이후는 이미지 데이터이고, EXIF는 그 앞에만 있다
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return 1;
+                }
+                if (marker != 0xFFE1) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                int orientation = parseOrientation(segment);
+                if (orientation != 0) {
+                    return orientation;
+                }
+            }
+        } catch (IOException e) {
+            // 잘린 파일 등
+            return 1;
+        }
+    }
+
+    // "Exif\0\0" 다음에 TIFF 헤더(바이트 순서, 42, IFD0 위치)가 온다, 찾지 못하면 0
+    static int parseOrientation(byte[] segment) {
+        int tiff = 6;
+        if (segment.length < tiff + 8 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i'
+                || segment[3] != 'f' || segment[4] != 0 || segment[5] != 0) {
+            return 0;
+        }
+        boolean littleEndian = segment[tiff] == 'I' && segment[tiff + 1] == 'I';
+        if (!littleEndian && !(segment[tiff] == 'M' && segment[tiff + 1] == 'M')) {
+            return 0;
+        }
+        long ifd = tiff + readUnsigned(segment, tiff + 4, 4, littleEndian);
+        if (ifd + 2 > segment.length) {
+            return 0;
+        }
+        int entries = (int) readUnsigned(segment, (int) ifd, 2, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > segment.length) {
+                return 0;
+            }
+            if (readUnsigned(segment, entry, 2, littleEndian) == ORIENTATION_TAG) {
+                // 타입 SHORT, 값은 항목 안에 바로 들어 있다
+                int orientation = (int) readUnsigned(segment, entry + 8, 2, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static long readUnsigned(byte[] bytes, int offset, int size, boolean littleEndian) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            int b = bytes[offset + (littleEndian ? size - 1 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    // Orientation 값(2~8)대로 뒤집거나 돌린 이미지를 만든다
+    static BufferedImage applyOrientation(BufferedImage source, int orientation, String format) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2: // 좌우 반전
+                transform = new AffineTransform(-1, 0, 0, 1, w, 0);
+                break;
+            case 3: // 180도
+                transform = new AffineTransform(-1, 0, 0, -1, w, h);
+                break;
+            case 4: // 상하 반전
+                transform = new AffineTransform(1, 0, 0, -1, 0, h);
+                break;
+            case 5: // 좌상-우하 대각선 기준 반전
+                transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6: // 시계 방향 90도
+                transform = new AffineTransform(0, 1, -1, 0, h, 0);
+                break;
+            case 7: // 우상-좌하 대각선 기준 반전
+                transform = new AffineTransform(0, -1, -1, 0, h, w);
+                break;
+            case 8: // 반시계 방향 90도
+                transform = new AffineTransform(0, -1, 1, 0, 0, w);
+                break;
+            default:
+                return source;
+        }
+        boolean swap = orientation >= 5;
+        int type = "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    private String formatOf(String filename) {
+        String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        switch (extension) {
+            case "jpg":
+            case "jpeg":
+                return "jpg";
+            case "png":
+                return "png";
+            case "bmp":
+                return "bmp";
+            default:
+                return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("image workers did not finish, {} tasks dropped", executor.shutdownNow().size());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import kr.ac.hansung.cse.gjmarekt.repository.ImageBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// 이미지 참조 수(image_blobs.ref_count)를 post_images, users에 남아 있는 참조로부터 다시 만든다.
+// 참조 수가 실제보다 크면 ImageGarbageCollector가 그 파일을 지우지 않으므로, 어긋났을 때 한번만 실행한다.
+// 업로드 중인(아직 커밋되지 않은) 참조는 세지 않으므로 업로드가 없을 때 실행한다.
+// 실행: --gjmarket.image.reconcile=true
+@Component
+@ConditionalOnProperty(name = "gjmarket.image.reconcile", havingValue = "true")
+public class ImageRefCountReconciliationJob implements ApplicationRunner {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ImageBlobRepository imageBlobRepository;
+
+    public ImageRefCountReconciliationJob(ImageBlobRepository imageBlobRepository) {
+        this.imageBlobRepository = imageBlobRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        int updated = imageBlobRepository.rebuildRefCounts();
+        logger.info("image ref counts rebuilt for {} blobs in {} ms", updated, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,98 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 업로드 폴더 안에서 이미지 파일의 위치를 정한다.
+// 한 폴더에 파일이 수백만 개 쌓이지 않도록 {ab}/{cd}/{파일 이름} 두 단계 폴더로 나눈다.
+// 해시 이름은 이름 앞 4글자를, 예전 UUID 이름은 이름의 SHA-256 앞 4글자를 쓰고, 축소본은 원본과 같은 폴더에 둔다.
+// 아직 옮기지 않은 예전 파일(업로드 폴더 바로 아래, profile 폴더)도 그대로 찾는다. (ImageLayoutMigrationJob)
+@Component
+public class ImageStorageLayout {
+
+    // 예전 프로필 사진 폴더
+    public static final String LEGACY_PROFILE_DIR = "profile";
+
+    // 축소본 파일 이름: {원본 이름}_w{width}.{확장자}
+    private static final Pattern VARIANT = Pattern.compile("(.+)_w\\d+(\\.[^.]*)?");
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+
+    private final Path root;
+
+    public ImageStorageLayout(@Value("${file.upload.path}") String fileUploadPath) {
+        this.root = Paths.get(fileUploadPath);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // 새 파일을 저장할 위치
+    public Path resolve(String filename) {
+        String shard = shardOf(ownerOf(filename));
+        return root.resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4)).resolve(filename);
+    }
+
+    // 저장할 위치의 폴더를 만들고 경로를 반환한다
+    public Path prepare(String filename) throws IOException {
+        Path path = resolve(filename);
+        Files.createDirectories(path.getParent());
+        return path;
+    }
+
+    // 읽을 파일의 위치, 나눠진 폴더에 없으면 예전 위치를 찾는다 (어디에도 없으면 resolve와 같다)
+    public Path locate(String filename) {
+        Path sharded = resolve(filename);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = root.resolve(filename);
+        if (Files.exists(flat)) {
+            return flat;
+        }
+        Path profile = root.resolve(LEGACY_PROFILE_DIR).resolve(filename);
+        if (Files.exists(profile)) {
+            return profile;
+        }
+        // 확인하는 사이 마이그레이션으로 옮겨졌을 수 있다
+        return sharded;
+    }
+
+    // 업로드 폴더 안의 나눠진 폴더 이름인지 (두 자리 16진수)
+    public static boolean isShard(String name) {
+        return SHARD.matcher(name).matches();
+    }
+
+    // 축소본이면 원본 파일 이름을, 아니면 자기 이름을 반환한다
+    public static String ownerOf(String filename) {
+        Matcher matcher = VARIANT.matcher(filename);
+        if (matcher.matches()) {
+            return matcher.group(1) + (matcher.group(2) == null ? "" : matcher.group(2));
+        }
+        return filename;
+    }
+
+    private String shardOf(String owner) {
+        String hash = ImageStorageService.hashOf(owner);
+        if (hash != null) {
+            return hash;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(owner.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.entity.ImageBlob;
+import kr.ac.hansung.cse.gjmarekt.repository.ImageBlobRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+
+// 업로드된 이미지를 내용의 SHA-256 이름으로 저장한다 (content-addressed).
+// 해시는 업로드를 임시 파일로 복사하면서 함께 계산하므로 파일을 두번 읽지 않는다.
+// 복사하면서 jpeg/png의 메타데이터(EXIF의 GPS 등)를 빼므로, 제공되는 원본에도 남지 않는다.
+// 같은 내용이 이미 있으면 새 파일을 만들지 않고 참조 수만 늘린다.
+// 파일 이름이 내용으로 정해지므로 한번 나간 URL의 내용은 바뀌지 않는다 (영구 캐시 가능).
+@Service
+public class ImageStorageService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO image_blobs (hash, extension, size, ref_count, created_at) VALUES (?, ?, ?, 1, ?)";
+
+    private static final int HASH_LENGTH = 64;
+
+    private final ImageStorageLayout layout;
+    private final ImageBlobRepository imageBlobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageProcessingService imageProcessingService;
+    private final Counter stored;
+    private final Counter deduplicated;
+
+    public ImageStorageService(ImageStorageLayout layout,
+                               ImageBlobRepository imageBlobRepository,
+                               JdbcTemplate jdbcTemplate,
+                               ImageProcessingService imageProcessingService,
+                               MeterRegistry meterRegistry) {
+        this.layout = layout;
+        this.imageBlobRepository = imageBlobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageProcessingService = imageProcessingService;
+        this.stored = meterRegistry.counter("gjmarket.image.blob.stored");
+        this.deduplicated = meterRegistry.counter("gjmarket.image.blob.deduplicated");
+    }
+
+    // 업로드를 저장하고 참조 수를 1 늘린다. 트랜잭션 안에서 호출하면 롤백시 참조 수도 되돌아간다.
+    public ImageBlob store(MultipartFile file) {
+        // 임시 파일은 업로드 폴더 바로 아래에 만든다 (같은 파일 시스템이라 옮기기만 하면 된다)
+        Path temp = layout.getRoot().resolve(UUID.randomUUID() + ".upload");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size;
+            String extension = extensionOf(file.getOriginalFilename());
+            // 위치 정보 등 메타데이터를 뺀 내용을 저장하고 해시한다 (같은 사진이면 메타데이터가 달라도 한번만 저장된다)
+            try (InputStream in = file.getInputStream();
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                ImageMetadataStripper.copy(in, out, extension);
+            }
+            size = Files.size(temp);
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            while (true) {
+                // 이미 있는 내용이면 참조만 늘린다
+                if (imageBlobRepository.increment(hash) > 0) {
+                    ImageBlob blob = imageBlobRepository.findById(hash)
+                            .orElseThrow(() -> new IllegalStateException("Image blob disappeared: " + hash));
+                    if (Files.exists(layout.locate(blob.getFilename()))) {
+                        Files.delete(temp);
+                    } else {
+                        // 행은 있는데 파일이 없으면 (정리 도중 등) 방금 받은 내용으로 되살린다
+                        Files.move(temp, layout.prepare(blob.getFilename()),
+                                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    deduplicated.increment();
+                    return blob;
+                }
+
+                ImageBlob blob = new ImageBlob();
+                blob.setHash(hash);
+                blob.setExtension(extension);
+                blob.setSize(size);
+                blob.setRefCount(1);
+                blob.setCreatedAt(LocalDateTime.now());
+                // 행보다 파일을 먼저 만들어, 행이 보이면 파일도 있도록 한다
+                Files.move(temp, layout.prepare(blob.getFilename()),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                try {
+                    jdbcTemplate.update(INSERT_SQL, hash, blob.getExtension(), size,
+                            Timestamp.valueOf(blob.getCreatedAt()));
+                } catch (DuplicateKeyException e) {
+                    // 같은 내용이 동시에 업로드되었다, 파일은 같으므로 참조만 늘리도록 다시 시도한다
+                    Files.copy(layout.resolve(blob.getFilename()), temp);
+                    continue;
+                }
+                stored.increment();
+                // 축소본은 새로 저장된 내용에 대해서만 만든다
+                imageProcessingService.enqueue(blob.getFilename());
+                return blob;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("이미지 저장에 실패했습니다.", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // 이미지를 더 이상 참조하지 않을 때 호출, 참조가 없는 파일은 ImageGarbageCollector가 나중에 지운다
+    public void release(String filename) {
+        String hash = hashOf(filename);
+        if (hash != null) {
+            imageBlobRepository.decrement(hash);
+        }
+    }
+
+    // 해시 이름으로 저장된 파일이면 해시를, 예전 UUID 이름이면 null을 반환한다
+    public static String hashOf(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        int dot = filename.indexOf('.');
+        String name = dot < 0 ? filename : filename.substring(0, dot);
+        if (name.length() != HASH_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.digit(name.charAt(i), 16) < 0 || Character.isUpperCase(name.charAt(i))) {
+                return null;
+            }
+        }
+        return name;
+    }
+
+    private String extensionOf(String originalFilename) {
+        if (originalFilename == null || originalFilename.lastIndexOf('.') < 0) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        // 파일 이름에 그대로 쓰이므로 영문/숫자만 허용한다
+        if (extension.length() > 16 || !extension.chars().allMatch(c -> (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+            return "";
+        }
+        return extension;
+    }
+}
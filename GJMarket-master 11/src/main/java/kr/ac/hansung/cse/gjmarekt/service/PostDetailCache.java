@@ -0,0 +1,200 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 게시물 상세 응답(JSON)을 postId별로 메모리에 보관한다.
+// 같은 게시물을 동시에 처음 열면 DB 조회와 직렬화는 한번만 하고 나머지는 그 결과를 기다린다.
+// 게시물 수정/삭제, 찜 수 변경, 판매자 정보 변경시 지우며, 다른 서버에서 바뀐 내용은 ttl 안에 반영된다.
+// 조회수는 ViewCountService가 따로 세므로 캐시된 응답의 viewCount는 ttl만큼 늦을 수 있다.
+// 전체 크기가 한도를 넘으면 가장 오래 사용하지 않은 게시물부터 버린다.
+@Component
+public class PostDetailCache {
+
+    // 항목 하나의 대략적인 메모리 크기 (JSON 제외)
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final PostRepository postRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxBytes;
+    private final long ttlMs;
+
+    // 접근 순서로 정렬된 LRU, entries의 lock으로 보호
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong totalBytes = new AtomicLong();
+    // 조회 중인 게시물, 무효화되면 여기서 빠지고 그 조회 결과는 캐시에 넣지 않는다
+    private final Map<Integer, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter evictions;
+    private final Timer loadTimer;
+
+    public PostDetailCache(PostRepository postRepository,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${gjmarket.post.cache.max-bytes:33554432}") long maxBytes,
+                           @Value("${gjmarket.post.cache.ttl-ms:60000}") long ttlMs) {
+        this.postRepository = postRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+
+        this.hits = meterRegistry.counter("gjmarket.post.cache.hits");
+        this.misses = meterRegistry.counter("gjmarket.post.cache.misses");
+        this.coalesced = meterRegistry.counter("gjmarket.post.cache.coalesced");
+        this.evictions = meterRegistry.counter("gjmarket.post.cache.evictions");
+        this.loadTimer = meterRegistry.timer("gjmarket.post.cache.load");
+        meterRegistry.gauge("gjmarket.post.cache.bytes", totalBytes);
+        meterRegistry.gauge("gjmarket.post.cache.entries", entries, e -> {
+            synchronized (e) {
+                return e.size();
+            }
+        });
+    }
+
+    // 게시물 상세 JSON, 없는 게시물이면 RuntimeException
+    public byte[] get(Integer postId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(postId);
+        }
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            return entry.json;
+        }
+        misses.increment();
+
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> running = loading.putIfAbsent(postId, future);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join().json;
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            Entry loaded = loadTimer.record(() -> load(postId));
+            synchronized (entries) {
+                // 조회하는 사이 무효화되지 않았을 때만 넣는다
+                if (loading.remove(postId, future)) {
+                    put(postId, loaded);
+                }
+            }
+            future.complete(loaded);
+            return loaded.json;
+        } catch (RuntimeException e) {
+            loading.remove(postId, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // 게시물이 바뀌었을 때 호출, 트랜잭션 안이면 커밋된 뒤에 한번 더 지운다
+    // (커밋 전에 다른 요청이 예전 내용을 다시 넣었을 수 있다)
+    public void evict(Integer postId) {
+        evictNow(postId);
+        TransactionCallbacks.afterCommit(() -> evictNow(postId));
+    }
+
+    // 판매자 정보(닉네임, 프로필 사진, 별점)가 바뀌었을 때 호출
+    public void evictSeller(Integer userId) {
+        evictSellerNow(userId);
+        TransactionCallbacks.afterCommit(() -> evictSellerNow(userId));
+    }
+
+    private void evictNow(Integer postId) {
+        synchronized (entries) {
+            loading.remove(postId);
+            Entry removed = entries.remove(postId);
+            if (removed != null) {
+                totalBytes.addAndGet(-removed.bytes);
+            }
+        }
+    }
+
+    private void evictSellerNow(Integer userId) {
+        synchronized (entries) {
+            // 조회 중인 게시물은 판매자를 아직 모르므로 모두 캐시에 넣지 않는다
+            loading.clear();
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (userId.equals(entry.sellerId)) {
+                    iterator.remove();
+                    totalBytes.addAndGet(-entry.bytes);
+                }
+            }
+        }
+    }
+
+    private Entry load(Integer postId) {
+        // images는 지연 로딩이므로 트랜잭션 안에서 직렬화한다
+        return transactionTemplate.execute(status -> {
+            Post post = postRepository.findById(postId)
+                    .orElseThrow(() -> new RuntimeException("Post not found"));
+            try {
+                return new Entry(objectMapper.writeValueAsBytes(post), post.getUser().getId(),
+                        System.currentTimeMillis() + ttlMs);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Post " + postId + " could not be serialized", e);
+            }
+        });
+    }
+
+    // entries의 lock을 잡고 호출
+    private void put(Integer postId, Entry entry) {
+        // 한도보다 큰 게시물은 넣지 않는다
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(postId, entry);
+        long total = totalBytes.addAndGet(entry.bytes - (previous == null ? 0 : previous.bytes));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (total > maxBytes && iterator.hasNext()) {
+            Entry evicted = iterator.next();
+            iterator.remove();
+            total = totalBytes.addAndGet(-evicted.bytes);
+            evictions.increment();
+        }
+    }
+
+    private static class Entry {
+        private final byte[] json;
+        private final Integer sellerId;
+        private final long expiresAt;
+        private final long bytes;
+
+        private Entry(byte[] json, Integer sellerId, long expiresAt) {
+            this.json = json;
+            this.sellerId = sellerId;
+            this.expiresAt = expiresAt;
+            this.bytes = ENTRY_OVERHEAD_BYTES + json.length;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import kr.ac.hansung.cse.gjmarekt.dto.PostSearchResultDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
+import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import kr.ac.hansung.cse.gjmarekt.search.PostSearchIndex;
+import kr.ac.hansung.cse.gjmarekt.search.SearchDocument;
+import kr.ac.hansung.cse.gjmarekt.search.SearchFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 게시물 검색
+// 검색은 메모리 색인(PostSearchIndex)에서만 수행하고, DB는 결과 id의 목록 정보를 읽을 때만 사용한다.
+// 색인은 서버마다 따로 있으므로, 다른 서버에서 작성/수정된 게시물은 updated_at을 기준으로 주기적으로 따라잡고
+// 삭제된 게시물은 그보다 긴 주기로 DB와 id를 비교해 뺀다. 다른 서버의 변경은 그 주기만큼 늦게 검색된다.
+@Service
+public class PostSearchService {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // 시작시 색인을 만들 때 한번에 읽을 게시물 수
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final PostSearchIndex postSearchIndex;
+    private final PostRepository postRepository;
+
+    // 따라잡을 때 마지막 확인 시점보다 이만큼 앞부터 다시 읽는다
+    // (updated_at은 커밋 전에 정해지므로 늦게 커밋된 수정과 서버 간 시계 차이를 놓치지 않도록)
+    private final long catchUpLookbackMs;
+
+    // 이 시점까지 수정된 게시물은 색인에 반영되었다, 시작시 색인을 만들기 전에는 null
+    private volatile LocalDateTime caughtUpAt;
+
+    public PostSearchService(PostSearchIndex postSearchIndex, PostRepository postRepository,
+                             @Value("${gjmarket.search.catch-up-lookback-ms:60000}") long catchUpLookbackMs) {
+        this.postSearchIndex = postSearchIndex;
+        this.postRepository = postRepository;
+        this.catchUpLookbackMs = catchUpLookbackMs;
+    }
+
+    // 서버 시작시 전체 게시물로 색인을 만든다
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime start = LocalDateTime.now();
+        int after = 0;
+        List<SearchDocument> batch;
+        do {
+            batch = postRepository.findSearchDocumentsAfter(after, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (SearchDocument document : batch) {
+                postSearchIndex.index(document);
+                after = document.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        caughtUpAt = start;
+        logger.info("post search index built: {} posts", postSearchIndex.size());
+    }
+
+    // 다른 서버에서 작성/수정된 게시물을 색인에 반영한다
+    @Scheduled(fixedDelayString = "${gjmarket.search.catch-up-interval-ms:10000}")
+    public void catchUp() {
+        LocalDateTime since = caughtUpAt;
+        if (since == null) {
+            return;
+        }
+        LocalDateTime start = LocalDateTime.now();
+        LocalDateTime at = since.minus(catchUpLookbackMs, ChronoUnit.MILLIS);
+        int afterId = 0;
+        int indexed = 0;
+        List<SearchDocument> batch;
+        do {
+            batch = postRepository.findSearchDocumentsUpdatedAfter(at, afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (SearchDocument document : batch) {
+                postSearchIndex.index(document);
+                at = document.getUpdatedAt();
+                afterId = document.getId();
+            }
+            indexed += batch.size();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        caughtUpAt = start;
+        logger.debug("post search index caught up: {} posts", indexed);
+    }
+
+    // 다른 서버에서 삭제된 게시물을 색인에서 뺀다
+    @Scheduled(initialDelayString = "${gjmarket.search.prune-interval-ms:300000}",
+            fixedDelayString = "${gjmarket.search.prune-interval-ms:300000}")
+    public void pruneDeleted() {
+        int[] ids = postSearchIndex.ids();
+        int removed = 0;
+        for (int from = 0; from < ids.length; from += REBUILD_BATCH_SIZE) {
+            List<Integer> batch = Arrays.stream(ids, from, Math.min(ids.length, from + REBUILD_BATCH_SIZE))
+                    .boxed().collect(Collectors.toList());
+            Set<Integer> existing = new HashSet<>(postRepository.findExistingIds(batch));
+            for (Integer id : batch) {
+                if (!existing.contains(id)) {
+                    postSearchIndex.remove(id);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            logger.info("post search index pruned {} deleted posts", removed);
+        }
+    }
+
+    // 게시물 생성/수정시 호출, 트랜잭션 안이면 커밋된 뒤에 반영한다
+    public void index(Post post) {
+        SearchDocument document = new SearchDocument(post.getId(), post.getTitle(), post.getContent(),
+                post.getPrice(), post.getStatus());
+        TransactionCallbacks.afterCommit(() -> postSearchIndex.index(document));
+    }
+
+    // 게시물 삭제시 호출
+    public void remove(Integer postId) {
+        TransactionCallbacks.afterCommit(() -> postSearchIndex.remove(postId));
+    }
+
+    public PostSearchResultDTO search(String query, Integer minPrice, Integer maxPrice, Integer status,
+                                      String cursor, int size) {
+        SearchFilter filter = new SearchFilter(minPrice, maxPrice, status);
+        Cursor after = decodeCursor(cursor);
+        PostSearchIndex.Page page = after == null
+                ? postSearchIndex.search(query, filter, null, null, size)
+                : postSearchIndex.search(query, filter, after.stats, after.hit, size);
+        List<PostSearchIndex.Hit> hits = page.getHits();
+        if (hits.isEmpty()) {
+            return new PostSearchResultDTO(new ArrayList<>(), null);
+        }
+
+        // 점수 순서를 유지하면서 목록 정보를 채운다
+        Map<Integer, PostSummaryDTO> summaries = postRepository
+                .findSummariesByIdIn(hits.stream().map(PostSearchIndex.Hit::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(PostSummaryDTO::getId, Function.identity(), (a, b) -> a));
+        List<PostSummaryDTO> posts = new ArrayList<>();
+        for (PostSearchIndex.Hit hit : hits) {
+            PostSummaryDTO summary = summaries.get(hit.getId());
+            if (summary != null) {
+                posts.add(summary);
+            }
+        }
+
+        String nextCursor = page.isHasMore() ? encodeCursor(hits.get(hits.size() - 1), page.getStats()) : null;
+        return new PostSearchResultDTO(posts, nextCursor);
+    }
+
+    // 커서는 "점수:id:문서 수:전체 길이:토큰별 문서 수(,로 구분)"를 base64로 감싼 문자열
+    // 첫 페이지의 점수 계산 기준을 담아 다음 페이지도 같은 기준으로 순서를 정한다
+    private String encodeCursor(PostSearchIndex.Hit hit, PostSearchIndex.Stats stats) {
+        String raw = hit.getScore() + ":" + hit.getId() + ":" + stats.getDocCount() + ":" + stats.getTotalLength()
+                + ":" + Arrays.stream(stats.getDocFreqs()).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+            int[] docFreqs = parts[4].isEmpty()
+                    ? new int[0]
+                    : Arrays.stream(parts[4].split(",")).mapToInt(Integer::parseInt).toArray();
+            return new Cursor(new PostSearchIndex.Hit(Integer.valueOf(parts[1]), Double.parseDouble(parts[0])),
+                    new PostSearchIndex.Stats(Integer.parseInt(parts[2]), Long.parseLong(parts[3]), docFreqs));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static class Cursor {
+        private final PostSearchIndex.Hit hit;
+        private final PostSearchIndex.Stats stats;
+
+        private Cursor(PostSearchIndex.Hit hit, PostSearchIndex.Stats stats) {
+            this.hit = hit;
+            this.stats = stats;
+        }
+    }
+}
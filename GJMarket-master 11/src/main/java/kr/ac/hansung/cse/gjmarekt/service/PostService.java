@@ -2,31 +2,37 @@ package kr.ac.hansung.cse.gjmarekt.service;
 
 import jakarta.persistence.EntityNotFoundException;
 import kr.ac.hansung.cse.gjmarekt.dto.PostDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostFeedDTO;
 import kr.ac.hansung.cse.gjmarekt.dto.PostImageDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
+import kr.ac.hansung.cse.gjmarekt.entity.ImageBlob;
 import kr.ac.hansung.cse.gjmarekt.entity.Post;
 import kr.ac.hansung.cse.gjmarekt.entity.PostImage;
 import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
 import kr.ac.hansung.cse.gjmarekt.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.ResponseEntity.ok;
@@ -34,20 +40,31 @@ import static org.springframework.http.ResponseEntity.ok;
 @Service
 public class PostService {
 
-    // 이미지 파일이 저장될 경로 (application.properties에서 가져옴)
-    @Value("${file.upload.path}")
-    private String fileUploadPath;
+    // 피드 한 페이지의 최대 게시물 수
+    private static final int MAX_FEED_SIZE = 100;
 
+    private static final List<Integer> ALL_STATUSES =
+            List.of(Post.PostStatus.SALE, Post.PostStatus.RESERVED, Post.PostStatus.SOLD);
 
     private final PostRepository postRepository;
     private final UserService userService;
     private final UserRepository userRepository;
+    private final ViewCountService viewCountService;
+    private final PostSearchService postSearchService;
+    private final ImageStorageService imageStorageService;
+    private final PostDetailCache postDetailCache;
+    private final TrendingService trendingService;
 
 
-    public PostService(PostRepository postRepository, UserService userService, UserRepository userRepository) {
+    public PostService(PostRepository postRepository, UserService userService, UserRepository userRepository, ViewCountService viewCountService, PostSearchService postSearchService, ImageStorageService imageStorageService, PostDetailCache postDetailCache, TrendingService trendingService) {
         this.postRepository = postRepository;
         this.userService = userService;
         this.userRepository = userRepository;
+        this.viewCountService = viewCountService;
+        this.postSearchService = postSearchService;
+        this.imageStorageService = imageStorageService;
+        this.postDetailCache = postDetailCache;
+        this.trendingService = trendingService;
     }
 
     @Transactional
@@ -79,18 +96,7 @@ public class PostService {
                     // 썸네일 여부를 저장하지 않으므로, 썸네일 설정 로직 제거
                     MultipartFile file = dto.getImage();
                     if (file != null && !file.isEmpty()) {
-                        String originalFilename = file.getOriginalFilename();
-                        String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-                        String uuid = UUID.randomUUID().toString();
-                        String filename = uuid + extension;
-                        Path filePath = Paths.get(fileUploadPath, filename);
-
-                        try {
-                            Files.copy(file.getInputStream(), filePath);
-                            postImage.setImageUrl(filename);
-                        } catch (IOException e) {
-                            throw new RuntimeException("이미지 저장에 실패했습니다.", e);
-                        }
+                        saveImage(file, postImage);
                     }
 
                     return postImage;
@@ -100,6 +106,7 @@ public class PostService {
 
         post.setImages(images);
         Post savedpost = postRepository.save(post);
+        postSearchService.index(savedpost);
         return savedpost;
     }
 
@@ -123,11 +130,14 @@ public class PostService {
 
         if (imageDTOs == null || imageDTOs.isEmpty()) {
             // 이미지가 없는 경우 기존 이미지 삭제
+            releaseImages(post);
             post.getImages().clear();
         }
         // 이미지 수정
         if (imageDTOs != null && !imageDTOs.isEmpty()) {
             // 기존 이미지 삭제
+            // 새 이미지를 저장하기 전에 참조를 놓아도 같은 사진이면 파일은 그대로 다시 쓰인다
+            releaseImages(post);
             post.getImages().clear();
             // 새로운 이미지 추가
             AtomicInteger sequence = new AtomicInteger(0);
@@ -139,8 +149,7 @@ public class PostService {
 
                         MultipartFile file = dto.getImage();
                         if (file != null && !file.isEmpty()) {
-                            String filename = saveImage(file);
-                            postImage.setImageUrl(filename);
+                            saveImage(file, postImage);
                         }
 
                         return postImage;
@@ -150,7 +159,10 @@ public class PostService {
             post.getImages().addAll(images);
         }
         System.out.println("sadasdfsadfasdfasfd");
-        return postRepository.save(post);
+        Post savedPost = postRepository.save(post);
+        postSearchService.index(savedPost);
+        postDetailCache.evict(postId);
+        return savedPost;
     }
 
 
@@ -189,8 +201,7 @@ public class PostService {
 
                         MultipartFile file = dto.getImage();
                         if (file != null && !file.isEmpty()) {
-                            String filename = saveImage(file);
-                            postImage.setImageUrl(filename);
+                            saveImage(file, postImage);
                         }
 
                         return postImage;
@@ -199,36 +210,37 @@ public class PostService {
             post.getImages().addAll(images);
         }
 
-        return postRepository.save(post);
+        Post savedPost = postRepository.save(post);
+        postSearchService.index(savedPost);
+        postDetailCache.evict(postId);
+        return savedPost;
     }
 
 
-    private String saveImage(MultipartFile file) {
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        String uuid = UUID.randomUUID().toString();
-        String filename = uuid + extension;
-        Path filePath = Paths.get(fileUploadPath, filename);
+    // 같은 내용의 이미지는 한번만 저장된다 (ImageStorageService)
+    private void saveImage(MultipartFile file, PostImage postImage) {
+        ImageBlob blob = imageStorageService.store(file);
+        postImage.setImageUrl(blob.getFilename());
+        // 이미 있던 이미지면 축소본도 이미 만들어져 있다
+        postImage.setVariants(blob.getVariants());
+    }
 
-        try {
-            Files.copy(file.getInputStream(), filePath);
-            return filename;
-        } catch (IOException e) {
-            throw new RuntimeException("이미지 저장에 실패했습니다.", e);
+    private void releaseImages(Post post) {
+        for (PostImage image : post.getImages()) {
+            imageStorageService.release(image.getImageUrl());
         }
     }
 
-    public ResponseEntity<Post> findPostById(Integer postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
+    // 게시물 상세 (직렬화된 JSON을 PostDetailCache에서 가져온다)
+    public ResponseEntity<byte[]> findPostById(Integer postId) {
+        byte[] post = postDetailCache.get(postId);
 
         // 조회수 증가
-        post.increaseViewCount();
-        postRepository.save(post);
-
+        // 요청마다 저장하지 않고 ViewCountService가 모아서 반영한다 (캐시 적중 여부와 관계없이 센다)
+        viewCountService.increment(postId);
+        trendingService.recordView(postId);
 
-
-        return ResponseEntity.ok(post);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(post);
     }
 
     public Post getPostById(Integer postId) {
@@ -239,12 +251,13 @@ public class PostService {
     }
 
     // 페이징
-    public Page<Post> getPosts(int page, int size) {
+    public Page<PostSummaryDTO> getPosts(int page, int size) {
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by("updatedAt").descending());
-        return postRepository.findAll(pageRequest);
+        return postRepository.findSummaries(pageRequest);
     }
 
     // 게시물 삭제
+    @Transactional
     public void deletePost(Integer postId, Integer userId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new EntityNotFoundException("Post not found with id: " + postId));
@@ -253,17 +266,177 @@ public class PostService {
             throw new IllegalArgumentException("You do not have permission to delete this post.");
         }
 
+        releaseImages(post);
         postRepository.delete(post);
+        postSearchService.remove(postId);
+        postDetailCache.evict(postId);
+        trendingService.remove(postId);
+    }
+
+
+    // 최근 수정순 피드, cursor가 없으면 첫 페이지
+    public PostFeedDTO getFeed(String cursor, int size) {
+        if (size < 1 || size > MAX_FEED_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_FEED_SIZE);
+        }
+        // 하나 더 읽어서 다음 페이지가 있는지 확인한다
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<PostSummaryDTO> posts;
+        if (cursor == null || cursor.isEmpty()) {
+            posts = postRepository.findFeed(pageable);
+        } else {
+            SeekCursor after = SeekCursor.decode(cursor);
+            posts = postRepository.findFeedAfter(parseKey(after.key, LocalDateTime::parse), after.id, pageable);
+        }
+
+        String nextCursor = null;
+        if (posts.size() > size) {
+            posts = new ArrayList<>(posts.subList(0, size));
+            PostSummaryDTO last = posts.get(size - 1);
+            nextCursor = new SeekCursor(last.getUpdatedAt().toString(), last.getId()).encode();
+        }
+        return new PostFeedDTO(posts, nextCursor);
+    }
+
+    // 둘러보기: 판매 상태와 가격 범위로 거르고 sort 순서로 커서를 따라 이어서 읽는다
+    // statuses가 비어 있으면 모든 상태, 가격은 양 끝을 포함한다
+    public PostFeedDTO browse(List<Integer> statuses, Integer minPrice, Integer maxPrice, BrowseSort sort,
+                              String cursor, int size) {
+        if (size < 1 || size > MAX_FEED_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_FEED_SIZE);
+        }
+        int min = minPrice == null ? 0 : minPrice;
+        int max = maxPrice == null ? Integer.MAX_VALUE : maxPrice;
+        if (min < 0 || min > max) {
+            throw new IllegalArgumentException("Invalid price range: " + minPrice + " ~ " + maxPrice);
+        }
+        List<Integer> targets = statuses == null || statuses.isEmpty() ? ALL_STATUSES : statuses;
+        for (Integer status : targets) {
+            if (!ALL_STATUSES.contains(status)) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+        }
+        SeekCursor after = cursor == null || cursor.isEmpty() ? null : SeekCursor.decode(cursor);
+
+        // 상태마다 하나 더 읽어서 합치면, 합친 것 중 앞의 size개가 이번 페이지다
+        Pageable pageable = PageRequest.of(0, size + 1);
+        Set<Integer> ids = new HashSet<>();
+        for (Integer status : new TreeSet<>(targets)) {
+            ids.addAll(seek(sort, status, min, max, after, pageable));
+        }
+        if (ids.isEmpty()) {
+            return new PostFeedDTO(new ArrayList<>(), null);
+        }
+
+        List<PostSummaryDTO> posts = new ArrayList<>(postRepository.findSummariesByIdIn(ids));
+        posts.sort(sort.order);
+        String nextCursor = null;
+        if (ids.size() > size) {
+            posts = new ArrayList<>(posts.subList(0, Math.min(size, posts.size())));
+            if (!posts.isEmpty()) {
+                PostSummaryDTO last = posts.get(posts.size() - 1);
+                nextCursor = new SeekCursor(sort.name() + "," + sort.key.apply(last), last.getId()).encode();
+            }
+        }
+        return new PostFeedDTO(posts, nextCursor);
+    }
+
+    private List<Integer> seek(BrowseSort sort, int status, int min, int max, SeekCursor after, Pageable pageable) {
+        if (after == null) {
+            switch (sort) {
+                case CHEAPEST:
+                    return postRepository.browseCheapest(status, min, max, pageable);
+                case MOST_WISHED:
+                    return postRepository.browseMostWished(status, min, max, pageable);
+                default:
+                    return postRepository.browseNewest(status, min, max, pageable);
+            }
+        }
+        // 다른 정렬에서 받은 커서는 받지 않는다
+        String prefix = sort.name() + ",";
+        if (!after.key.startsWith(prefix)) {
+            throw new IllegalArgumentException("Cursor does not match sort " + sort);
+        }
+        String key = after.key.substring(prefix.length());
+        switch (sort) {
+            case CHEAPEST:
+                return postRepository.browseCheapestAfter(status, min, max,
+                        parseKey(key, Integer::valueOf), after.id, pageable);
+            case MOST_WISHED:
+                return postRepository.browseMostWishedAfter(status, min, max,
+                        parseKey(key, Integer::valueOf), after.id, pageable);
+            default:
+                return postRepository.browseNewestAfter(status, min, max,
+                        parseKey(key, LocalDateTime::parse), after.id, pageable);
+        }
+    }
+
+    private static <T> T parseKey(String key, Function<String, T> parser) {
+        try {
+            return parser.apply(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor key: " + key, e);
+        }
     }
 
+    // 둘러보기 정렬 기준, 값이 같으면 id로 순서를 정한다
+    public enum BrowseSort {
+        // 최근 수정순
+        NEWEST(Comparator.comparing(PostSummaryDTO::getUpdatedAt, Comparator.reverseOrder())
+                .thenComparing(PostSummaryDTO::getId, Comparator.reverseOrder()),
+                post -> post.getUpdatedAt().toString()),
+        // 낮은 가격순
+        CHEAPEST(Comparator.comparingInt(PostSummaryDTO::getPrice)
+                .thenComparing(PostSummaryDTO::getId),
+                post -> String.valueOf(post.getPrice())),
+        // 위시리스트 많은 순
+        MOST_WISHED(Comparator.comparing(PostSummaryDTO::getWishlistCount, Comparator.reverseOrder())
+                .thenComparing(PostSummaryDTO::getId, Comparator.reverseOrder()),
+                post -> String.valueOf(post.getWishlistCount()));
+
+        private final Comparator<PostSummaryDTO> order;
+        // 커서에 넣을 정렬값
+        private final Function<PostSummaryDTO, String> key;
+
+        BrowseSort(Comparator<PostSummaryDTO> order, Function<PostSummaryDTO, String> key) {
+            this.order = order;
+            this.key = key;
+        }
+    }
 
-    public List<Post> getRecentPosts(int size) {
+    public List<PostSummaryDTO> getRecentPosts(int size) {
         Pageable pageable = PageRequest.of(0, size);
-        return postRepository.findAllByOrderByIdDesc(pageable);
+        return postRepository.findRecentSummaries(pageable);
     }
 
-    public List<Post> getPostsBeforeCursor(Integer cursor, int size) {
+    public List<PostSummaryDTO> getPostsBeforeCursor(Integer cursor, int size) {
         Pageable pageable = PageRequest.of(0, size);
-        return postRepository.findPostsBeforeCursor(cursor, pageable);
+        return postRepository.findSummariesBeforeCursor(cursor, pageable);
+    }
+
+    // 정렬값과 id로 이어 읽는 커서, 클라이언트에는 base64url 문자열로 보낸다
+    private static class SeekCursor {
+        private final String key;
+        private final Integer id;
+
+        private SeekCursor(String key, Integer id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        private String encode() {
+            String raw = key + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static SeekCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new SeekCursor(raw.substring(0, separator), Integer.valueOf(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
     }
 }
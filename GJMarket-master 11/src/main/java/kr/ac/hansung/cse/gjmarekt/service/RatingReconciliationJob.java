@@ -0,0 +1,31 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import kr.ac.hansung.cse.gjmarekt.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// 사용자 별점 집계(rating_sum, rating_count, rating)를 reviews 테이블로부터 다시 만든다.
+// 컬럼을 처음 추가했을 때나 집계가 어긋났을 때 한번만 실행한다.
+// 실행: --gjmarket.rating.reconcile=true
+@Component
+@ConditionalOnProperty(name = "gjmarket.rating.reconcile", havingValue = "true")
+public class RatingReconciliationJob implements ApplicationRunner {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final UserRepository userRepository;
+
+    public RatingReconciliationJob(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        int updated = userRepository.rebuildRatings();
+        logger.info("rating aggregates rebuilt for {} users in {} ms", updated, System.currentTimeMillis() - start);
+    }
+}
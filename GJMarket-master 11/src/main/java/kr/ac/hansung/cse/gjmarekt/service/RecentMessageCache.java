@@ -0,0 +1,300 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
+import kr.ac.hansung.cse.gjmarekt.websocket.RoomMessageBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// 채팅방별 최근 메시지를 메모리에 보관한다 (방마다 최근 N개, 최신이 앞)
+// 채팅방을 열 때마다 DB를 읽지 않도록 /recent 와 첫 /before 페이지를 여기서 응답한다.
+// 메시지가 저장되면(이 서버) 또는 버스로 받으면(다른 서버) 바로 추가한다.
+// 전체 메모리 사용량이 한도를 넘으면 가장 오래 사용하지 않은 채팅방부터 버린다.
+@Component
+public class RecentMessageCache {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // 메시지 하나의 대략적인 메모리 크기 (내용 제외)
+    private static final int MESSAGE_OVERHEAD_BYTES = 256;
+    // 채팅방 하나의 대략적인 메모리 크기 (map 항목, Room, 빈 deque), 메시지가 없는 채팅방도 한도에 포함되도록 한다
+    static final int ROOM_OVERHEAD_BYTES = 256;
+
+    private final int roomCapacity;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper;
+
+    // 접근 순서로 정렬된 LRU, rooms의 lock으로 보호
+    private final LinkedHashMap<Integer, Room> rooms = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public RecentMessageCache(RoomMessageBus roomMessageBus,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${gjmarket.chat.recent.room-capacity:50}") int roomCapacity,
+                              @Value("${gjmarket.chat.recent.max-bytes:67108864}") long maxBytes) {
+        this.roomCapacity = roomCapacity;
+        this.maxBytes = maxBytes;
+        this.objectMapper = objectMapper;
+
+        this.hits = meterRegistry.counter("gjmarket.chat.recent.hits");
+        this.misses = meterRegistry.counter("gjmarket.chat.recent.misses");
+        this.evictions = meterRegistry.counter("gjmarket.chat.recent.evictions");
+        meterRegistry.gauge("gjmarket.chat.recent.bytes", totalBytes);
+
+        // 다른 서버에서 저장된 메시지도 받는다 (이 서버에서 저장한 것은 id로 중복 제거)
+        roomMessageBus.subscribe(this::onPublished);
+    }
+
+    // 채팅방의 최신 메시지 size개 (최신이 앞)
+    // loader는 캐시에 없을 때 DB에서 최신 메시지 limit개를 읽는다
+    public List<ChatMessageDTO> getRecent(Integer chatRoomId, int size,
+                                          Function<Integer, List<ChatMessageDTO>> loader) {
+        if (size > roomCapacity) {
+            misses.increment();
+            return loader.apply(size);
+        }
+        Room room = loadRoom(chatRoomId, loader);
+        synchronized (room) {
+            List<ChatMessageDTO> result = new ArrayList<>(Math.min(size, room.messages.size()));
+            Iterator<ChatMessageDTO> iterator = room.messages.iterator();
+            while (iterator.hasNext() && result.size() < size) {
+                result.add(iterator.next());
+            }
+            return result;
+        }
+    }
+
+    // cursor보다 오래된 메시지 size개, 캐시만으로 답할 수 없으면 null
+    public List<ChatMessageDTO> getBefore(Integer chatRoomId, Long cursor, int size) {
+        Room room;
+        synchronized (rooms) {
+            room = rooms.get(chatRoomId);
+        }
+        if (room == null) {
+            misses.increment();
+            return null;
+        }
+        synchronized (room) {
+            if (!room.loaded) {
+                misses.increment();
+                return null;
+            }
+            List<ChatMessageDTO> result = new ArrayList<>(size);
+            for (ChatMessageDTO message : room.messages) {
+                if (message.getId() < cursor) {
+                    result.add(message);
+                    if (result.size() == size) {
+                        break;
+                    }
+                }
+            }
+            // 모자라면 더 오래된 메시지가 DB에만 있을 수 있다
+            if (result.size() < size && room.hasOlder) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return result;
+        }
+    }
+
+    // seq가 afterSeq보다 큰 메시지 (seq 오름차순), 캐시가 그 구간을 모두 담고 있지 않으면 null
+    // 재접속한 클라이언트가 놓친 메시지를 받을 때 사용한다
+    public List<ChatMessageDTO> getAfter(Integer chatRoomId, long afterSeq,
+                                         Function<Integer, List<ChatMessageDTO>> loader) {
+        Room room = loadRoom(chatRoomId, loader);
+        synchronized (room) {
+            List<ChatMessageDTO> result = new ArrayList<>();
+            boolean covered = !room.hasOlder;
+            for (ChatMessageDTO message : room.messages) {
+                Long seq = message.getSeq();
+                if (seq == null || seq <= afterSeq + 1) {
+                    // 놓친 구간의 시작까지 캐시에 있다
+                    covered = true;
+                }
+                if (seq != null && seq > afterSeq) {
+                    result.add(message);
+                }
+            }
+            if (!covered) {
+                misses.increment();
+                return null;
+            }
+            result.sort(Comparator.comparing(ChatMessageDTO::getSeq));
+            return result;
+        }
+    }
+
+    // 이 서버에서 메시지가 저장된 뒤 호출
+    public void add(ChatMessageDTO message) {
+        Room room;
+        synchronized (rooms) {
+            // 캐시에 없는 채팅방은 처음 조회할 때 DB에서 채운다
+            room = rooms.get(message.getChatRoomId());
+        }
+        if (room != null) {
+            long delta;
+            synchronized (room) {
+                delta = room.loaded ? room.insert(message) : room.addPending(message);
+                if (room.evicted) {
+                    delta = 0;
+                }
+            }
+            addBytes(delta);
+        }
+    }
+
+    private void onPublished(Integer chatRoomId, String payload) {
+        synchronized (rooms) {
+            if (!rooms.containsKey(chatRoomId)) {
+                return;
+            }
+        }
+        try {
+            add(objectMapper.readValue(payload, ChatMessageDTO.class));
+        } catch (JsonProcessingException e) {
+            logger.warn("chat message from bus could not be cached, chatRoomId: {}", chatRoomId, e);
+        }
+    }
+
+    private Room loadRoom(Integer chatRoomId, Function<Integer, List<ChatMessageDTO>> loader) {
+        Room room;
+        boolean created = false;
+        synchronized (rooms) {
+            room = rooms.get(chatRoomId);
+            if (room == null) {
+                room = new Room();
+                rooms.put(chatRoomId, room);
+                created = true;
+            }
+        }
+        if (created) {
+            addBytes(ROOM_OVERHEAD_BYTES);
+        }
+        synchronized (room) {
+            if (room.loaded) {
+                hits.increment();
+                return room;
+            }
+        }
+
+        // DB 조회 중에 저장된 메시지는 pending에 모였다가 합쳐진다
+        misses.increment();
+        List<ChatMessageDTO> loaded = loader.apply(roomCapacity);
+        long delta;
+        synchronized (room) {
+            delta = room.loaded ? 0 : room.fill(loaded, loaded.size() >= roomCapacity);
+            // 그 사이 밀려난 채팅방이면 이번 조회에만 사용하고 메모리 사용량에는 넣지 않는다
+            if (room.evicted) {
+                delta = 0;
+            }
+        }
+        addBytes(delta);
+        return room;
+    }
+
+    private void addBytes(long delta) {
+        if (totalBytes.addAndGet(delta) <= maxBytes) {
+            return;
+        }
+        synchronized (rooms) {
+            Iterator<Map.Entry<Integer, Room>> iterator = rooms.entrySet().iterator();
+            // 가장 최근에 사용한 채팅방 하나는 남긴다
+            while (totalBytes.get() > maxBytes && rooms.size() > 1 && iterator.hasNext()) {
+                Room evicted = iterator.next().getValue();
+                iterator.remove();
+                synchronized (evicted) {
+                    totalBytes.addAndGet(-evicted.bytes);
+                    evicted.bytes = 0;
+                    evicted.evicted = true;
+                }
+                evictions.increment();
+            }
+        }
+    }
+
+    private static long sizeOf(ChatMessageDTO message) {
+        return MESSAGE_OVERHEAD_BYTES + (message.getContent() == null ? 0 : 2L * message.getContent().length());
+    }
+
+    private class Room {
+        // 최신 메시지가 앞
+        private final ArrayDeque<ChatMessageDTO> messages = new ArrayDeque<>();
+        // DB에서 채우는 동안 저장된 메시지
+        private List<ChatMessageDTO> pending = new ArrayList<>();
+        private boolean loaded;
+        private boolean evicted;
+        // 캐시에 있는 것보다 오래된 메시지가 DB에 있을 수 있는지
+        private boolean hasOlder;
+        private long bytes = ROOM_OVERHEAD_BYTES;
+
+        private long addPending(ChatMessageDTO message) {
+            pending.add(message);
+            return 0;
+        }
+
+        private long fill(List<ChatMessageDTO> newestFirst, boolean hasOlder) {
+            long before = bytes;
+            this.hasOlder = hasOlder;
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                insert(newestFirst.get(i));
+            }
+            for (ChatMessageDTO message : pending) {
+                insert(message);
+            }
+            pending = null;
+            loaded = true;
+            return bytes - before;
+        }
+
+        // id 순서를 유지하며 넣는다 (대부분 맨 앞에 추가), 추가된 바이트 수를 반환
+        private long insert(ChatMessageDTO message) {
+            long before = bytes;
+            ChatMessageDTO newest = messages.peekFirst();
+            if (newest == null || message.getId() > newest.getId()) {
+                messages.addFirst(message);
+            } else {
+                // 늦게 도착한 메시지 (드묾)
+                List<ChatMessageDTO> list = new ArrayList<>(messages);
+                int index = 0;
+                while (index < list.size() && list.get(index).getId() > message.getId()) {
+                    index++;
+                }
+                if (index < list.size() && list.get(index).getId().equals(message.getId())) {
+                    return 0;
+                }
+                if (index == list.size() && list.size() >= roomCapacity) {
+                    return 0;
+                }
+                list.add(index, message);
+                messages.clear();
+                messages.addAll(list);
+            }
+            bytes += sizeOf(message);
+            while (messages.size() > roomCapacity) {
+                bytes -= sizeOf(messages.removeLast());
+                hasOlder = true;
+            }
+            return bytes - before;
+        }
+    }
+}
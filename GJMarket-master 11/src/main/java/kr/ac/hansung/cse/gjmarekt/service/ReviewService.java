@@ -6,6 +6,7 @@ import kr.ac.hansung.cse.gjmarekt.entity.Review;
 import kr.ac.hansung.cse.gjmarekt.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.naming.NoPermissionException;
 import java.util.List;
@@ -25,6 +26,7 @@ public class ReviewService {
     }
 
     // 리뷰 남기기
+    @Transactional
     public Review createReview(Integer postId, Integer reviewerId, Integer revieweeId,
                                Integer rating, String comment) {
         if (reviewerId.equals(revieweeId)) {
@@ -43,24 +45,20 @@ public class ReviewService {
         review.setComment(comment);
 
         Review savedReview = reviewRepository.save(review);
-        updateUserRating(revieweeId);
+        updateUserRating(revieweeId, null, rating);
 
         return savedReview;
     }
 
     // 유저의 점수 업데이트
-    private void updateUserRating(Integer userId) {
-        List<Review> reviews = reviewRepository.findByRevieweeId(userId);
-        if (reviews.isEmpty()) {
+    // 전체 리뷰를 다시 읽지 않고, 바뀐 만큼만 합계/개수에 반영한다
+    private void updateUserRating(Integer userId, Integer oldRating, Integer newRating) {
+        long sumDelta = (newRating == null ? 0 : newRating) - (oldRating == null ? 0 : oldRating);
+        int countDelta = (newRating == null ? 0 : 1) - (oldRating == null ? 0 : 1);
+        if (sumDelta == 0 && countDelta == 0) {
             return;
         }
-
-        double averageRating = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0);
-
-        userService.updateUserRating(userId, (float) averageRating);
+        userService.applyRatingChange(userId, sumDelta, countDelta);
     }
 
     // 유저가 받은 리뷰 목록
@@ -74,6 +72,7 @@ public class ReviewService {
     }
 
     // 리뷰 수정
+    @Transactional
     public Review updateReview(Integer reviewId, Integer reviewerId, Integer rating, String comment) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
@@ -82,14 +81,17 @@ public class ReviewService {
             throw new RuntimeException("수정 권한이 없습니다.");
         }
 
+        Integer oldRating = review.getRating();
         review.setRating(rating);
         review.setComment(comment);
 
-
-        return reviewRepository.save(review);
+        Review savedReview = reviewRepository.save(review);
+        updateUserRating(review.getReviewee().getId(), oldRating, rating);
+        return savedReview;
     }
 
     // 리뷰 일부 수정
+    @Transactional
     public Review patchReview(Integer reviewId, Integer reviewerId, Integer rating, String comment) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
@@ -98,16 +100,20 @@ public class ReviewService {
             throw new RuntimeException("수정 권한이 없습니다.");
         }
 
+        Integer oldRating = review.getRating();
         if (rating != null) {
             review.setRating(rating);
         }
         if (comment != null) {
             review.setComment(comment);
         }
-        return reviewRepository.save(review);
+        Review savedReview = reviewRepository.save(review);
+        updateUserRating(review.getReviewee().getId(), oldRating, review.getRating());
+        return savedReview;
     }
 
     // 리뷰 삭제
+    @Transactional
     public void deleteReview(Integer reviewId, Integer reviewerId) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
@@ -117,6 +123,7 @@ public class ReviewService {
         }
 
         reviewRepository.delete(review);
+        updateUserRating(review.getReviewee().getId(), review.getRating(), null);
     }
 
 }
@@ -0,0 +1,25 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 메모리 캐시/색인처럼 DB 밖의 상태를 바꿀 때, 롤백된 변경이 반영되지 않도록 커밋 뒤로 미룬다.
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    // 트랜잭션 안이면 커밋된 뒤에, 밖이면 바로 실행한다 (롤백되면 실행하지 않는다)
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
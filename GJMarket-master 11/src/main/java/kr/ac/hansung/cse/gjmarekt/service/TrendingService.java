@@ -0,0 +1,203 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
+import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import kr.ac.hansung.cse.gjmarekt.trending.TrendingIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 인기 게시물
+// 조회, 찜, 채팅 요청이 올 때마다 TrendingIndex에 가중치를 더하고, 응답(JSON)은 주기적으로 만들어 두었다가 그대로 내보낸다.
+// 점수는 메모리에만 있으므로 서버가 시작되면 최근 조회수 기록(post_view_buckets), 찜, 채팅방으로 다시 만든다(replay).
+@Service
+public class TrendingService {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String REPLAY_VIEWS_SQL = "SELECT b.post_id, b.bucket_start, b.views FROM post_view_buckets b "
+            + "JOIN posts p ON p.id = b.post_id WHERE b.bucket_start >= ?";
+    private static final String REPLAY_WISHES_SQL = "SELECT w.post_id, w.created_at FROM wishlists w "
+            + "JOIN posts p ON p.id = w.post_id WHERE w.created_at >= ?";
+    private static final String REPLAY_CHATS_SQL = "SELECT c.post_id, c.created_at FROM chat_rooms c "
+            + "JOIN posts p ON p.id = c.post_id WHERE c.created_at >= ?";
+    private static final String PRUNE_VIEWS_SQL = "DELETE FROM post_view_buckets WHERE bucket_start < ?";
+
+    private final TrendingIndex trendingIndex;
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // 이벤트별 가중치
+    private final double viewWeight;
+    private final double wishWeight;
+    private final double chatWeight;
+    // 응답에 담을 게시물 수
+    private final int size;
+    // 재시작시 이 시간 안의 기록만 다시 읽는다, 조회수 기록도 이보다 오래되면 지운다
+    private final long replayHorizonMs;
+    private final boolean replayOnStartup;
+
+    // 마지막으로 만든 응답, 만든 뒤 점수가 바뀌었으면 dirty
+    private volatile byte[] snapshot = "[]".getBytes(StandardCharsets.UTF_8);
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final Counter events;
+    private final Timer refreshTimer;
+
+    public TrendingService(TrendingIndex trendingIndex,
+                           PostRepository postRepository,
+                           JdbcTemplate jdbcTemplate,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${gjmarket.trending.weight.view:1}") double viewWeight,
+                           @Value("${gjmarket.trending.weight.wish:5}") double wishWeight,
+                           @Value("${gjmarket.trending.weight.chat:10}") double chatWeight,
+                           @Value("${gjmarket.trending.size:50}") int size,
+                           @Value("${gjmarket.trending.replay-horizon-ms:259200000}") long replayHorizonMs,
+                           @Value("${gjmarket.trending.replay-on-startup:true}") boolean replayOnStartup) {
+        this.trendingIndex = trendingIndex;
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.viewWeight = viewWeight;
+        this.wishWeight = wishWeight;
+        this.chatWeight = chatWeight;
+        this.size = size;
+        this.replayHorizonMs = replayHorizonMs;
+        this.replayOnStartup = replayOnStartup;
+
+        this.events = meterRegistry.counter("gjmarket.trending.events");
+        this.refreshTimer = meterRegistry.timer("gjmarket.trending.refresh");
+        meterRegistry.gauge("gjmarket.trending.posts", trendingIndex, TrendingIndex::size);
+    }
+
+    // 게시물 상세 조회
+    public void recordView(Integer postId) {
+        record(postId, viewWeight);
+    }
+
+    // 찜 추가, 트랜잭션 안이면 커밋된 뒤에 반영한다
+    public void recordWish(Integer postId) {
+        TransactionCallbacks.afterCommit(() -> record(postId, wishWeight));
+    }
+
+    // 새 채팅방 (구매 문의)
+    public void recordChat(Integer postId) {
+        TransactionCallbacks.afterCommit(() -> record(postId, chatWeight));
+    }
+
+    // 게시물 삭제
+    public void remove(Integer postId) {
+        TransactionCallbacks.afterCommit(() -> {
+            trendingIndex.remove(postId);
+            dirty.set(true);
+        });
+    }
+
+    // 인기 게시물 목록 JSON, 최대 refresh-ms만큼 늦을 수 있다
+    public byte[] getTrending() {
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${gjmarket.trending.refresh-ms:1000}")
+    public void refresh() {
+        if (dirty.getAndSet(false)) {
+            refreshTimer.record(this::buildSnapshot);
+        }
+    }
+
+    // 서버 시작시 최근 기록으로 점수를 다시 만든다
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        if (replayOnStartup) {
+            replay();
+        }
+    }
+
+    // DB의 기록으로 점수를 처음부터 다시 만든다, 각 이벤트는 원래 일어난 시각으로 더한다
+    // 아직 DB에 반영되지 않은 조회수(ViewCountService)는 빠진다
+    public void replay() {
+        long start = System.currentTimeMillis();
+        Timestamp since = new Timestamp(start - replayHorizonMs);
+        trendingIndex.clear();
+        long[] counts = new long[3];
+        jdbcTemplate.query(REPLAY_VIEWS_SQL, rs -> {
+            trendingIndex.add(rs.getInt(1), viewWeight * rs.getLong(3), rs.getTimestamp(2).getTime());
+            counts[0]++;
+        }, since);
+        jdbcTemplate.query(REPLAY_WISHES_SQL, rs -> {
+            trendingIndex.add(rs.getInt(1), wishWeight, rs.getTimestamp(2).getTime());
+            counts[1]++;
+        }, since);
+        jdbcTemplate.query(REPLAY_CHATS_SQL, rs -> {
+            trendingIndex.add(rs.getInt(1), chatWeight, rs.getTimestamp(2).getTime());
+            counts[2]++;
+        }, since);
+        buildSnapshot();
+        logger.info("trending replayed {} view buckets, {} wishes, {} chats into {} posts in {} ms",
+                counts[0], counts[1], counts[2], trendingIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    // 다시 만들 때 쓰지 않는 오래된 조회수 기록을 지운다
+    @Scheduled(fixedDelayString = "${gjmarket.trending.prune-interval-ms:3600000}")
+    public void pruneViewBuckets() {
+        int deleted = jdbcTemplate.update(PRUNE_VIEWS_SQL,
+                new Timestamp(System.currentTimeMillis() - replayHorizonMs));
+        if (deleted > 0) {
+            logger.info("pruned {} view buckets", deleted);
+        }
+    }
+
+    private void record(Integer postId, double weight) {
+        trendingIndex.add(postId, weight, System.currentTimeMillis());
+        dirty.set(true);
+        events.increment();
+    }
+
+    // 판매 완료된 게시물은 빼고 순위대로 size개를 담는다
+    // 빠지는 게시물이 있을 수 있으므로 두배로 읽는다
+    private void buildSnapshot() {
+        List<TrendingIndex.Scored> top = trendingIndex.top(size * 2, System.currentTimeMillis());
+        List<PostSummaryDTO> posts = new ArrayList<>(size);
+        if (!top.isEmpty()) {
+            Map<Integer, PostSummaryDTO> summaries = postRepository
+                    .findSummariesByIdIn(top.stream().map(TrendingIndex.Scored::getPostId).collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(PostSummaryDTO::getId, Function.identity(), (a, b) -> a));
+            for (TrendingIndex.Scored scored : top) {
+                PostSummaryDTO summary = summaries.get(scored.getPostId());
+                if (summary != null && summary.getStatus() != Post.PostStatus.SOLD) {
+                    posts.add(summary);
+                    if (posts.size() == size) {
+                        break;
+                    }
+                }
+            }
+        }
+        try {
+            snapshot = objectMapper.writeValueAsBytes(posts);
+        } catch (JsonProcessingException e) {
+            logger.warn("trending snapshot serialization failed", e);
+        }
+    }
+}
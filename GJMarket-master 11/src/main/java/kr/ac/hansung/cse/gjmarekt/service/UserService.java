@@ -4,10 +4,11 @@ import kr.ac.hansung.cse.gjmarekt.dto.SignUpDTO;
 import kr.ac.hansung.cse.gjmarekt.dto.UserDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.GJRole;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
+import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.entity.PostImage;
 import kr.ac.hansung.cse.gjmarekt.repository.RoleRepository;
 import kr.ac.hansung.cse.gjmarekt.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -15,31 +16,36 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-
-    // 이미지 파일이 저장될 경로 (application.properties에서 가져옴)
-    @Value("${file.upload.path}")
-    private String fileUploadPath;
+    private final ImageStorageService imageStorageService;
+    private final PostDetailCache postDetailCache;
+    private final PostSearchService postSearchService;
+    private final TrendingService trendingService;
 
     @Autowired
     private RoleRepository roleRepository;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, ImageStorageService imageStorageService,
+                       PostDetailCache postDetailCache, PostSearchService postSearchService,
+                       TrendingService trendingService) {
         this.userRepository = userRepository;
+        this.imageStorageService = imageStorageService;
+        this.postDetailCache = postDetailCache;
+        this.postSearchService = postSearchService;
+        this.trendingService = trendingService;
         this.passwordEncoder = new BCryptPasswordEncoder();
     }
 
+    // 프로필 사진의 참조 수 증가는 사용자 저장과 같은 트랜잭션에서 커밋/롤백된다
+    @Transactional
     public void signUpProcess(SignUpDTO signUpDTO) {
         String email = signUpDTO.getEmail();
         String password = signUpDTO.getPassword();
@@ -62,17 +68,8 @@ public class UserService {
 
         if (profileImage != null && !profileImage.isEmpty()) {
             // 이미지가 없으면 이부분은 실행되지 않습니다.
-            try {
-                String fileName = UUID.randomUUID().toString() + "."
-                        + getFileExtension(profileImage.getOriginalFilename());
-                File dest = new File(fileUploadPath + "/profile/" + fileName);
-                profileImage.transferTo(dest);
-
-                gjUser.setProfileImageUrl(fileName);
-
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            // 게시물 이미지와 같은 저장소에 내용 해시 이름으로 저장된다
+            gjUser.setProfileImageUrl(imageStorageService.store(profileImage).getFilename());
         }
 
 
@@ -97,6 +94,7 @@ public class UserService {
 
 
     // 회원정보 수정
+    @Transactional
     public void updateUser(GJUser user, SignUpDTO signUpDTO) {
         // 이메일로 기존 user를 찾는다.
         GJUser gjUser = userRepository.findByEmail(user.getEmail())
@@ -120,21 +118,16 @@ public class UserService {
 
         if (profileImage != null && !profileImage.isEmpty()) {
             // 이미지가 없으면 이부분은 실행되지 않습니다.
-            try {
-                String fileName = UUID.randomUUID().toString() + "."
-                        + getFileExtension(profileImage.getOriginalFilename());
-                File dest = new File(fileUploadPath + "/profile/" + fileName);
-                profileImage.transferTo(dest);
-
-                gjUser.setProfileImageUrl(fileName);
-
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            // 새 사진을 먼저 저장한 뒤 이전 사진의 참조를 놓는다 (같은 사진이면 파일이 유지된다)
+            String oldProfileImageUrl = gjUser.getProfileImageUrl();
+            gjUser.setProfileImageUrl(imageStorageService.store(profileImage).getFilename());
+            imageStorageService.release(oldProfileImageUrl);
         }
 
 
         userRepository.save(gjUser);
+        // 게시물 상세에 판매자 닉네임과 프로필 사진이 들어간다
+        postDetailCache.evictSeller(gjUser.getId());
     }
 
     // 회원 탈퇴
@@ -147,7 +140,20 @@ public class UserService {
         gjUser.getRoles().clear();
         userRepository.save(gjUser);
 
+        // 프로필 사진과 함께 삭제되는 게시물들의 이미지 참조를 놓고, 게시물을 검색 색인과 인기 게시물에서 뺀다
+        imageStorageService.release(gjUser.getProfileImageUrl());
+        if (gjUser.getPosts() != null) {
+            for (Post post : gjUser.getPosts()) {
+                for (PostImage image : post.getImages()) {
+                    imageStorageService.release(image.getImageUrl());
+                }
+                postSearchService.remove(post.getId());
+                trendingService.remove(post.getId());
+            }
+        }
+
         userRepository.delete(gjUser);
+        postDetailCache.evictSeller(gjUser.getId());
     }
 
     // 회원 조회
@@ -174,14 +180,16 @@ public class UserService {
         return userDTO;
     }
 
-    // 파일 확장자 추출 메서드
-    private String getFileExtension(String fileName) {
-        return fileName.substring(fileName.lastIndexOf(".") + 1);
-    }
-
 
     // 유저 평점 업데이트
     public void updateUserRating(Integer userId, Float rating) {
         userRepository.updateUserRating(userId, rating);
+        postDetailCache.evictSeller(userId);
+    }
+
+    // 받은 별점 합계/개수를 변경하고 평균을 다시 계산한다
+    public void applyRatingChange(Integer userId, long sumDelta, int countDelta) {
+        userRepository.applyRatingChange(userId, sumDelta, countDelta);
+        postDetailCache.evictSeller(userId);
     }
 }
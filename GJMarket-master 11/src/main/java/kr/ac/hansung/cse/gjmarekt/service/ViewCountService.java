@@ -0,0 +1,144 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// 게시물 조회수를 메모리에 모아두었다가 주기적으로 한번에 DB에 반영한다.
+// 조회할 때마다 Post를 읽고 저장하던 방식은 동시 조회시 증가분이 사라지고 행 잠금이 몰린다.
+// 반영한 조회수는 시간 구간별로도 쌓아두고(post_view_buckets), 재시작시 인기 게시물 점수를 다시 만들 때 쓴다.
+@Service
+public class ViewCountService {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String UPDATE_SQL = "UPDATE posts SET view_count = view_count + ? WHERE id = ?";
+    private static final String BUCKET_SQL = "INSERT INTO post_view_buckets (post_id, bucket_start, views) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE views = views + ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // postId별 누적 조회수 (LongAdder는 내부적으로 스트라이프 되어 있어 경합이 적다)
+    // 증가와 제거는 compute로 같은 키에 대해 직렬화한다. 누적기를 꺼낸 뒤 더하면, 그 사이 flush가 제거한 누적기에 더해져 사라질 수 있다
+    private final Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // 한번의 batchUpdate에 담을 최대 행 수
+    @Value("${gjmarket.viewcount.batch-size:500}")
+    private int batchSize;
+
+    // 조회수 기록 구간 길이
+    @Value("${gjmarket.viewcount.bucket-ms:600000}")
+    private long bucketMs;
+
+    private final Counter flushedViews;
+    private final Counter flushedRows;
+    private final Timer flushTimer;
+
+    public ViewCountService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushedViews = meterRegistry.counter("gjmarket.viewcount.flushed.views");
+        this.flushedRows = meterRegistry.counter("gjmarket.viewcount.flushed.rows");
+        this.flushTimer = meterRegistry.timer("gjmarket.viewcount.flush");
+        meterRegistry.gauge("gjmarket.viewcount.pending.posts", pending, Map::size);
+    }
+
+    // 조회수 1 증가 (DB에는 다음 flush때 반영)
+    public void increment(Integer postId) {
+        add(postId, 1);
+    }
+
+    private void add(Integer postId, long views) {
+        pending.compute(postId, (k, adder) -> {
+            if (adder == null) {
+                adder = new LongAdder();
+            }
+            adder.add(views);
+            return adder;
+        });
+    }
+
+    // 아직 DB에 반영되지 않은 조회수
+    public long getPending(Integer postId) {
+        LongAdder adder = pending.get(postId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${gjmarket.viewcount.flush-interval-ms:5000}")
+    public void flush() {
+        flushTimer.record(this::flushPending);
+    }
+
+    // 종료시 남은 조회수를 모두 반영
+    @PreDestroy
+    public void drain() {
+        flushPending();
+        logger.info("view count drained, remaining posts: {}", pending.size());
+    }
+
+    private synchronized void flushPending() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Integer, LongAdder> entry : pending.entrySet()) {
+            LongAdder adder = entry.getValue();
+            long delta = adder.sumThenReset();
+            if (delta == 0) {
+                // 한 주기 동안 조회가 없었던 게시물은 맵에서 제거 (그 사이 증가분이 있으면 남겨두고 다음 주기에 반영)
+                pending.computeIfPresent(entry.getKey(), (k, a) -> a.sum() == 0 ? null : a);
+                continue;
+            }
+            batch.add(new Object[]{delta, entry.getKey()});
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            flushedRows.increment(batch.size());
+            for (Object[] row : batch) {
+                flushedViews.increment((Long) row[0]);
+            }
+        } catch (RuntimeException e) {
+            // 실패한 증가분은 버리지 않고 다음 주기에 다시 시도
+            logger.warn("view count flush failed, {} rows requeued", batch.size(), e);
+            for (Object[] row : batch) {
+                add((Integer) row[1], (Long) row[0]);
+            }
+            return;
+        }
+        writeBuckets(batch);
+    }
+
+    // 구간 기록은 인기 점수를 다시 만들 때만 쓰므로, 실패해도 조회수를 다시 반영하지 않고 버린다
+    private void writeBuckets(List<Object[]> batch) {
+        long now = System.currentTimeMillis();
+        Timestamp bucketStart = new Timestamp(now - now % bucketMs);
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Object[] row : batch) {
+            args.add(new Object[]{row[1], bucketStart, row[0], row[0]});
+        }
+        try {
+            jdbcTemplate.batchUpdate(BUCKET_SQL, args);
+        } catch (RuntimeException e) {
+            logger.warn("view bucket write failed, {} rows dropped", batch.size(), e);
+        }
+    }
+}
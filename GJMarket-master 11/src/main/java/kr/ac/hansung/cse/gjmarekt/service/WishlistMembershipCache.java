@@ -0,0 +1,151 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.repository.WishlistRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 사용자별 찜한 게시물 id 집합, 정렬된 int 배열로 보관하고 이진 탐색으로 확인한다.
+// 목록 화면의 찜 표시(하트)를 위해 Wishlist 엔티티 전체를 읽지 않도록 사용한다.
+// 이 서버에서 찜을 추가/삭제하면 커밋된 뒤 바로 고치고, 다른 서버에서 바뀐 내용은 ttl 안에 반영된다.
+// 보관 중인 id 수(사용자마다 하나씩 더 센다)가 한도를 넘으면 가장 오래 사용하지 않은 사용자부터 버린다.
+@Component
+public class WishlistMembershipCache {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final WishlistRepository wishlistRepository;
+    private final long maxIds;
+    private final long ttlMs;
+
+    // 접근 순서로 정렬된 LRU, entries의 lock으로 보호
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong totalIds = new AtomicLong();
+    // 읽는 중인 사용자, 그 사이 찜이 바뀌면 여기서 빠지고 읽은 결과는 캐시에 넣지 않는다
+    private final Map<Integer, Object> loading = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public WishlistMembershipCache(WishlistRepository wishlistRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${gjmarket.wishlist.cache.max-ids:1000000}") long maxIds,
+                                   @Value("${gjmarket.wishlist.cache.ttl-ms:60000}") long ttlMs) {
+        this.wishlistRepository = wishlistRepository;
+        this.maxIds = maxIds;
+        this.ttlMs = ttlMs;
+
+        this.hits = meterRegistry.counter("gjmarket.wishlist.cache.hits");
+        this.misses = meterRegistry.counter("gjmarket.wishlist.cache.misses");
+        this.evictions = meterRegistry.counter("gjmarket.wishlist.cache.evictions");
+        meterRegistry.gauge("gjmarket.wishlist.cache.ids", totalIds);
+        meterRegistry.gauge("gjmarket.wishlist.cache.users", entries, e -> {
+            synchronized (e) {
+                return e.size();
+            }
+        });
+    }
+
+    public boolean contains(Integer userId, Integer postId) {
+        return postId != null && Arrays.binarySearch(get(userId), postId) >= 0;
+    }
+
+    // 사용자가 찜한 게시물 id (정렬됨), 돌려준 배열은 고치지 않는다
+    public int[] get(Integer userId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            return entry.postIds;
+        }
+        misses.increment();
+
+        Object token = new Object();
+        loading.put(userId, token);
+        List<Integer> found = wishlistRepository.findPostIdsByUserId(userId);
+        int[] postIds = found.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        synchronized (entries) {
+            // 읽는 사이 찜이 바뀌지 않았을 때만 넣는다
+            if (loading.remove(userId, token)) {
+                put(userId, postIds);
+            }
+        }
+        return postIds;
+    }
+
+    // 찜 추가/삭제시 호출, 트랜잭션 안이면 커밋된 뒤에 반영한다
+    public void added(Integer userId, Integer postId) {
+        TransactionCallbacks.afterCommit(() -> update(userId, postId, true));
+    }
+
+    public void removed(Integer userId, Integer postId) {
+        TransactionCallbacks.afterCommit(() -> update(userId, postId, false));
+    }
+
+    private void update(Integer userId, int postId, boolean wished) {
+        synchronized (entries) {
+            loading.remove(userId);
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                return;
+            }
+            int index = Arrays.binarySearch(entry.postIds, postId);
+            int[] postIds;
+            if (wished && index < 0) {
+                int at = -index - 1;
+                postIds = new int[entry.postIds.length + 1];
+                System.arraycopy(entry.postIds, 0, postIds, 0, at);
+                postIds[at] = postId;
+                System.arraycopy(entry.postIds, at, postIds, at + 1, entry.postIds.length - at);
+            } else if (!wished && index >= 0) {
+                postIds = new int[entry.postIds.length - 1];
+                System.arraycopy(entry.postIds, 0, postIds, 0, index);
+                System.arraycopy(entry.postIds, index + 1, postIds, index, postIds.length - index);
+            } else {
+                return;
+            }
+            // 배열은 다른 요청이 읽고 있을 수 있으므로 새로 만들어 바꾼다
+            entries.put(userId, new Entry(postIds.length == 0 ? EMPTY : postIds, entry.expiresAt));
+            totalIds.addAndGet(postIds.length - entry.postIds.length);
+        }
+    }
+
+    // entries의 lock을 잡고 호출
+    private void put(Integer userId, int[] postIds) {
+        // 한도보다 많이 찜한 사용자는 넣지 않는다
+        if (postIds.length + 1 > maxIds) {
+            return;
+        }
+        Entry previous = entries.put(userId, new Entry(postIds, System.currentTimeMillis() + ttlMs));
+        long total = totalIds.addAndGet(postIds.length + 1 - (previous == null ? 0 : previous.postIds.length + 1));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (total > maxIds && iterator.hasNext()) {
+            Entry evicted = iterator.next();
+            iterator.remove();
+            total = totalIds.addAndGet(-(evicted.postIds.length + 1));
+            evictions.increment();
+        }
+    }
+
+    private static class Entry {
+        private final int[] postIds;
+        private final long expiresAt;
+
+        private Entry(int[] postIds, long expiresAt) {
+            this.postIds = postIds;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
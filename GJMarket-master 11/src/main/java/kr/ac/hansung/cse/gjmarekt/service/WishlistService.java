@@ -1,5 +1,6 @@
 package kr.ac.hansung.cse.gjmarekt.service;
 
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
 import kr.ac.hansung.cse.gjmarekt.entity.Post;
 import kr.ac.hansung.cse.gjmarekt.entity.Wishlist;
@@ -10,16 +11,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
 public class WishlistService {
+    // 찜 여부를 한번에 확인할 수 있는 최대 게시물 수
+    private static final int MAX_CONTAINS_IDS = 1000;
+
     @Autowired
     private WishlistRepository wishlistRepository;
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private PostRepository postRepository;
+    @Autowired
+    private PostDetailCache postDetailCache;
+    @Autowired
+    private TrendingService trendingService;
+    @Autowired
+    private WishlistMembershipCache wishlistMembershipCache;
 
     // 찜 추가
     @Transactional
@@ -42,6 +54,9 @@ public class WishlistService {
         // Post 엔티티의 wishlistCount 증가
         post.increaseWishlistCount();
         postRepository.save(post);
+        postDetailCache.evict(postId);
+        trendingService.recordWish(postId);
+        wishlistMembershipCache.added(userId, postId);
 
         return wishlistRepository.save(wishlist);
     }
@@ -60,8 +75,36 @@ public class WishlistService {
         // Post 엔티티의 wishlistCount 감소
         post.decreaseWishlistCount();
         postRepository.save(post); // 변경된 Post 엔티티 저장
+        postDetailCache.evict(postId);
 
 //        wishlistRepository.deleteById(wishlistId);
         wishlistRepository.deleteByUserIdAndPostId(userId, postId);
+        wishlistMembershipCache.removed(userId, postId);
+    }
+
+    // postIds 중 사용자가 찜한 게시물 id (요청 순서대로)
+    public List<Integer> filterWished(Integer userId, List<Integer> postIds) {
+        if (postIds.size() > MAX_CONTAINS_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_CONTAINS_IDS + " post ids can be checked at once.");
+        }
+        int[] wished = wishlistMembershipCache.get(userId);
+        List<Integer> result = new ArrayList<>();
+        for (Integer postId : postIds) {
+            if (postId != null && Arrays.binarySearch(wished, postId) >= 0) {
+                result.add(postId);
+            }
+        }
+        return result;
+    }
+
+    // 목록의 게시물마다 찜 여부를 채운다, 로그인하지 않았으면(userId가 null) 그대로 둔다
+    public void markWished(Integer userId, List<PostSummaryDTO> posts) {
+        if (userId == null || posts.isEmpty()) {
+            return;
+        }
+        int[] wished = wishlistMembershipCache.get(userId);
+        for (PostSummaryDTO post : posts) {
+            post.setWished(Arrays.binarySearch(wished, post.getId()) >= 0);
+        }
     }
 }
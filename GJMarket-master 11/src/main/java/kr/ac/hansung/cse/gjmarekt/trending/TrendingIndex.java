@@ -0,0 +1,161 @@
+package kr.ac.hansung.cse.gjmarekt.trending;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 게시물별 시간 감쇠(반감기) 인기 점수
+// 점수는 기준 시각(landmark) 기준으로 저장한다. 시각 t에 가중치 w인 이벤트가 오면 w * 2^((t - landmark) / halfLife)를 더하고,
+// 현재 점수는 저장값 * 2^(-(now - landmark) / halfLife)이다. 시간이 지나면 모든 게시물에 같은 배율이 곱해질 뿐이라
+// 순위는 이벤트가 들어온 게시물만 다시 정렬하면 되고, 주기적으로 전체 점수를 다시 계산할 필요가 없다.
+@Component
+public class TrendingIndex {
+
+    // 저장값의 지수가 이만큼 커지면 landmark를 옮겨 저장값을 줄인다 (double overflow 방지)
+    private static final double MAX_EXPONENT = 64;
+
+    // 정렬 순서: 점수 내림차순, 같으면 id 내림차순
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparingDouble((Entry entry) -> entry.score).reversed()
+                    .thenComparing(entry -> entry.postId, Comparator.reverseOrder());
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(RANKING);
+    private long landmark;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 점수가 절반이 되는 시간
+    private final long halfLifeMs;
+    // 메모리에 둘 최대 게시물 수, 넘으면 점수가 가장 낮은 게시물부터 뺀다
+    private final int maxEntries;
+
+    public TrendingIndex(@Value("${gjmarket.trending.half-life-ms:21600000}") long halfLifeMs,
+                         @Value("${gjmarket.trending.max-entries:100000}") int maxEntries) {
+        this.halfLifeMs = halfLifeMs;
+        this.maxEntries = maxEntries;
+        this.landmark = System.currentTimeMillis();
+    }
+
+    // 시각 at(ms)에 일어난 이벤트의 가중치를 더한다
+    public void add(Integer postId, double weight, long at) {
+        lock.writeLock().lock();
+        try {
+            if ((at - landmark) / (double) halfLifeMs > MAX_EXPONENT) {
+                rescale(at);
+            }
+            double value = weight * Math.pow(2, (at - landmark) / (double) halfLifeMs);
+            Entry entry = entries.get(postId);
+            double score = value;
+            if (entry != null) {
+                ranking.remove(entry);
+                score += entry.score;
+            }
+            entry = new Entry(postId, score);
+            entries.put(postId, entry);
+            ranking.add(entry);
+            if (ranking.size() > maxEntries) {
+                entries.remove(ranking.pollLast().postId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer postId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(postId);
+            if (entry != null) {
+                ranking.remove(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            ranking.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 점수가 높은 순서로 최대 k개, 점수는 now 시각 기준으로 돌려준다
+    public List<Scored> top(int k, long now) {
+        lock.readLock().lock();
+        try {
+            double decay = Math.pow(2, -(now - landmark) / (double) halfLifeMs);
+            List<Scored> result = new ArrayList<>(Math.min(k, ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (result.size() < k && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                result.add(new Scored(entry.postId, entry.score * decay));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // landmark를 to로 옮기고 모든 저장값에 같은 배율을 곱한다 (순위는 그대로)
+    // 반감기의 MAX_EXPONENT배 시간이 지날 때마다 한번만 일어난다
+    private void rescale(long to) {
+        double factor = Math.pow(2, -(to - landmark) / (double) halfLifeMs);
+        List<Entry> rescaled = new ArrayList<>(ranking.size());
+        for (Entry entry : ranking) {
+            double score = entry.score * factor;
+            // 0이 될 만큼 작아진 게시물은 버린다
+            if (score > 0) {
+                rescaled.add(new Entry(entry.postId, score));
+            }
+        }
+        entries.clear();
+        ranking.clear();
+        for (Entry entry : rescaled) {
+            entries.put(entry.postId, entry);
+            ranking.add(entry);
+        }
+        landmark = to;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Scored {
+        private final Integer postId;
+        private final double score;
+    }
+
+    private static class Entry {
+        private final Integer postId;
+        private final double score;
+
+        private Entry(Integer postId, double score) {
+            this.postId = postId;
+            this.score = score;
+        }
+    }
+}
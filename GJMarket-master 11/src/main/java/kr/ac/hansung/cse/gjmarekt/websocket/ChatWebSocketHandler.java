@@ -1,6 +1,11 @@
 package kr.ac.hansung.cse.gjmarekt.websocket;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpSession;
 import jakarta.websocket.*;
 import jakarta.websocket.server.PathParam;
@@ -9,16 +14,24 @@ import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
 import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
 import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
 import kr.ac.hansung.cse.gjmarekt.service.ChatMessageService;
+import kr.ac.hansung.cse.gjmarekt.service.ChatRoomMembershipCache;
 import kr.ac.hansung.cse.gjmarekt.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,20 +39,43 @@ import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class ChatWebSocketHandler extends TextWebSocketHandler {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String TYPING_PREFIX = "{\"type\":\"typing\"";
+
+    // 사용자 단위 연결, 연결 하나로 여러 채팅방을 구독한다 (채팅방 단위 연결은 /ws/chat/{chatRoomId})
+    public static final String USER_PATH = "/ws/user";
+
+    // 사용자 단위 연결 하나가 구독할 수 있는 최대 채팅방 수
+    @Value("${gjmarket.ws.max-rooms-per-session:500}")
+    private int maxRoomsPerSession;
+
+    // 재접속시 다시 보내줄 놓친 메시지의 최대 개수
+    @Value("${gjmarket.chat.resume.max-messages:200}")
+    private int resumeMaxMessages;
 
     private final ChatMessageService chatMessageService;
     private final ObjectMapper objectMapper;
     private final JWTUtil jwtUtil;
     private final UserService userService;
-
-    private final Map<Integer, Map<WebSocketSession, Integer>> chatRoomSessions = new ConcurrentHashMap<>(); // 채팅방별 세션 관리
+    private final OutboundSessionFactory outboundSessionFactory;
+    private final RoomMessageBus roomMessageBus;
+    private final ChatRoomMembershipCache chatRoomMembershipCache;
+    // 사용자별/채팅방별 세션 목록과 접속 상태 관리
+    private final PresenceService presenceService;
 
     @Autowired
-    public ChatWebSocketHandler(ChatMessageService chatMessageService, ObjectMapper objectMapper, JWTUtil jwtUtil, UserService userService) {
+    public ChatWebSocketHandler(ChatMessageService chatMessageService, ObjectMapper objectMapper, JWTUtil jwtUtil, UserService userService, OutboundSessionFactory outboundSessionFactory, RoomMessageBus roomMessageBus, ChatRoomMembershipCache chatRoomMembershipCache, PresenceService presenceService) {
         this.chatMessageService = chatMessageService;
         this.objectMapper = objectMapper;
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.outboundSessionFactory = outboundSessionFactory;
+        this.roomMessageBus = roomMessageBus;
+        this.chatRoomMembershipCache = chatRoomMembershipCache;
+        this.presenceService = presenceService;
+        // 어느 서버에서 저장된 메시지든 이 서버에 연결된 세션에 전달한다
+        roomMessageBus.subscribe(this::deliver);
     }
 
     @Override
@@ -53,24 +89,52 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
 //
 //        System.out.println("WebSocket opened: " + session.getId() + ", chatRoomId: " + chatRoomId + ", userId: " + userId);
 
+        // 이 세션으로의 전송은 모두 OutboundSession의 큐를 거친다
+        OutboundSession outbound = outboundSessionFactory.wrap(session);
+        session.getAttributes().put("outbound", outbound);
+        presenceService.connect(outbound);
+
+        String authHeader = session.getHandshakeHeaders().getFirst("Authorization");
+        if (USER_PATH.equals(session.getUri().getPath())) {
+            // 사용자 단위 연결, 채팅방은 인증 후 subscribe frame으로 구독한다
+            session.getAttributes().put("multiplexed", true);
+            session.getAttributes().put("authenticated", false);
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                Integer userId = verifiedUserId(authHeader.split(" ")[1]);
+                if (userId == null) {
+                    rejectInvalidToken(session);
+                    return;
+                }
+                authenticate(session, userId);
+            }
+            return;
+        }
+
         Integer chatRoomId = Integer.parseInt(session.getUri().getPath().split("/")[3]);
         Integer userId = null; // userId는 Authorization 헤더가 있을 경우에만 설정
 
         // 세션의 Attributes에 chatRoomId 저장 (인증 상태와 관계없이 필요)
         session.getAttributes().put("chatRoomId", chatRoomId);
 
-        String authHeader = session.getHandshakeHeaders().getFirst("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             // Authorization 헤더가 있고 "Bearer "로 시작하는 경우 (앱 으로 접속하면 여기로 옴)
             String token = authHeader.split(" ")[1];
             userId = jwtUtil.getUserId(token);
 
+            // 채팅방 참여자가 아니면 연결을 끊는다
+            if (!chatRoomMembershipCache.isMember(userId, chatRoomId)) {
+                logger.warn("websocket rejected, user {} is not a member of chat room {}", userId, chatRoomId);
+                session.close(CloseStatus.POLICY_VIOLATION);
+                return;
+            }
+
             // 세션의 Attributes에 userId와 인증 상태 저장
-            session.getAttributes().put("userId", userId);
-            session.getAttributes().put("authenticated", true);
+            authenticate(session, userId);
 
-            // 세션을 userId와 함께 저장
-            chatRoomSessions.computeIfAbsent(chatRoomId, k -> new ConcurrentHashMap<>()).put(session, userId); //세션 저장
+            // 세션을 채팅방에 등록 (참여자에게 온라인 상태가 전달된다)
+            // 재접속이면 Last-Seq 헤더에 마지막으로 받은 메시지의 seq를 보낸다
+            join(session, chatRoomId, parseSeq(session.getHandshakeHeaders().getFirst("Last-Seq")),
+                    Collections.emptyList());
 
             System.out.println("WebSocket opened (App/Authenticated): " + session.getId() + ", chatRoomId: " + chatRoomId + ", userId: " + userId);
 
@@ -79,7 +143,7 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
             session.getAttributes().put("authenticated", false);
             System.out.println("WebSocket opened (Unauthenticated - waiting for auth message): "
                     + session.getId() + ", chatRoomId: " + chatRoomId);
-            // 이 시점에는 chatRoomSessions에 추가하지 않습니다.
+            // 이 시점에는 채팅방에 등록하지 않습니다.
             // 첫 인증 메시지 수신 후 handleTextMessage에서 추가할 것입니다.
         }
     }
@@ -91,6 +155,14 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
         Integer chatRoomId = (Integer) session.getAttributes().get("chatRoomId");
         Boolean isAuthenticated = (Boolean) session.getAttributes().get("authenticated");
 
+        // 메시지를 받았으면 살아있는 연결이다
+        presenceService.touch(outbound(session));
+
+        if (Boolean.TRUE.equals(session.getAttributes().get("multiplexed"))) {
+            handleFrame(session, message.getPayload());
+            return;
+        }
+
         if (chatRoomId == null) {
             // chatRoomId가 없는 비정상적인 세션이므로 닫습니다.
             System.err.println("handleTextMessage received message from session without chatRoomId: " + session.getId());
@@ -101,22 +173,27 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
         if (isAuthenticated != null && !isAuthenticated) {
             // 아직 인증되지 않은 세션의 첫 메시지 (인증 시도)
 
-            // 메시지 페이로드를 토큰으로 간주
+            // 메시지 페이로드를 토큰으로 간주 ("Bearer {token}", 재접속이면 "Bearer {token} {마지막으로 받은 seq}")
             String fullPayload = message.getPayload();
-            String token = fullPayload.split(" ")[1]; // "Bearer " 뒤의 실제 토큰 부분만 추출
+            String[] parts = fullPayload.split(" ");
+            String token = parts[1]; // "Bearer " 뒤의 실제 토큰 부분만 추출
             Integer userId = jwtUtil.getUserId(token);
 
-            // 인증 성공
-            session.getAttributes().put("userId", userId);
-            session.getAttributes().put("authenticated", true);
+            // 채팅방 참여자가 아니면 연결을 끊는다
+            if (!chatRoomMembershipCache.isMember(userId, chatRoomId)) {
+                logger.warn("websocket rejected, user {} is not a member of chat room {}", userId, chatRoomId);
+                session.close(CloseStatus.POLICY_VIOLATION);
+                return;
+            }
 
-            // 세션을 chatRoomId와 userId로 chatRoomSessions에 저장
-            chatRoomSessions.computeIfAbsent(chatRoomId, k -> new ConcurrentHashMap<>()).put(session, userId);
+            // 인증 성공
+            authenticate(session, userId);
 
             System.out.println("Session authenticated successfully: " + session.getId() + ", userId: " + userId);
 
-            // 클라이언트에 인증 성공 메시지 전송 (선택 사항)
-            session.sendMessage(new TextMessage("Authentication successful!"));
+            // 세션을 채팅방에 등록하고 (참여자에게 온라인 상태가 전달된다) 클라이언트에 인증 성공 메시지 전송
+            join(session, chatRoomId, parts.length > 2 ? parseSeq(parts[2]) : null,
+                    List.of(new TextMessage("Authentication successful!")));
 
             // 이제 이 세션은 인증되었으므로, 이후 메시지는 일반 채팅 메시지로 처리됩니다.
 
@@ -126,29 +203,16 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
 //            Integer chatRoomId = Integer.parseInt(session.getUri().getPath().split("/")[3]);
             System.out.println("chatRoomId: " + chatRoomId + ", userId: " + userId);
             String content = message.getPayload(); // 클라이언트에서 보낸 메시지 (채팅 글)
-            System.out.println("Chat Message: " + content);
 
-            GJUser sender = userService.getUserById(userId);
-            ChatMessageDTO chatMessageDTO = new ChatMessageDTO();
-            chatMessageDTO.setContent(content);
-            chatMessageDTO.setSender(sender);
-
-            chatMessageService.sendMessage(chatRoomId, userId, content); // 사용자 ID는 JWT에서 추출
-
-            // 채팅방에 있는 모든 사용자에게 메시지 전송
-            Map<WebSocketSession, Integer> sessions = chatRoomSessions.get(chatRoomId);
-            if (sessions != null) {
-                for (WebSocketSession s : sessions.keySet()) {
-                    if (s.isOpen()) {
-                        GJUser user = userService.getUserById(userId);
-                        ChatMessageDTO chatMessageDto = new ChatMessageDTO();
-                        chatMessageDto.setSender(user);
-                        chatMessageDto.setContent(content);
-                        String jsonMessage = objectMapper.writeValueAsString(chatMessageDto);
-                        s.sendMessage(new TextMessage(jsonMessage));
-                    }
-                }
+            // 입력 중 표시 {"type":"typing","typing":true|false}는 저장하지 않고 참여자에게만 전달한다
+            Boolean typing = typingFrame(content);
+            if (typing != null) {
+                presenceService.typing(outbound(session), chatRoomId, typing);
+                return;
             }
+            System.out.println("Chat Message: " + content);
+
+            send(session, chatRoomId, content, new TextMessage("Message not delivered"));
 
 
         } else {
@@ -191,10 +255,247 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
         */
     }
 
+    // 채팅방 단위 연결에서는 채팅 글과 control frame이 같은 텍스트로 오므로,
+    // 정확히 {"type":"typing","typing":true|false} 모양인 경우만 입력 중 표시로 보고 나머지는 모두 채팅 글로 처리한다
+    // (JSON이 아니거나 다른 필드가 있으면 채팅 글. 채팅 글과 구분되는 frame이 필요하면 /ws/user를 쓴다)
+    private Boolean typingFrame(String content) {
+        if (!content.startsWith(TYPING_PREFIX)) {
+            return null;
+        }
+        JsonNode frame;
+        try {
+            frame = objectMapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS).readTree(content);
+        } catch (IOException e) {
+            return null;
+        }
+        JsonNode typing = frame.get("typing");
+        if (frame.size() != 2 || typing == null || !typing.isBoolean()) {
+            return null;
+        }
+        return typing.booleanValue();
+    }
+
+    // /ws/user 연결의 control frame
+    // {"type":"auth","token":"..."}                     Authorization 헤더로 인증하지 않았으면 첫 frame
+    // {"type":"subscribe","chatRoomId":1,"lastSeq":42}  lastSeq는 재접속할 때만
+    // {"type":"unsubscribe","chatRoomId":1}
+    // {"type":"message","chatRoomId":1,"content":"..."}
+    // {"type":"typing","chatRoomId":1,"typing":true}
+    // 서버가 보내는 채팅 메시지와 접속 상태 이벤트에는 chatRoomId가 들어 있다
+    private void handleFrame(WebSocketSession session, String payload) throws IOException {
+        OutboundSession outbound = outbound(session);
+        JsonNode frame;
+        try {
+            frame = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            outbound.sendMessage(frame("error", null, "malformed frame"));
+            return;
+        }
+        String type = frame.path("type").asText();
+
+        if (!Boolean.TRUE.equals(session.getAttributes().get("authenticated"))) {
+            if (!"auth".equals(type)) {
+                session.close(CloseStatus.POLICY_VIOLATION);
+                return;
+            }
+            Integer userId = verifiedUserId(frame.path("token").asText());
+            if (userId == null) {
+                rejectInvalidToken(session);
+                return;
+            }
+            authenticate(session, userId);
+            outbound.sendMessage(frame("authenticated", null, null));
+            return;
+        }
+
+        Integer userId = (Integer) session.getAttributes().get("userId");
+        if (!frame.hasNonNull("chatRoomId")) {
+            outbound.sendMessage(frame("error", null, "chatRoomId required"));
+            return;
+        }
+        Integer chatRoomId = frame.get("chatRoomId").asInt();
+        switch (type) {
+            case "subscribe":
+                if (!chatRoomMembershipCache.isMember(userId, chatRoomId)) {
+                    outbound.sendMessage(frame("error", chatRoomId, "forbidden"));
+                } else if (!presenceService.isJoined(outbound, chatRoomId)
+                        && presenceService.roomCount(outbound) >= maxRoomsPerSession) {
+                    outbound.sendMessage(frame("error", chatRoomId, "too many subscriptions"));
+                } else {
+                    join(session, chatRoomId, frame.hasNonNull("lastSeq") ? frame.get("lastSeq").asLong() : null,
+                            List.of(frame("subscribed", chatRoomId, null)));
+                }
+                break;
+            case "unsubscribe":
+                presenceService.leave(outbound, chatRoomId);
+                outbound.sendMessage(frame("unsubscribed", chatRoomId, null));
+                break;
+            case "message":
+                if (!presenceService.isJoined(outbound, chatRoomId)) {
+                    outbound.sendMessage(frame("error", chatRoomId, "not subscribed"));
+                } else {
+                    send(session, chatRoomId, frame.path("content").asText(), frame("error", chatRoomId, "not delivered"));
+                }
+                break;
+            case "typing":
+                presenceService.typing(outbound, chatRoomId, frame.path("typing").asBoolean());
+                break;
+            default:
+                outbound.sendMessage(frame("error", chatRoomId, "unknown type"));
+        }
+    }
+
+    private TextMessage frame(String type, Integer chatRoomId, String reason) throws JsonProcessingException {
+        ObjectNode frame = objectMapper.createObjectNode();
+        frame.put("type", type);
+        if (chatRoomId != null) {
+            frame.put("chatRoomId", chatRoomId);
+        }
+        if (reason != null) {
+            frame.put("reason", reason);
+        }
+        return new TextMessage(objectMapper.writeValueAsString(frame));
+    }
+
+    // 토큰이 위조되었거나 만료되었으면 null
+    private Integer verifiedUserId(String token) {
+        try {
+            return jwtUtil.getUserId(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // 인증 실패를 서버 오류(1011)와 구분할 수 있도록 error frame을 보내고 POLICY_VIOLATION으로 끊는다
+    private void rejectInvalidToken(WebSocketSession session) throws IOException {
+        logger.warn("websocket rejected, invalid token: {}", session.getId());
+        outbound(session).sendAndClose(frame("error", null, "invalid token"), CloseStatus.POLICY_VIOLATION);
+    }
+
+    // 세션의 Attributes에 userId와 인증 상태 저장
+    private void authenticate(WebSocketSession session, Integer userId) {
+        session.getAttributes().put("userId", userId);
+        session.getAttributes().put("authenticated", true);
+        // 보낸 사람 정보는 세션당 한번만 조회해 둔다
+        session.getAttributes().put("user", userService.getUserById(userId));
+        presenceService.authenticate(outbound(session), userId);
+    }
+
+    // 저장 큐에 넣고, DB에 저장된 뒤에 채팅방에 전송한다 (저장 스레드가 아닌 ChatMessageWriter의 완료 스레드에서 실행됨)
+    // 보낸 사람도 같은 메시지를 받으므로 저장 완료 확인(ack) 역할을 한다
+    private void send(WebSocketSession session, Integer chatRoomId, String content, TextMessage onFailure) {
+        Integer userId = (Integer) session.getAttributes().get("userId");
+        GJUser sender = (GJUser) session.getAttributes().get("user");
+        chatMessageService.sendMessage(chatRoomId, sender, content)
+                .whenComplete((saved, error) -> {
+                    if (error != null) {
+                        logger.warn("chat message not saved, chatRoomId: {}, userId: {}", chatRoomId, userId, error);
+                        outbound(session).sendMessage(onFailure);
+                    } else {
+                        broadcast(saved);
+                    }
+                });
+    }
+
+    // 세션을 채팅방에 등록하고 first를 보낸다
+    // lastSeq가 있으면 그 뒤에 놓친 메시지를 보낸 다음 실시간 전송으로 넘어간다
+    // 등록 이후 들어온 실시간 메시지는 놓친 메시지 뒤에 보내며, 겹치는 메시지는 클라이언트가 seq로 거른다
+    private void join(WebSocketSession session, Integer chatRoomId, Long lastSeq, List<TextMessage> first) {
+        OutboundSession outbound = outbound(session);
+        if (lastSeq == null) {
+            presenceService.join(outbound, chatRoomId);
+            for (TextMessage textMessage : first) {
+                outbound.sendMessage(textMessage);
+            }
+            return;
+        }
+        outbound.pause();
+        List<TextMessage> messages = new ArrayList<>(first);
+        try {
+            presenceService.join(outbound, chatRoomId);
+            messages.addAll(missedMessages(chatRoomId, lastSeq));
+        } finally {
+            outbound.resume(messages);
+        }
+    }
+
+    private List<TextMessage> missedMessages(Integer chatRoomId, long lastSeq) {
+        List<TextMessage> messages = new ArrayList<>();
+        try {
+            List<ChatMessageDTO> missed = chatMessageService.getMessagesAfterSeq(chatRoomId, lastSeq, resumeMaxMessages);
+            if (missed != null) {
+                for (ChatMessageDTO chatMessageDTO : missed) {
+                    messages.add(new TextMessage(objectMapper.writeValueAsString(chatMessageDTO)));
+                }
+                return messages;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("missed chat messages could not be loaded, chatRoomId: {}", chatRoomId, e);
+        }
+        // 놓친 메시지가 너무 많으면 클라이언트가 REST로 채팅 내역을 다시 읽도록 알린다
+        messages.clear();
+        messages.add(new TextMessage("{\"type\":\"resync\",\"chatRoomId\":" + chatRoomId + "}"));
+        return messages;
+    }
+
+    private Long parseSeq(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // 저장된 메시지를 채팅방 세션 모두에게 보낸다 (다른 서버에 연결된 세션 포함)
+    // JSON은 한번만 만들어서 버스에 발행한다
+    void broadcast(ChatMessageDTO chatMessageDTO) {
+        try {
+            roomMessageBus.publish(chatMessageDTO.getChatRoomId(), objectMapper.writeValueAsString(chatMessageDTO));
+        } catch (IOException e) {
+            logger.error("chat message serialization failed, id: {}", chatMessageDTO.getId(), e);
+        } catch (RuntimeException e) {
+            logger.error("chat message publish failed, id: {}", chatMessageDTO.getId(), e);
+        }
+    }
+
+    // 버스에서 받은 메시지를 이 서버에 연결된 채팅방의 열린 세션 모두에게 보낸다
+    // 모든 세션에 같은 TextMessage를 보내며, 세션별 큐에 넣기만 하므로 느린 세션이 있어도 다른 세션으로의 전송이 늦어지지 않는다
+    void deliver(Integer chatRoomId, String payload) {
+        Collection<OutboundSession> sessions = presenceService.sessions(chatRoomId);
+        if (sessions.isEmpty()) {
+            return;
+        }
+        TextMessage textMessage = new TextMessage(payload);
+        for (OutboundSession s : sessions) {
+            if (s.isOpen()) {
+                s.sendMessage(textMessage);
+            }
+        }
+    }
+
+    // heartbeat ping에 대한 응답
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        OutboundSession outbound = outbound(session);
+        if (outbound != null) {
+            presenceService.touch(outbound);
+        }
+    }
+
+    private OutboundSession outbound(WebSocketSession session) {
+        return (OutboundSession) session.getAttributes().get("outbound");
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        Integer chatRoomId = Integer.parseInt(session.getUri().getPath().split("/")[3]);
-        chatRoomSessions.get(chatRoomId).remove(session); // 세션 제거
+        Integer chatRoomId = (Integer) session.getAttributes().get("chatRoomId");
+        OutboundSession outbound = outbound(session);
+        if (outbound != null) {
+            presenceService.disconnect(outbound); // 세션 제거
+        }
         System.out.println("WebSocket closed: " + session.getId() + ", chatRoomId: " + chatRoomId);
     }
 }
@@ -0,0 +1,40 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 서버 한 대일 때 사용, 발행한 스레드에서 바로 전달한다
+@Component
+@ConditionalOnProperty(name = "gjmarket.chat.bus", havingValue = "local", matchIfMissing = true)
+public class LocalRoomMessageBus implements RoomMessageBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Listener> eventListeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Integer chatRoomId, String payload) {
+        for (Listener listener : listeners) {
+            listener.onMessage(chatRoomId, payload);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void publishEvent(Integer chatRoomId, String payload) {
+        for (Listener listener : eventListeners) {
+            listener.onMessage(chatRoomId, payload);
+        }
+    }
+
+    @Override
+    public void subscribeEvents(Listener listener) {
+        eventListeners.add(listener);
+    }
+}
@@ -0,0 +1,269 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+// 세션마다 보낼 메시지를 제한된 크기의 큐에 쌓아두고, 공용 전송 스레드에서 순서대로 보낸다.
+// sendMessage는 큐에 넣기만 하므로 느린 클라이언트가 있어도 호출한 스레드(다른 세션으로의 전송)는 막히지 않는다.
+// 한 세션에는 한번에 하나의 스레드만 보내므로 메시지가 섞이지 않는다.
+public class OutboundSession extends WebSocketSessionDecorator {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    public static final CloseStatus TOO_SLOW = CloseStatus.POLICY_VIOLATION.withReason("too slow");
+
+    // 큐가 가득 찼을 때의 처리
+    public enum OverflowPolicy {
+        // 가장 오래된 메시지를 버린다
+        DROP_OLDEST,
+        // 연결을 끊는다 (클라이언트는 다시 접속해서 이전 메시지를 조회)
+        CLOSE
+    }
+
+    private final Deque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+    private final int capacity;
+    private final long sendTimeLimitNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final Executor closer;
+    private final IntConsumer stalledSenders;
+    private final AtomicInteger totalQueued;
+    private final Counter dropped;
+    private final Counter closedSlow;
+
+    // 전송 작업이 실행 중이거나 실행 대기 중인지 (queue의 lock으로 보호)
+    private boolean draining;
+    private boolean closing;
+    // 재접속 후 놓친 메시지를 먼저 보내기 위해 전송을 잠시 멈춘 상태 (queue의 lock으로 보호)
+    private boolean paused;
+    // 큐에 남은 메시지를 모두 보낸 뒤 연결을 끊을 상태 (queue의 lock으로 보호)
+    private CloseStatus closeAfterSent;
+    // 현재 전송을 시작한 시간, 보내는 중이 아니면 0
+    private volatile long sendStartedAt;
+    private final Object sendLock = new Object();
+    // 현재 전송이 제한 시간을 넘겨 전송 스레드 하나를 대신할 스레드를 빌렸는지 (sendLock으로 보호)
+    private boolean stalled;
+
+    OutboundSession(WebSocketSession delegate, int capacity, long sendTimeLimitMs, OverflowPolicy overflowPolicy,
+                    Executor executor, Executor closer, IntConsumer stalledSenders,
+                    AtomicInteger totalQueued, Counter dropped, Counter closedSlow) {
+        super(delegate);
+        this.capacity = capacity;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.closer = closer;
+        this.stalledSenders = stalledSenders;
+        this.totalQueued = totalQueued;
+        this.dropped = dropped;
+        this.closedSlow = closedSlow;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        boolean startDrain = false;
+        synchronized (queue) {
+            if (closing || closeAfterSent != null) {
+                dropped.increment();
+                return;
+            }
+            if (queue.size() >= capacity) {
+                if (overflowPolicy == OverflowPolicy.CLOSE) {
+                    closeTooSlow();
+                    dropped.increment();
+                    return;
+                }
+                queue.pollFirst();
+                totalQueued.decrementAndGet();
+                dropped.increment();
+            }
+            queue.addLast(message);
+            totalQueued.incrementAndGet();
+            if (!draining && !paused) {
+                draining = true;
+                startDrain = true;
+            }
+        }
+        if (startDrain) {
+            scheduleDrain();
+        }
+    }
+
+    // 이후 sendMessage로 들어온 메시지는 resume할 때까지 큐에만 쌓는다
+    void pause() {
+        synchronized (queue) {
+            paused = true;
+        }
+    }
+
+    // first를 큐에 쌓인 메시지보다 먼저 보내고 전송을 다시 시작한다 (first는 큐 크기 제한을 받지 않는다)
+    void resume(List<? extends WebSocketMessage<?>> first) {
+        boolean startDrain = false;
+        synchronized (queue) {
+            paused = false;
+            if (closing) {
+                return;
+            }
+            for (int i = first.size() - 1; i >= 0; i--) {
+                queue.addFirst(first.get(i));
+            }
+            totalQueued.addAndGet(first.size());
+            if (!draining && !queue.isEmpty()) {
+                draining = true;
+                startDrain = true;
+            }
+        }
+        if (startDrain) {
+            scheduleDrain();
+        }
+    }
+
+    // last까지 보낸 뒤 연결을 끊는다 (인증 실패처럼 끊는 이유를 클라이언트에 알려야 하는 경우)
+    // 이후 sendMessage로 들어온 메시지는 버린다
+    void sendAndClose(WebSocketMessage<?> last, CloseStatus status) {
+        sendMessage(last);
+        synchronized (queue) {
+            if (closing || closeAfterSent != null) {
+                return;
+            }
+            if (draining) {
+                closeAfterSent = status;
+            } else {
+                closeInternal(status);
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    // 한 메시지를 보내는 데 제한 시간을 넘겼으면 연결을 끊는다 (주기적으로 호출됨)
+    // 막힌 전송 스레드는 연결이 끊기거나 전송 제한 시간이 지나야 돌아오므로, 그동안 쓸 전송 스레드를 하나 늘린다
+    boolean checkSendTimeLimit() {
+        long startedAt = sendStartedAt;
+        if (startedAt != 0 && System.nanoTime() - startedAt > sendTimeLimitNanos) {
+            boolean borrow;
+            synchronized (sendLock) {
+                borrow = !stalled && sendStartedAt == startedAt;
+                stalled |= borrow;
+            }
+            if (borrow) {
+                stalledSenders.accept(1);
+            }
+            synchronized (queue) {
+                closeTooSlow();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void scheduleDrain() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 서버 종료 중
+            synchronized (queue) {
+                draining = false;
+                totalQueued.addAndGet(-queue.size());
+                queue.clear();
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> message;
+            synchronized (queue) {
+                message = paused ? null : queue.pollFirst();
+                if (message == null || closing) {
+                    draining = false;
+                    if (message == null && !paused && closeAfterSent != null) {
+                        closeInternal(closeAfterSent);
+                    }
+                    return;
+                }
+                totalQueued.decrementAndGet();
+            }
+
+            if (!isOpen()) {
+                continue;
+            }
+            sendStartedAt = System.nanoTime();
+            try {
+                getDelegate().sendMessage(message);
+            } catch (IOException | IllegalStateException e) {
+                logger.warn("websocket send failed: {}", getId(), e);
+            } finally {
+                boolean giveBack;
+                synchronized (sendLock) {
+                    sendStartedAt = 0;
+                    giveBack = stalled;
+                    stalled = false;
+                }
+                if (giveBack) {
+                    stalledSenders.accept(-1);
+                }
+            }
+        }
+    }
+
+    // 보내지 않은 메시지는 버리고 종료 스레드에서 연결을 끊는다 (heartbeat 시간 초과 등)
+    void closeInBackground(CloseStatus status) {
+        synchronized (queue) {
+            closeInternal(status);
+        }
+    }
+
+    // queue의 lock을 잡은 상태에서 호출
+    private void closeTooSlow() {
+        if (closing) {
+            return;
+        }
+        closedSlow.increment();
+        logger.warn("closing slow websocket session: {}", getId());
+        closeInternal(TOO_SLOW);
+    }
+
+    // queue의 lock을 잡은 상태에서 호출
+    private void closeInternal(CloseStatus status) {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        totalQueued.addAndGet(-queue.size());
+        queue.clear();
+        // 전송이 막혀 있는 경우 close도 오래 걸릴 수 있으므로 호출한 스레드에서 하지 않고,
+        // 막힌 전송 뒤에 줄 서지 않도록 전송 스레드가 아닌 종료 스레드에서 한다 (연결이 끊기면 막힌 전송도 풀린다)
+        try {
+            closer.execute(() -> closeQuietly(status));
+        } catch (RejectedExecutionException e) {
+            closeQuietly(status);
+        }
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("websocket close failed: {}", getId(), e);
+        }
+    }
+}
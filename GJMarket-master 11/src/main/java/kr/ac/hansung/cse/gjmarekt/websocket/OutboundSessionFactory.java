@@ -0,0 +1,134 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 웹소켓 세션을 OutboundSession으로 감싸고, 전송 스레드와 설정, 지표를 관리한다.
+@Component
+public class OutboundSessionFactory {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final int capacity;
+    private final long sendTimeLimitMs;
+    private final OutboundSession.OverflowPolicy overflowPolicy;
+    private final int senderThreads;
+    private final ThreadPoolExecutor executor;
+    // 연결 종료는 막힌 전송 뒤에 줄 서지 않도록 전송 스레드와 따로 실행한다
+    private final ExecutorService closer;
+    // 제한 시간을 넘겨 막혀 있는 전송 스레드 수 (this의 lock으로 보호)
+    private int stalledSenders;
+
+    private final Set<OutboundSession> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalQueued = new AtomicInteger();
+    private final Counter dropped;
+    private final Counter closedSlow;
+
+    public OutboundSessionFactory(MeterRegistry meterRegistry,
+                                  @Value("${gjmarket.ws.outbound.sender-threads:4}") int senderThreads,
+                                  @Value("${gjmarket.ws.outbound.capacity:256}") int capacity,
+                                  @Value("${gjmarket.ws.outbound.send-time-limit-ms:10000}") long sendTimeLimitMs,
+                                  @Value("${gjmarket.ws.outbound.overflow:drop-oldest}") String overflowPolicy) {
+        this.senderThreads = senderThreads;
+        this.capacity = capacity;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.overflowPolicy = OutboundSession.OverflowPolicy.valueOf(
+                overflowPolicy.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 전송 작업은 세션당 최대 하나이므로 큐 크기는 세션 수를 넘지 않는다
+        this.executor = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ws-sender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        AtomicInteger closerNumber = new AtomicInteger();
+        this.closer = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ws-closer-" + closerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.dropped = meterRegistry.counter("gjmarket.ws.outbound.dropped");
+        this.closedSlow = meterRegistry.counter("gjmarket.ws.outbound.closed.slow");
+        meterRegistry.gauge("gjmarket.ws.outbound.queue.depth", totalQueued);
+        meterRegistry.gauge("gjmarket.ws.outbound.sessions", sessions, Set::size);
+    }
+
+    public OutboundSession wrap(WebSocketSession session) {
+        limitBlockingSend(session);
+        OutboundSession outbound = new OutboundSession(session, capacity, sendTimeLimitMs, overflowPolicy,
+                executor, closer, this::adjustStalledSenders, totalQueued, dropped, closedSlow);
+        sessions.add(outbound);
+        return outbound;
+    }
+
+    // Tomcat은 블로킹 전송에 이 시간이 지나면 예외를 던지므로, 막힌 전송 스레드가 결국 풀려난다
+    private void limitBlockingSend(WebSocketSession session) {
+        if (WebSocketSessionDecorator.unwrap(session) instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session endpoint = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (endpoint != null) {
+                endpoint.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeLimitMs);
+            }
+        }
+    }
+
+    // 막힌 전송 스레드 수만큼 전송 스레드를 늘려, 다른 세션은 항상 senderThreads개의 스레드로 보낼 수 있게 한다
+    synchronized void adjustStalledSenders(int delta) {
+        stalledSenders += delta;
+        int size = senderThreads + stalledSenders;
+        if (delta > 0) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+
+    public void remove(OutboundSession outbound) {
+        sessions.remove(outbound);
+    }
+
+    // 전송이 멈춘 세션을 찾아 끊는다
+    @Scheduled(fixedDelayString = "${gjmarket.ws.outbound.check-interval-ms:1000}")
+    public void checkSendTimeLimits() {
+        for (OutboundSession outbound : sessions) {
+            if (outbound.checkSendTimeLimit()) {
+                sessions.remove(outbound);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closer.shutdown();
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("websocket senders did not finish, {} tasks dropped", executor.shutdownNow().size());
+        }
+        closer.awaitTermination(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,341 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatPresenceDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// 웹소켓 세션 목록과 접속 상태(온라인, 입력 중)를 관리한다.
+// 세션은 사용자별, 채팅방별로 찾을 수 있고, 한 세션이 여러 채팅방에 들어갈 수 있다 (/ws/user 연결).
+// 주기적으로 ping을 보내고, 제한 시간 동안 아무것도 받지 못한 세션(close 없이 끊긴 모바일 연결 등)은 정리한다.
+// 세션이 없는 채팅방/사용자는 목록에서 지우므로 메모리는 연결된 세션과 구독 수에만 비례한다.
+// 접속 상태는 저장하지 않고 RoomMessageBus 이벤트로 채팅방 참여자에게 바로 보낸다.
+@Component
+public class PresenceService {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    public static final CloseStatus HEARTBEAT_TIMEOUT = CloseStatus.SESSION_NOT_RELIABLE.withReason("heartbeat timeout");
+
+    private final RoomMessageBus roomMessageBus;
+    private final ObjectMapper objectMapper;
+    private final OutboundSessionFactory outboundSessionFactory;
+    // 이 시간 동안 pong이나 메시지를 받지 못하면 끊는다
+    private final long timeoutNanos;
+    // 입력 중 이벤트를 다시 보내는 최소 간격, 이 시간의 두 배 동안 갱신이 없으면 입력을 멈춘 것으로 본다
+    private final long typingIntervalNanos;
+    // 이 서버의 번호, 자기가 보낸 이벤트를 구분한다
+    private final int nodeId;
+
+    // 연결된 모든 세션 (인증 전 포함)
+    private final Map<OutboundSession, Member> members = new ConcurrentHashMap<>();
+    // 채팅방 -> 그 채팅방에 들어간 세션
+    private final Map<Integer, Set<OutboundSession>> rooms = new ConcurrentHashMap<>();
+    // 사용자 -> 인증된 세션
+    private final Map<Integer, Set<OutboundSession>> users = new ConcurrentHashMap<>();
+
+    private final Counter reaped;
+
+    public PresenceService(RoomMessageBus roomMessageBus,
+                           ObjectMapper objectMapper,
+                           OutboundSessionFactory outboundSessionFactory,
+                           MeterRegistry meterRegistry,
+                           @Value("${gjmarket.ws.heartbeat.timeout-ms:60000}") long timeoutMs,
+                           @Value("${gjmarket.ws.typing.interval-ms:3000}") long typingIntervalMs,
+                           @Value("${gjmarket.node-id:0}") int nodeId) {
+        this.roomMessageBus = roomMessageBus;
+        this.objectMapper = objectMapper;
+        this.outboundSessionFactory = outboundSessionFactory;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.typingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(typingIntervalMs);
+        this.nodeId = nodeId;
+
+        this.reaped = meterRegistry.counter("gjmarket.ws.presence.reaped");
+        meterRegistry.gauge("gjmarket.ws.presence.sessions", members, Map::size);
+        meterRegistry.gauge("gjmarket.ws.presence.rooms", rooms, Map::size);
+        meterRegistry.gauge("gjmarket.ws.presence.users", users, Map::size);
+
+        roomMessageBus.subscribeEvents(this::onEvent);
+    }
+
+    // 연결 직후 호출 (아직 인증 전)
+    public void connect(OutboundSession session) {
+        members.put(session, new Member());
+    }
+
+    // 인증이 끝나면 호출
+    public void authenticate(OutboundSession session, Integer userId) {
+        Member member = members.get(session);
+        if (member == null) {
+            return;
+        }
+        member.userId = userId;
+        member.lastSeen = System.nanoTime();
+        users.compute(userId, (k, sessions) -> add(sessions, session));
+    }
+
+    // 인증된 세션을 채팅방에 넣고, 이 서버에서 그 사용자의 첫 세션이면 온라인을 알린다
+    // 이 서버의 다른 접속자 상태는 들어온 세션에 바로 보낸다 (다른 서버의 접속자는 그 서버가 답한다)
+    public void join(OutboundSession session, Integer chatRoomId) {
+        Member member = members.get(session);
+        if (member == null || member.userId == null || member.rooms.putIfAbsent(chatRoomId, 0L) != null) {
+            return;
+        }
+        boolean first = !isLocallyOnline(chatRoomId, member.userId, session);
+        rooms.compute(chatRoomId, (k, sessions) -> add(sessions, session));
+        if (first) {
+            publishPresence(chatRoomId, member.userId, true, false);
+        }
+        for (Integer userId : onlineUsers(chatRoomId)) {
+            if (!userId.equals(member.userId)) {
+                send(session, event(ChatPresenceDTO.PRESENCE, chatRoomId, userId, true, null, true));
+            }
+        }
+    }
+
+    // 채팅방에서 나가고, 이 서버에서 그 사용자의 마지막 세션이면 오프라인을 알린다
+    public void leave(OutboundSession session, Integer chatRoomId) {
+        Member member = members.get(session);
+        if (member != null) {
+            leave(session, member, chatRoomId);
+        }
+    }
+
+    // 연결이 끝났을 때 호출, 들어가 있던 채팅방에서 모두 나간다
+    public void disconnect(OutboundSession session) {
+        outboundSessionFactory.remove(session);
+        Member member = members.remove(session);
+        if (member == null || member.userId == null) {
+            return;
+        }
+        for (Integer chatRoomId : member.rooms.keySet()) {
+            leave(session, member, chatRoomId);
+        }
+        users.computeIfPresent(member.userId, (k, sessions) -> remove(sessions, session));
+    }
+
+    // 클라이언트로부터 무언가(메시지, pong)를 받았을 때 호출
+    public void touch(OutboundSession session) {
+        Member member = session != null ? members.get(session) : null;
+        if (member != null) {
+            member.lastSeen = System.nanoTime();
+        }
+    }
+
+    // 입력 중 상태 변경, 같은 상태는 typingInterval마다 한번만 다시 보낸다
+    public void typing(OutboundSession session, Integer chatRoomId, boolean typing) {
+        Member member = members.get(session);
+        Long lastTypingAt = member != null ? member.rooms.get(chatRoomId) : null;
+        if (lastTypingAt == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (typing) {
+            if (lastTypingAt != 0 && now - lastTypingAt < typingIntervalNanos) {
+                return;
+            }
+            member.rooms.replace(chatRoomId, now);
+        } else {
+            if (lastTypingAt == 0) {
+                return;
+            }
+            member.rooms.replace(chatRoomId, 0L);
+        }
+        publish(event(ChatPresenceDTO.TYPING, chatRoomId, member.userId, null, typing, null));
+    }
+
+    public boolean isJoined(OutboundSession session, Integer chatRoomId) {
+        Member member = members.get(session);
+        return member != null && member.rooms.containsKey(chatRoomId);
+    }
+
+    // 세션이 들어가 있는 채팅방 수
+    public int roomCount(OutboundSession session) {
+        Member member = members.get(session);
+        return member != null ? member.rooms.size() : 0;
+    }
+
+    // 이 서버에 연결된 채팅방의 세션
+    public Collection<OutboundSession> sessions(Integer chatRoomId) {
+        Set<OutboundSession> sessions = rooms.get(chatRoomId);
+        return sessions != null ? sessions : Collections.emptySet();
+    }
+
+    // 이 서버에 연결된 사용자의 세션
+    public Collection<OutboundSession> sessionsOf(Integer userId) {
+        Set<OutboundSession> sessions = users.get(userId);
+        return sessions != null ? sessions : Collections.emptySet();
+    }
+
+    // 살아있는 세션에는 ping을 보내고, 응답이 없는 세션은 끊고 목록에서 지운다
+    @Scheduled(fixedDelayString = "${gjmarket.ws.heartbeat.interval-ms:25000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        PingMessage ping = new PingMessage();
+        for (Map.Entry<OutboundSession, Member> entry : members.entrySet()) {
+            OutboundSession session = entry.getKey();
+            Member member = entry.getValue();
+            if (!session.isOpen() || now - member.lastSeen > timeoutNanos) {
+                // afterConnectionClosed가 호출되지 않는 경우가 있으므로 여기서 직접 지운다
+                disconnect(session);
+                session.closeInBackground(HEARTBEAT_TIMEOUT);
+                reaped.increment();
+                continue;
+            }
+            session.sendMessage(ping);
+        }
+    }
+
+    // 입력 중 이벤트가 typingInterval의 두 배 동안 갱신되지 않으면 입력을 멈춘 것으로 알린다
+    // heartbeat 주기와 따로 짧게 확인해야 입력 중 표시가 오래 남지 않는다
+    @Scheduled(fixedDelayString = "${gjmarket.ws.typing.check-interval-ms:1000}")
+    public void expireTyping() {
+        long now = System.nanoTime();
+        for (Map.Entry<OutboundSession, Member> entry : members.entrySet()) {
+            for (Map.Entry<Integer, Long> room : entry.getValue().rooms.entrySet()) {
+                if (room.getValue() != 0 && now - room.getValue() > 2 * typingIntervalNanos) {
+                    typing(entry.getKey(), room.getKey(), false);
+                }
+            }
+        }
+    }
+
+    // 버스로 받은 이벤트를 이 서버의 채팅방 세션에 보낸다
+    // 다른 서버의 새 접속 이벤트에는 이 서버의 접속자를 다시 알려서, 새로 들어온 사용자도 상대의 상태를 알 수 있게 한다
+    private void onEvent(Integer chatRoomId, String payload) {
+        Set<OutboundSession> sessions = rooms.get(chatRoomId);
+        if (sessions == null || sessions.isEmpty()) {
+            return;
+        }
+        TextMessage textMessage = new TextMessage(payload);
+        for (OutboundSession s : sessions) {
+            if (s.isOpen()) {
+                s.sendMessage(textMessage);
+            }
+        }
+
+        ChatPresenceDTO event;
+        try {
+            event = objectMapper.readValue(payload, ChatPresenceDTO.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("presence event could not be read, chatRoomId: {}", chatRoomId, e);
+            return;
+        }
+        if (!ChatPresenceDTO.PRESENCE.equals(event.getType()) || Boolean.TRUE.equals(event.getReply())
+                || !Boolean.TRUE.equals(event.getOnline()) || Integer.valueOf(nodeId).equals(event.getNode())) {
+            return;
+        }
+        Set<Integer> online = onlineUsers(chatRoomId);
+        online.remove(event.getUserId());
+        for (Integer userId : online) {
+            publishPresence(chatRoomId, userId, true, true);
+        }
+    }
+
+    // 이 서버에서 채팅방에 들어가 있는 사용자
+    private Set<Integer> onlineUsers(Integer chatRoomId) {
+        Set<Integer> online = new HashSet<>();
+        for (OutboundSession s : sessions(chatRoomId)) {
+            Member member = members.get(s);
+            if (member != null && member.userId != null) {
+                online.add(member.userId);
+            }
+        }
+        return online;
+    }
+
+    private void leave(OutboundSession session, Member member, Integer chatRoomId) {
+        if (member.rooms.remove(chatRoomId) == null) {
+            return;
+        }
+        // 비면 채팅방 항목도 지운다
+        rooms.computeIfPresent(chatRoomId, (k, sessions) -> remove(sessions, session));
+        if (!isLocallyOnline(chatRoomId, member.userId, session)) {
+            publishPresence(chatRoomId, member.userId, false, false);
+        }
+    }
+
+    // 이 서버에서 except 말고 그 사용자의 다른 세션이 채팅방에 들어가 있는지
+    private boolean isLocallyOnline(Integer chatRoomId, Integer userId, OutboundSession except) {
+        for (OutboundSession s : sessionsOf(userId)) {
+            Member member = members.get(s);
+            if (s != except && member != null && member.rooms.containsKey(chatRoomId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<OutboundSession> add(Set<OutboundSession> sessions, OutboundSession session) {
+        if (sessions == null) {
+            sessions = ConcurrentHashMap.newKeySet();
+        }
+        sessions.add(session);
+        return sessions;
+    }
+
+    // 비면 null을 반환해서 Map에서 항목을 지운다
+    private static Set<OutboundSession> remove(Set<OutboundSession> sessions, OutboundSession session) {
+        sessions.remove(session);
+        return sessions.isEmpty() ? null : sessions;
+    }
+
+    private void publishPresence(Integer chatRoomId, Integer userId, boolean online, boolean reply) {
+        publish(event(ChatPresenceDTO.PRESENCE, chatRoomId, userId, online, null, reply ? true : null));
+    }
+
+    private ChatPresenceDTO event(String type, Integer chatRoomId, Integer userId, Boolean online, Boolean typing,
+                                  Boolean reply) {
+        ChatPresenceDTO event = new ChatPresenceDTO();
+        event.setType(type);
+        event.setChatRoomId(chatRoomId);
+        event.setUserId(userId);
+        event.setOnline(online);
+        event.setTyping(typing);
+        event.setReply(reply);
+        event.setNode(nodeId);
+        return event;
+    }
+
+    private void send(OutboundSession session, ChatPresenceDTO event) {
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            logger.error("presence event serialization failed", e);
+        }
+    }
+
+    private void publish(ChatPresenceDTO event) {
+        try {
+            roomMessageBus.publishEvent(event.getChatRoomId(), objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            logger.error("presence event serialization failed", e);
+        } catch (RuntimeException e) {
+            logger.warn("presence event publish failed, chatRoomId: {}", event.getChatRoomId(), e);
+        }
+    }
+
+    // 세션 하나의 상태
+    private static class Member {
+        private volatile Integer userId;
+        private volatile long lastSeen = System.nanoTime();
+        // 들어가 있는 채팅방 -> 입력 중 이벤트를 마지막으로 보낸 시간 (입력 중이 아니면 0)
+        private final Map<Integer, Long> rooms = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,102 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 여러 서버일 때 사용, Redis pub/sub 채널로 모든 서버에 전달한다 (채팅 메시지와 이벤트는 채널을 나눈다)
+// 발행한 서버도 구독 중이므로 자기 세션에도 이 채널을 통해 전달된다.
+// 메시지 형식: "{chatRoomId}\n{payload}"
+@Component
+@ConditionalOnProperty(name = "gjmarket.chat.bus", havingValue = "redis")
+public class RedisRoomMessageBus implements RoomMessageBus {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final String channel;
+    private final String eventChannel;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Listener> eventListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter published;
+    private final Counter received;
+
+    public RedisRoomMessageBus(RedisConnectionFactory connectionFactory,
+                               MeterRegistry meterRegistry,
+                               @Value("${gjmarket.chat.bus.channel:gjmarket:chat}") String channel,
+                               @Value("${gjmarket.chat.bus.event-channel:gjmarket:chat:events}") String eventChannel) {
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.channel = channel;
+        this.eventChannel = eventChannel;
+        this.published = meterRegistry.counter("gjmarket.chat.bus.published");
+        this.received = meterRegistry.counter("gjmarket.chat.bus.received");
+
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(connectionFactory);
+        // 받은 메시지는 세션 큐에 넣기만 하므로 구독 스레드에서 바로 처리한다 (채팅방 내 순서 유지)
+        this.container.setTaskExecutor(new SyncTaskExecutor());
+        this.container.addMessageListener((message, pattern) ->
+                dispatch(new String(message.getBody(), StandardCharsets.UTF_8), listeners), new ChannelTopic(channel));
+        this.container.addMessageListener((message, pattern) ->
+                dispatch(new String(message.getBody(), StandardCharsets.UTF_8), eventListeners), new ChannelTopic(eventChannel));
+        this.container.afterPropertiesSet();
+        this.container.start();
+    }
+
+    @Override
+    public void publish(Integer chatRoomId, String payload) {
+        redisTemplate.convertAndSend(channel, chatRoomId + "\n" + payload);
+        published.increment();
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void publishEvent(Integer chatRoomId, String payload) {
+        redisTemplate.convertAndSend(eventChannel, chatRoomId + "\n" + payload);
+        published.increment();
+    }
+
+    @Override
+    public void subscribeEvents(Listener listener) {
+        eventListeners.add(listener);
+    }
+
+    private void dispatch(String message, List<Listener> targets) {
+        int separator = message.indexOf('\n');
+        if (separator < 0) {
+            logger.warn("malformed chat bus message ignored");
+            return;
+        }
+        Integer chatRoomId = Integer.valueOf(message.substring(0, separator));
+        String payload = message.substring(separator + 1);
+        received.increment();
+        for (Listener listener : targets) {
+            listener.onMessage(chatRoomId, payload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        container.stop();
+        container.destroy();
+    }
+}
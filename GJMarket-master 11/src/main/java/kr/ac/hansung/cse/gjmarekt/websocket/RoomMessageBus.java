@@ -0,0 +1,21 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+// 저장된 채팅 메시지를 모든 서버에 전달하는 통로
+// 메시지는 한번만 발행하고, 각 서버는 받은 메시지를 자기에게 연결된 채팅방 세션에 보낸다.
+// gjmarket.chat.bus 설정으로 구현을 고른다 (local: 서버 한 대, redis: 여러 대)
+public interface RoomMessageBus {
+
+    // payload는 클라이언트에 그대로 보낼 JSON
+    void publish(Integer chatRoomId, String payload);
+
+    void subscribe(Listener listener);
+
+    // 저장하지 않는 일시적인 이벤트 (접속 상태, 입력 중 표시), 채팅 메시지와 따로 구독한다
+    void publishEvent(Integer chatRoomId, String payload);
+
+    void subscribeEvents(Listener listener);
+
+    interface Listener {
+        void onMessage(Integer chatRoomId, String payload);
+    }
+}
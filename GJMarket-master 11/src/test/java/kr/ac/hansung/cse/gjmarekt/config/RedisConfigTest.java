@@ -0,0 +1,41 @@
+package kr.ac.hansung.cse.gjmarekt.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Redis 버스를 쓰면서 gjmarket.node-id를 정하지 않으면 시작하지 않는지 확인한다.
+class RedisConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(RedisConfig.class);
+
+    @Test
+    void redisBusRequiresNodeId() {
+        contextRunner.withPropertyValues("gjmarket.chat.bus=redis")
+                .run(context -> {
+                    Throwable cause = context.getStartupFailure();
+                    assertNotNull(cause);
+                    while (cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    assertInstanceOf(IllegalStateException.class, cause);
+                    assertTrue(cause.getMessage().contains("gjmarket.node-id"));
+                });
+    }
+
+    @Test
+    void redisBusStartsWithNodeId() {
+        contextRunner.withPropertyValues("gjmarket.chat.bus=redis", "gjmarket.node-id=3")
+                .run(context -> assertNull(context.getStartupFailure()));
+    }
+
+    @Test
+    void localBusDoesNotRequireNodeId() {
+        contextRunner.run(context -> {
+            assertNull(context.getStartupFailure());
+            assertFalse(context.containsBean("redisConnectionFactory"));
+        });
+    }
+}
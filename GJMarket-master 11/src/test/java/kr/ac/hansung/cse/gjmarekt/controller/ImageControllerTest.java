@@ -0,0 +1,149 @@
+package kr.ac.hansung.cse.gjmarekt.controller;
+
+import kr.ac.hansung.cse.gjmarekt.service.ImageStorageLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 조건부 요청(304), 구간 요청(206/416), 캐시 헤더가 올바르게 붙는지 확인한다.
+class ImageControllerTest {
+
+    private static final String HASH = "a".repeat(64);
+    private static final String FILENAME = HASH + ".jpg";
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path uploadPath;
+
+    private ImageStorageLayout layout;
+    private ImageController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        layout = new ImageStorageLayout(uploadPath.toString());
+        controller = new ImageController(layout);
+        ReflectionTestUtils.setField(controller, "sendfileMinBytes", 49152L);
+        Files.write(layout.prepare(FILENAME), CONTENT);
+    }
+
+    @Test
+    void fullResponseIsImmutableAndValidatable() throws Exception {
+        MockHttpServletResponse response = get(request());
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("\"" + FILENAME + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+    }
+
+    @Test
+    void matchingEtagReturnsNotModified() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + FILENAME + "\"");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void singleRangeIsServedPartially() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("2345", response.getContentAsString());
+
+        request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        assertEquals("789", get(request).getContentAsString());
+    }
+
+    @Test
+    void rangeIsIgnoredWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void unsatisfiableRangeIsRejected() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void originalServedForMissingVariantIsRevalidated() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getPostImage(FILENAME, 200, request(), response);
+
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void filesAreShardedAndLegacyLocationsStillServed() throws Exception {
+        assertEquals(uploadPath.resolve("aa/aa/" + FILENAME), layout.resolve(FILENAME));
+        // 축소본은 원본과 같은 폴더에 둔다
+        assertEquals(uploadPath.resolve("aa/aa/" + HASH + "_w200.jpg"), layout.resolve(HASH + "_w200.jpg"));
+
+        String legacy = "0f8fad5b-d9cb-469f-a165-70867728950e.png";
+        Files.write(uploadPath.resolve(legacy), CONTENT);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getPostImage(legacy, null, request(), response);
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+
+        Files.createDirectories(uploadPath.resolve(ImageStorageLayout.LEGACY_PROFILE_DIR));
+        Files.write(uploadPath.resolve(ImageStorageLayout.LEGACY_PROFILE_DIR).resolve(legacy), CONTENT);
+        Files.delete(uploadPath.resolve(legacy));
+        response = new MockHttpServletResponse();
+        controller.getImage(legacy, request(), response);
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void missingFileIsNotFound() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getPostImage("b".repeat(64) + ".jpg", null, request(), response);
+
+        assertEquals(404, response.getStatus());
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/images/" + FILENAME);
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getPostImage(FILENAME, null, request, response);
+        return response;
+    }
+}
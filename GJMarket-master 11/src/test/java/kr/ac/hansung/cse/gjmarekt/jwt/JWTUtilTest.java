@@ -0,0 +1,73 @@
+package kr.ac.hansung.cse.gjmarekt.jwt;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 여러 스레드가 동시에 검증해도 각 토큰의 내용이 맞고, 캐시가 한도를 넘지 않는지 확인한다.
+class JWTUtilTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+    private static final int CACHE_SIZE = 100;
+
+    private final JWTUtil jwtUtil = new JWTUtil(SECRET, CACHE_SIZE);
+
+    @Test
+    void concurrentVerifyReturnsEachTokensClaimsAndStaysBounded() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tokens.add(jwtUtil.createJwt(i, "user" + i + "@test.com", "ROLE_USER", 60000L));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 3; round++) {
+                        for (int i = 0; i < tokens.size(); i++) {
+                            int userId = (i + offset * 125) % tokens.size();
+                            assertEquals(userId, jwtUtil.verify(tokens.get(userId)).getUserId());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<?, ?> cache = (Map<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens");
+        // 정리하는 동안 다른 스레드가 넣은 만큼은 잠깐 넘을 수 있다
+        assertTrue(cache.size() <= CACHE_SIZE + 8, "cache size " + cache.size());
+    }
+
+    @Test
+    void recentlyUsedTokenSurvivesEviction() {
+        String hot = jwtUtil.createJwt(0, "hot@test.com", "ROLE_USER", 60000L);
+        jwtUtil.verify(hot);
+        for (int i = 1; i <= CACHE_SIZE * 3; i++) {
+            jwtUtil.verify(jwtUtil.createJwt(i, "user" + i + "@test.com", "ROLE_USER", 60000L));
+            jwtUtil.verify(hot);
+        }
+
+        Map<?, ?> cache = (Map<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens");
+        assertTrue(cache.size() <= CACHE_SIZE);
+        assertTrue(cache.containsKey(ReflectionTestUtils.invokeMethod(jwtUtil, "hash", hot)));
+        // 서명을 바꾸면 캐시가 아닌 검증으로 가서 실패한다
+        assertThrows(JwtException.class, () -> jwtUtil.verify(hot.substring(0, hot.length() - 2) + "xx"));
+        assertEquals(0, jwtUtil.verify(hot).getUserId());
+    }
+}
@@ -0,0 +1,65 @@
+package kr.ac.hansung.cse.gjmarekt.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 이미지 참조 수를 게시물 이미지와 프로필 사진의 실제 참조로부터 다시 만드는지 확인한다.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gjmarket-blobs;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ImageBlobRepositoryTest {
+
+    private static final String SHARED = "a".repeat(64);
+    private static final String LEAKED = "b".repeat(64);
+    private static final String NO_EXTENSION = "c".repeat(64);
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // 실제 참조와 다른 참조 수 (LEAKED는 저장에 실패한 업로드가 남긴 참조)
+        blob(SHARED, "jpg", 1);
+        blob(LEAKED, "png", 2);
+        blob(NO_EXTENSION, "", 0);
+        jdbcTemplate.update("INSERT INTO users (id, email, password, nickname, profile_image_url) "
+                + "VALUES (1, 'blob@test', 'x', 'blob', ?)", SHARED + ".jpg");
+        jdbcTemplate.update("INSERT INTO posts (id, title, content, user_id, created_at, updated_at, price, view_count, "
+                + "wishlist_count, status) VALUES (1, 'title', 'content', 1, ?, ?, 0, 0, 0, 0)",
+                LocalDateTime.now(), LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO post_images (post_id, image_url, sequence) VALUES (1, ?, 0)", SHARED + ".jpg");
+        jdbcTemplate.update("INSERT INTO post_images (post_id, image_url, sequence) VALUES (1, ?, 1)", SHARED + ".jpg");
+        jdbcTemplate.update("INSERT INTO post_images (post_id, image_url, sequence) VALUES (1, ?, 2)", NO_EXTENSION);
+    }
+
+    @Test
+    void rebuildRefCountsCountsActualReferences() {
+        assertEquals(3, imageBlobRepository.rebuildRefCounts());
+
+        assertEquals(3, refCount(SHARED));
+        assertEquals(0, refCount(LEAKED));
+        assertEquals(1, refCount(NO_EXTENSION));
+    }
+
+    private void blob(String hash, String extension, int refCount) {
+        jdbcTemplate.update("INSERT INTO image_blobs (hash, extension, size, ref_count, created_at) VALUES (?, ?, 1, ?, ?)",
+                hash, extension, refCount, LocalDateTime.now());
+    }
+
+    private int refCount(String hash) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM image_blobs WHERE hash = ?", Integer.class, hash);
+    }
+}
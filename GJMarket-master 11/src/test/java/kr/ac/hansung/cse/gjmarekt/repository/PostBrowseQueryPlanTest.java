@@ -0,0 +1,99 @@
+package kr.ac.hansung.cse.gjmarekt.repository;
+
+import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 둘러보기 쿼리가 모두 (status, 정렬값, id) 인덱스만으로 정렬된 채 읽히는지 실행 계획으로 확인한다.
+// 인덱스나 쿼리가 바뀌어 정렬(filesort)이나 전체 스캔이 생기면 실패한다.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gjmarket-plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "kr.ac.hansung.cse.gjmarekt.repository.PostBrowseQueryPlanTest$RecordingInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PostBrowseQueryPlanTest {
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, email, password, nickname) VALUES (1, 'plan@test', 'x', 'plan')");
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 300; i++) {
+            rows.add(new Object[]{"title" + i, now.minusMinutes(i), now.minusMinutes(i), i * 100, i % 7, i % 3});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (title, content, user_id, created_at, updated_at, price, view_count, "
+                + "wishlist_count, status) VALUES (?, 'content', 1, ?, ?, ?, 0, ?, ?)", rows);
+    }
+
+    @Test
+    void everyBrowseQueryReadsAnIndexInOrder() {
+        Pageable pageable = PageRequest.of(0, 21);
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Supplier<List<Integer>>> queries = new LinkedHashMap<>();
+        for (int status = Post.PostStatus.SALE; status <= Post.PostStatus.SOLD; status++) {
+            for (int[] range : new int[][]{{0, Integer.MAX_VALUE}, {1000, 5000}}) {
+                int s = status;
+                String name = " status=" + status + " price=" + range[0] + "~" + range[1];
+                queries.put("newest" + name, () -> postRepository.browseNewest(s, range[0], range[1], pageable));
+                queries.put("newest after" + name,
+                        () -> postRepository.browseNewestAfter(s, range[0], range[1], now, 100, pageable));
+                queries.put("cheapest" + name, () -> postRepository.browseCheapest(s, range[0], range[1], pageable));
+                queries.put("cheapest after" + name,
+                        () -> postRepository.browseCheapestAfter(s, range[0], range[1], 2000, 100, pageable));
+                queries.put("most wished" + name, () -> postRepository.browseMostWished(s, range[0], range[1], pageable));
+                queries.put("most wished after" + name,
+                        () -> postRepository.browseMostWishedAfter(s, range[0], range[1], 3, 100, pageable));
+            }
+        }
+
+        for (Map.Entry<String, Supplier<List<Integer>>> query : queries.entrySet()) {
+            RecordingInspector.statements.clear();
+            query.getValue().get();
+            assertEquals(1, RecordingInspector.statements.size(), query.getKey());
+            String plan = explain(RecordingInspector.statements.get(0));
+            assertTrue(plan.contains("/* public.idx_posts_status_"), query.getKey() + " does not use a browse index\n" + plan);
+            assertFalse(plan.contains("tableScan"), query.getKey() + " scans the whole table\n" + plan);
+            // 인덱스 순서대로 읽지 못하면 결과 전체를 다시 정렬해야 한다 (MySQL의 filesort)
+            assertTrue(plan.contains("/* index sorted */"), query.getKey() + " needs a sort\n" + plan);
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
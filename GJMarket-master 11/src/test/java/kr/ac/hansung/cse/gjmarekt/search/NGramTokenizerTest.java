@@ -0,0 +1,35 @@
+package kr.ac.hansung.cse.gjmarekt.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 글자/숫자 구간을 2글자씩 자르고(문서는 1글자씩도), 정규화와 구분자 처리가 맞는지 확인한다.
+class NGramTokenizerTest {
+
+    @Test
+    void splitsQueryRunsIntoOverlappingBigrams() {
+        assertEquals(List.of("아이", "이폰", "12"), NGramTokenizer.tokenizeQuery("아이폰 12"));
+        assertEquals(List.of("폰"), NGramTokenizer.tokenizeQuery("폰"));
+    }
+
+    @Test
+    void documentsAlsoIndexSingleCharacters() {
+        assertEquals(List.of("아", "이", "폰", "아이", "이폰", "1", "2", "12", "x"),
+                NGramTokenizer.tokenize("아이폰 12 x"));
+    }
+
+    @Test
+    void normalizesWidthAndCase() {
+        assertEquals(NGramTokenizer.tokenizeQuery("iphone"), NGramTokenizer.tokenizeQuery("ＩＰｈｏｎｅ"));
+    }
+
+    @Test
+    void punctuationSeparatesRuns() {
+        assertEquals(List.of("ab", "cd"), NGramTokenizer.tokenizeQuery("ab, cd!"));
+        assertTrue(NGramTokenizer.tokenize("  ...  ").isEmpty());
+        assertTrue(NGramTokenizer.tokenize(null).isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+package kr.ac.hansung.cse.gjmarekt.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 점수 순서, 다음 페이지 여부, 페이지 사이에 색인이 바뀌어도 결과가 겹치거나 빠지지 않는지 확인한다.
+class PostSearchIndexTest {
+
+    private static final SearchFilter NO_FILTER = new SearchFilter(null, null, null);
+
+    @Test
+    void titleMatchRanksAboveContentMatch() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.index(new SearchDocument(1, "중고 노트북", "아이폰 케이스도 같이 드려요", 1000, 0));
+        index.index(new SearchDocument(2, "아이폰 팝니다", "상태 좋아요", 1000, 0));
+        index.index(new SearchDocument(3, "책상", "원목 책상", 1000, 0));
+
+        assertEquals(List.of(2, 1), ids(index.search("아이폰", NO_FILTER, null, null, 10).getHits()));
+        assertTrue(index.search("아이폰", new SearchFilter(null, null, 1), null, null, 10).getHits().isEmpty());
+    }
+
+    @Test
+    void singleCharacterQueryMatchesInsideWords() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.index(new SearchDocument(1, "아이폰 팝니다", "상태 좋아요", 1000, 0));
+        index.index(new SearchDocument(2, "책상", "원목", 1000, 0));
+        index.index(new SearchDocument(3, "중고 책", "소설", 1000, 0));
+
+        assertEquals(List.of(1), ids(index.search("폰", NO_FILTER, null, null, 10).getHits()));
+        assertEquals(Set.of(2, 3), new HashSet<>(ids(index.search("책", NO_FILTER, null, null, 10).getHits())));
+    }
+
+    @Test
+    void hasMoreOnlyWhenAnotherHitExists() {
+        PostSearchIndex index = new PostSearchIndex();
+        for (int i = 1; i <= 10; i++) {
+            index.index(new SearchDocument(i, "아이폰 " + i, "내용", 1000, 0));
+        }
+
+        PostSearchIndex.Page all = index.search("아이폰", NO_FILTER, null, null, 10);
+        assertEquals(10, all.getHits().size());
+        assertFalse(all.isHasMore());
+
+        PostSearchIndex.Page first = index.search("아이폰", NO_FILTER, null, null, 5);
+        assertTrue(first.isHasMore());
+        PostSearchIndex.Page second = index.search("아이폰", NO_FILTER, first.getStats(),
+                first.getHits().get(4), 5);
+        assertEquals(5, second.getHits().size());
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    void pagesStayConsistentWhileIndexChanges() {
+        PostSearchIndex index = originalIndex();
+        List<Integer> expected = ids(index.search("아이폰", NO_FILTER, null, null, 30).getHits());
+
+        List<PostSearchIndex.Hit> seen = new ArrayList<>();
+        PostSearchIndex.Page page = index.search("아이폰", NO_FILTER, null, null, 10);
+        seen.addAll(page.getHits());
+
+        // 다음 페이지를 요청하기 전에 같은 토큰을 가진 게시물과 긴 게시물이 추가된다 (문서 수, 평균 길이, idf가 바뀜)
+        for (int i = 100; i < 150; i++) {
+            index.index(new SearchDocument(i, "노트북", "아이폰 충전기 ".repeat(i - 99), 1000, 0));
+        }
+        while (page.isHasMore()) {
+            List<PostSearchIndex.Hit> hits = page.getHits();
+            page = index.search("아이폰", NO_FILTER, page.getStats(), hits.get(hits.size() - 1), 10);
+            seen.addAll(page.getHits());
+        }
+
+        List<Integer> seenIds = ids(seen);
+        assertEquals(seenIds.size(), new HashSet<>(seenIds).size(), "duplicated hits: " + seenIds);
+        Set<Integer> original = new HashSet<>();
+        for (int i = 1; i <= 30; i++) {
+            original.add(i);
+        }
+        assertTrue(seenIds.containsAll(original), "missing hits: " + seenIds);
+        // 원래 있던 게시물끼리의 순서는 첫 페이지를 받았을 때와 같다
+        List<Integer> originalOrder = seenIds.stream().filter(original::contains).collect(Collectors.toList());
+        assertEquals(expected, originalOrder);
+    }
+
+    private PostSearchIndex originalIndex() {
+        PostSearchIndex index = new PostSearchIndex();
+        for (int i = 1; i <= 30; i++) {
+            // 내용 길이를 다르게 해서 점수가 서로 다르게 한다
+            index.index(new SearchDocument(i, "아이폰 " + i, "좋아요 ".repeat(i), 1000, 0));
+        }
+        return index;
+    }
+
+    @Test
+    void statsFromAnotherQueryAreRejected() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.index(new SearchDocument(1, "아이폰", "내용", 1000, 0));
+        PostSearchIndex.Page page = index.search("아이폰", NO_FILTER, null, null, 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> index.search("아이폰 케이스", NO_FILTER, page.getStats(), page.getHits().get(0), 1));
+    }
+
+    private List<Integer> ids(List<PostSearchIndex.Hit> hits) {
+        return hits.stream().map(PostSearchIndex.Hit::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import kr.ac.hansung.cse.gjmarekt.dto.ChatInboxDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatRoomSummaryDTO;
+import kr.ac.hansung.cse.gjmarekt.repository.ChatInboxRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.ChatMessageRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.ChatRoomRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// 채팅 목록 커서를 따라가면 판매/구매 채팅방을 합쳐 (last_activity_at, id) 순서대로 한번씩 받는지 확인한다.
+// last_activity_at이 같은 채팅방이 페이지 경계에 걸치는 경우와, 마지막 페이지가 정확히 꽉 차는 경우를 포함한다.
+// H2는 LIMIT 값만 바뀐 같은 문장을 다시 실행하면 이전 파생 테이블 결과를 재사용하므로 OPTIMIZE_REUSE_RESULTS를 끈다 (MySQL은 해당 없음)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gjmarket-inbox;MODE=MySQL;DATABASE_TO_LOWER=TRUE;OPTIMIZE_REUSE_RESULTS=FALSE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ChatInboxCursorTest {
+
+    // 1~3은 사용자 1이 판매자, 4~6은 구매자. 1, 2, 4, 5는 같은 시각, 3, 6은 1분 전
+    private static final List<Integer> INBOX_ORDER = List.of(5, 4, 2, 1, 6, 3);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ChatRoomService chatRoomService;
+
+    @BeforeEach
+    void setUp() {
+        for (int id = 1; id <= 3; id++) {
+            jdbcTemplate.update("INSERT INTO users (id, email, password, nickname) VALUES (?, ?, 'x', ?)",
+                    id, "inbox" + id + "@test", "inbox" + id);
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= 6; id++) {
+            boolean selling = id <= 3;
+            LocalDateTime activityAt = id % 3 == 0 ? now.minusMinutes(1) : now;
+            rows.add(new Object[]{id, selling ? 1 : 2, selling ? 3 : 1, activityAt, activityAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO chat_rooms (id, seller_id, buyer_id, created_at, last_activity_at, last_seq) "
+                + "VALUES (?, ?, ?, ?, ?, 0)", rows);
+
+        chatRoomService = new ChatRoomService(mock(ChatRoomRepository.class), mock(PostRepository.class),
+                mock(UserRepository.class), mock(ChatMessageRepository.class), new ChatInboxRepository(jdbcTemplate),
+                mock(ChatRoomMembershipCache.class), mock(TrendingService.class));
+    }
+
+    @Test
+    void cursorWalksEveryRoomOnceInOrder() {
+        for (int size = 1; size <= INBOX_ORDER.size() + 1; size++) {
+            List<Integer> ids = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                ChatInboxDTO page = chatRoomService.getInbox(1, cursor, size);
+                assertFalse(page.getRooms().isEmpty(), "empty page with size " + size);
+                page.getRooms().forEach(room -> ids.add(room.getChatRoomId()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertEquals(INBOX_ORDER, ids, "size " + size);
+            // 마지막 페이지가 꽉 차도 빈 페이지를 가리키는 커서를 주지 않는다
+            assertEquals((INBOX_ORDER.size() + size - 1) / size, pages, "size " + size);
+        }
+    }
+
+    @Test
+    void partnerIsTheOtherSideOfEachRoom() {
+        List<ChatRoomSummaryDTO> rooms = chatRoomService.getInbox(1, null, 10).getRooms();
+
+        for (ChatRoomSummaryDTO room : rooms) {
+            assertEquals(room.getChatRoomId() <= 3 ? 3 : 2, room.getPartnerId(), "room " + room.getChatRoomId());
+        }
+    }
+}
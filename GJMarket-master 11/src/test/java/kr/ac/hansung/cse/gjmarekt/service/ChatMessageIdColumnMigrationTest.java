@@ -0,0 +1,52 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 예전 INT id 테이블이 BIGINT로 바뀌는지, 자동 변경을 끄면 시작을 막는지 확인한다.
+class ChatMessageIdColumnMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:chat-id-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE chat_messages (id INT AUTO_INCREMENT PRIMARY KEY, content TEXT)");
+    }
+
+    @Test
+    void widensIntColumn() {
+        ChatMessageIdColumnMigration migration = new ChatMessageIdColumnMigration(jdbcTemplate, true);
+        assertEquals(Types.INTEGER, migration.idColumnType());
+
+        migration.afterSingletonsInstantiated();
+
+        assertEquals(Types.BIGINT, migration.idColumnType());
+        long id = new ChatMessageIdGenerator(0).nextId();
+        jdbcTemplate.update("INSERT INTO chat_messages (id, content) VALUES (?, ?)", id, "hi");
+        assertEquals(id, jdbcTemplate.queryForObject("SELECT id FROM chat_messages", Long.class));
+    }
+
+    @Test
+    void refusesToStartWhenMigrationDisabled() {
+        ChatMessageIdColumnMigration migration = new ChatMessageIdColumnMigration(jdbcTemplate, false);
+
+        assertThrows(IllegalStateException.class, migration::afterSingletonsInstantiated);
+        assertEquals(Types.INTEGER, migration.idColumnType());
+    }
+
+    @Test
+    void skipsMissingTable() {
+        jdbcTemplate.execute("DROP TABLE chat_messages");
+
+        new ChatMessageIdColumnMigration(jdbcTemplate, false).afterSingletonsInstantiated();
+    }
+}
@@ -0,0 +1,131 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 저장할 원본에서 위치 정보 등 메타데이터를 빼고, 픽셀과 회전 정보는 그대로 남기는지 확인한다.
+class ImageMetadataStripperTest {
+
+    private static final String SECRET = "GPS 37.5665N 126.9780E";
+
+    @Test
+    void jpegKeepsPixelsAndOrientationOnly() throws Exception {
+        byte[] plain = encode("jpg");
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.write(plain, 0, 2);
+        segment(jpeg, 0xE1, exif(6));
+        segment(jpeg, 0xE1, ("http://ns.adobe.com/xap/1.0/\0" + SECRET).getBytes(StandardCharsets.US_ASCII));
+        segment(jpeg, 0xED, ("Photoshop 3.0\0" + SECRET).getBytes(StandardCharsets.US_ASCII));
+        segment(jpeg, 0xFE, SECRET.getBytes(StandardCharsets.US_ASCII));
+        jpeg.write(plain, 2, plain.length - 2);
+        // EOI 뒤에 붙은 미리보기 등
+        jpeg.writeBytes(SECRET.getBytes(StandardCharsets.US_ASCII));
+
+        byte[] stripped = strip(jpeg.toByteArray(), "jpg");
+
+        assertFalse(new String(stripped, StandardCharsets.ISO_8859_1).contains(SECRET));
+        assertSamePixels(ImageIO.read(new ByteArrayInputStream(plain)), ImageIO.read(new ByteArrayInputStream(stripped)));
+        Path file = Files.createTempFile("stripped", ".jpg");
+        Files.write(file, stripped);
+        assertEquals(6, ImageProcessingService.readOrientation(file));
+    }
+
+    @Test
+    void jpegWithoutMetadataIsUnchanged() throws Exception {
+        byte[] plain = encode("jpg");
+        assertArrayEquals(plain, strip(plain, "jpeg"));
+    }
+
+    @Test
+    void pngDropsTextChunks() throws Exception {
+        byte[] plain = encode("png");
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        // 시그니처(8) + IHDR(25) 다음에 텍스트 청크를 넣는다
+        png.write(plain, 0, 33);
+        chunk(png, "tEXt", ("Comment\0" + SECRET).getBytes(StandardCharsets.ISO_8859_1));
+        png.write(plain, 33, plain.length - 33);
+
+        byte[] stripped = strip(png.toByteArray(), "png");
+
+        assertArrayEquals(plain, stripped);
+    }
+
+    @Test
+    void otherFormatsAreCopied() throws Exception {
+        byte[] bytes = ("RIFF" + SECRET).getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(bytes, strip(bytes, "webp"));
+    }
+
+    private byte[] strip(byte[] input, String extension) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageMetadataStripper.copy(new ByteArrayInputStream(input), out, extension);
+        return out.toByteArray();
+    }
+
+    private byte[] encode(String format) throws Exception {
+        BufferedImage image = new BufferedImage(32, 16, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 32; x++) {
+                image.setRGB(x, y, (x * 8) << 16 | (y * 16) << 8 | 0x40);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), x + "," + y);
+            }
+        }
+    }
+
+    // Orientation과 위치 정보 문자열(ImageDescription 대신)을 담은 Exif
+    private byte[] exif(int orientation) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0, 0, 'M', 'M', 0, 42, 0, 0, 0, 8, 0, 1});
+        out.writeBytes(new byte[]{0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0, 0, 0, 0, 0});
+        out.writeBytes(SECRET.getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    private void segment(ByteArrayOutputStream out, int marker, byte[] body) {
+        out.write(0xFF);
+        out.write(marker);
+        out.write((body.length + 2) >> 8);
+        out.write((body.length + 2) & 0xFF);
+        out.writeBytes(body);
+    }
+
+    private void chunk(ByteArrayOutputStream out, String type, byte[] body) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        writeInt(out, body.length);
+        out.writeBytes(typeBytes);
+        out.writeBytes(body);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(body);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
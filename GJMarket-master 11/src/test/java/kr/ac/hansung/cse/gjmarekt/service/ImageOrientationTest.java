@@ -0,0 +1,106 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// jpeg의 EXIF Orientation을 읽고, 값마다 축소 전에 올바르게 돌리거나 뒤집는지 확인한다.
+class ImageOrientationTest {
+
+    @Test
+    void readsOrientationFromExif() throws Exception {
+        assertEquals(6, ImageProcessingService.readOrientation(jpegWithOrientation(6, false)));
+        assertEquals(8, ImageProcessingService.readOrientation(jpegWithOrientation(8, true)));
+
+        Path plain = Files.createTempFile("plain", ".jpg");
+        ImageIO.write(new BufferedImage(16, 8, BufferedImage.TYPE_INT_RGB), "jpg", plain.toFile());
+        assertEquals(1, ImageProcessingService.readOrientation(plain));
+    }
+
+    @Test
+    void everyOrientationMapsPixels() {
+        int w = 3;
+        int h = 2;
+        BufferedImage source = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                source.setRGB(x, y, y * w + x + 1);
+            }
+        }
+
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            BufferedImage oriented = ImageProcessingService.applyOrientation(source, orientation, "jpg");
+            boolean swap = orientation >= 5;
+            assertEquals(swap ? h : w, oriented.getWidth(), "orientation " + orientation);
+            assertEquals(swap ? w : h, oriented.getHeight(), "orientation " + orientation);
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int[] target = target(orientation, x, y, w, h);
+                    assertEquals(source.getRGB(x, y), oriented.getRGB(target[0], target[1]),
+                            "orientation " + orientation + " at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    // 원본 (x, y) 픽셀이 가야 할 위치
+    private int[] target(int orientation, int x, int y, int w, int h) {
+        switch (orientation) {
+            case 2: return new int[]{w - 1 - x, y};
+            case 3: return new int[]{w - 1 - x, h - 1 - y};
+            case 4: return new int[]{x, h - 1 - y};
+            case 5: return new int[]{y, x};
+            case 6: return new int[]{h - 1 - y, x};
+            case 7: return new int[]{h - 1 - y, w - 1 - x};
+            case 8: return new int[]{y, w - 1 - x};
+            default: return new int[]{x, y};
+        }
+    }
+
+    // SOI 바로 뒤에 Orientation 하나만 있는 APP1(Exif) 세그먼트를 넣는다
+    private Path jpegWithOrientation(int orientation, boolean littleEndian) throws Exception {
+        BufferedImage image = new BufferedImage(16, 8, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", encoded);
+        byte[] jpeg = encoded.toByteArray();
+
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.writeBytes(littleEndian ? new byte[]{'I', 'I'} : new byte[]{'M', 'M'});
+        writeNumber(tiff, 42, 2, littleEndian);
+        writeNumber(tiff, 8, 4, littleEndian);
+        writeNumber(tiff, 1, 2, littleEndian);
+        writeNumber(tiff, 0x0112, 2, littleEndian);
+        writeNumber(tiff, 3, 2, littleEndian);
+        writeNumber(tiff, 1, 4, littleEndian);
+        writeNumber(tiff, orientation, 2, littleEndian);
+        writeNumber(tiff, 0, 2, littleEndian);
+        writeNumber(tiff, 0, 4, littleEndian);
+
+        byte[] body = tiff.toByteArray();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        writeNumber(out, 2 + 6 + body.length, 2, false);
+        out.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        out.writeBytes(body);
+        out.write(jpeg, 2, jpeg.length - 2);
+
+        Path file = Files.createTempFile("exif", ".jpg");
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    private void writeNumber(ByteArrayOutputStream out, long value, int size, boolean littleEndian) {
+        for (int i = 0; i < size; i++) {
+            int shift = littleEndian ? i * 8 : (size - 1 - i) * 8;
+            out.write((int) (value >> shift) & 0xFF);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
+import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// 동시에 처음 조회하면 DB는 한번만 읽는지, 조회 중/후 무효화가 반영되는지 확인한다.
+class PostDetailCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PostRepository postRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(postRepository.findById(1)).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(post(1, 7, "title"));
+        });
+        PostDetailCache cache = cache(1 << 20);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get(1)));
+            }
+            // 모든 요청이 조회를 기다리게 한 뒤 끝낸다
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("gjmarket.post.cache.misses").count() < 8) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<byte[]> result : results) {
+                assertTrue(json(result.get(5, TimeUnit.SECONDS)).contains("\"title\":\"title\""));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(7.0, meterRegistry.counter("gjmarket.post.cache.coalesced").count());
+        cache.get(1);
+        assertEquals(1.0, meterRegistry.counter("gjmarket.post.cache.hits").count());
+    }
+
+    @Test
+    void evictionDuringLoadIsNotOverwritten() throws Exception {
+        PostDetailCache cache = cache(1 << 20);
+        when(postRepository.findById(1)).thenAnswer(invocation -> {
+            // 예전 내용을 읽은 직후 수정이 커밋되었다
+            cache.evict(1);
+            return Optional.of(post(1, 7, "old"));
+        });
+        assertTrue(json(cache.get(1)).contains("old"));
+
+        when(postRepository.findById(1)).thenReturn(Optional.of(post(1, 7, "new")));
+        assertTrue(json(cache.get(1)).contains("new"));
+        verify(postRepository, times(2)).findById(1);
+    }
+
+    @Test
+    void sellerChangesEvictTheirPostsOnly() {
+        when(postRepository.findById(1)).thenReturn(Optional.of(post(1, 7, "a")));
+        when(postRepository.findById(2)).thenReturn(Optional.of(post(2, 8, "b")));
+        PostDetailCache cache = cache(1 << 20);
+        cache.get(1);
+        cache.get(2);
+
+        cache.evictSeller(7);
+        cache.get(1);
+        cache.get(2);
+
+        verify(postRepository, times(2)).findById(1);
+        verify(postRepository, times(1)).findById(2);
+    }
+
+    @Test
+    void leastRecentlyUsedPostsAreDroppedOverTheByteLimit() {
+        for (int id = 1; id <= 3; id++) {
+            when(postRepository.findById(id)).thenReturn(Optional.of(post(id, 7, "x".repeat(400))));
+        }
+        // 항목 두개가 들어가는 크기
+        PostDetailCache probe = cache(1 << 20);
+        probe.get(1);
+        long entryBytes = (long) meterRegistry.get("gjmarket.post.cache.bytes").gauge().value();
+        clearInvocations(postRepository);
+        meterRegistry.clear();
+
+        long maxBytes = entryBytes * 5 / 2;
+        PostDetailCache cache = cache(maxBytes);
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+
+        assertTrue(meterRegistry.get("gjmarket.post.cache.bytes").gauge().value() <= maxBytes);
+        assertEquals(1.0, meterRegistry.counter("gjmarket.post.cache.evictions").count());
+        cache.get(1);
+        verify(postRepository, times(1)).findById(1);
+        cache.get(2);
+        verify(postRepository, times(2)).findById(2);
+    }
+
+    @Test
+    void missingPostIsNotCached() {
+        when(postRepository.findById(1)).thenReturn(Optional.empty());
+        PostDetailCache cache = cache(1 << 20);
+
+        assertThrows(RuntimeException.class, () -> cache.get(1));
+        assertThrows(RuntimeException.class, () -> cache.get(1));
+        verify(postRepository, times(2)).findById(1);
+    }
+
+    private PostDetailCache cache(long maxBytes) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new PostDetailCache(postRepository, objectMapper, transactionManager, meterRegistry, maxBytes, 60000);
+    }
+
+    private Post post(int id, int sellerId, String title) {
+        GJUser seller = new GJUser();
+        seller.setId(sellerId);
+        seller.setNickname("seller" + sellerId);
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle(title);
+        post.setUser(seller);
+        post.setImages(new ArrayList<>());
+        return post;
+    }
+
+    private String json(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import kr.ac.hansung.cse.gjmarekt.dto.PostFeedDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// 피드 커서를 따라가면 (updated_at, id) 순서대로 모든 게시물을 한번씩 받는지 확인한다.
+// updated_at이 같은 게시물이 페이지 경계에 걸치는 경우와, 마지막 페이지가 정확히 꽉 차는 경우를 포함한다.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gjmarket-feed;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PostFeedCursorTest {
+
+    // 1~4는 같은 시각, 5~6은 1분 전
+    private static final List<Integer> FEED_ORDER = List.of(4, 3, 2, 1, 6, 5);
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private PostService postService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, email, password, nickname) VALUES (1, 'feed@test', 'x', 'feed')");
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= 6; id++) {
+            LocalDateTime updatedAt = id <= 4 ? now : now.minusMinutes(1);
+            rows.add(new Object[]{id, "title" + id, updatedAt, updatedAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (id, title, content, user_id, created_at, updated_at, price, "
+                + "view_count, wishlist_count, status) VALUES (?, ?, 'content', 1, ?, ?, 1000, 0, 0, 0)", rows);
+
+        postService = new PostService(postRepository, mock(UserService.class), mock(UserRepository.class),
+                mock(ViewCountService.class), mock(PostSearchService.class), mock(ImageStorageService.class),
+                mock(PostDetailCache.class), mock(TrendingService.class));
+    }
+
+    @Test
+    void cursorWalksEveryPostOnceInOrder() {
+        for (int size = 1; size <= FEED_ORDER.size() + 1; size++) {
+            List<Integer> ids = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                PostFeedDTO page = postService.getFeed(cursor, size);
+                assertFalse(page.getPosts().isEmpty(), "empty page with size " + size);
+                page.getPosts().forEach(post -> ids.add(post.getId()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertEquals(FEED_ORDER, ids, "size " + size);
+            // 마지막 페이지가 꽉 차도 빈 페이지를 가리키는 커서를 주지 않는다
+            assertEquals((FEED_ORDER.size() + size - 1) / size, pages, "size " + size);
+        }
+    }
+
+    @Test
+    void cursorInsideTiedUpdatedAtContinuesByIdInstead() {
+        // 첫 페이지가 같은 시각의 게시물(4, 3) 중간에서 끝난다
+        PostFeedDTO first = postService.getFeed(null, 2);
+        assertEquals(List.of(4, 3), first.getPosts().stream().map(PostSummaryDTO::getId).toList());
+
+        PostFeedDTO second = postService.getFeed(first.getNextCursor(), 3);
+        assertEquals(List.of(2, 1, 6), second.getPosts().stream().map(PostSummaryDTO::getId).toList());
+        assertNotNull(second.getNextCursor());
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> postService.getFeed("not-a-cursor", 3));
+    }
+}
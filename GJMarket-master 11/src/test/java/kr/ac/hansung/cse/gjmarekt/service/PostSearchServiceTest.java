@@ -0,0 +1,104 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import kr.ac.hansung.cse.gjmarekt.dto.PostSearchResultDTO;
+import kr.ac.hansung.cse.gjmarekt.dto.PostSummaryDTO;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import kr.ac.hansung.cse.gjmarekt.search.PostSearchIndex;
+import kr.ac.hansung.cse.gjmarekt.search.SearchDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+// nextCursor를 따라가면 모든 결과를 한번씩 받고, 마지막 페이지에서 커서가 끝나는지 확인한다.
+class PostSearchServiceTest {
+
+    private final PostSearchIndex index = new PostSearchIndex();
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private PostSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        when(postRepository.findSummariesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<PostSummaryDTO> summaries = new ArrayList<>();
+            for (Object id : invocation.<Collection<?>>getArgument(0)) {
+                PostSummaryDTO summary = new PostSummaryDTO();
+                summary.setId((Integer) id);
+                summaries.add(summary);
+            }
+            return summaries;
+        });
+        service = new PostSearchService(index, postRepository, 60000);
+    }
+
+    @Test
+    void cursorWalksEveryHitOnceAndEndsOnLastPage() {
+        for (int i = 1; i <= 10; i++) {
+            index.index(new SearchDocument(i, "아이폰 " + i, "좋아요 ".repeat(i), 1000, 0));
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PostSearchResultDTO page = service.search("아이폰", null, null, null, cursor, 5);
+            page.getPosts().forEach(post -> ids.add(post.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+            // 첫 페이지를 받은 뒤 색인이 바뀌어(문서 수, 평균 길이) 점수가 달라져도 이어지는 페이지는 같은 기준으로 정렬된다
+            index.index(new SearchDocument(100 + pages, "노트북", "충전기 ".repeat(50), 1000, 0));
+        } while (cursor != null);
+
+        assertEquals(2, pages);
+        assertEquals(10, ids.size());
+        assertEquals(10, ids.stream().distinct().count());
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        index.index(new SearchDocument(1, "아이폰", "내용", 1000, 0));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.search("아이폰", null, null, null, "not-a-cursor", 5));
+    }
+
+    @Test
+    void catchUpIndexesPostsChangedOnOtherNodes() {
+        // 시작 전에는 따라잡지 않는다
+        service.catchUp();
+        verify(postRepository, never()).findSearchDocumentsUpdatedAfter(any(), any(), any());
+
+        when(postRepository.findSearchDocumentsAfter(any(), any())).thenReturn(List.of());
+        service.rebuild();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        when(postRepository.findSearchDocumentsUpdatedAfter(any(), any(), any()))
+                .thenReturn(List.of(new SearchDocument(7, "아이폰", "다른 서버에서 작성", 1000, 0, updatedAt)));
+
+        service.catchUp();
+
+        assertEquals(List.of(7), service.search("아이폰", null, null, null, null, 5)
+                .getPosts().stream().map(PostSummaryDTO::getId).toList());
+    }
+
+    @Test
+    void pruneRemovesPostsDeletedOnOtherNodes() {
+        for (int i = 1; i <= 3; i++) {
+            index.index(new SearchDocument(i, "아이폰 " + i, "내용", 1000, 0));
+        }
+        when(postRepository.findExistingIds(anyCollection())).thenReturn(List.of(1, 3));
+
+        service.pruneDeleted();
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(1, 3), service.search("아이폰", null, null, null, null, 5)
+                .getPosts().stream().map(PostSummaryDTO::getId).sorted().toList());
+    }
+}
@@ -0,0 +1,32 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
+import kr.ac.hansung.cse.gjmarekt.websocket.RoomMessageBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// 메시지가 없는 채팅방도 메모리 한도에 포함되어, 빈 채팅방을 많이 열어도 캐시가 한도 안에서 밀려나는지 확인한다.
+class RecentMessageCacheTest {
+
+    @Test
+    void emptyRoomsCountTowardsMemoryLimit() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        long maxBytes = 10L * RecentMessageCache.ROOM_OVERHEAD_BYTES;
+        RecentMessageCache cache = new RecentMessageCache(mock(RoomMessageBus.class), new ObjectMapper(),
+                meterRegistry, 50, maxBytes);
+
+        for (int chatRoomId = 1; chatRoomId <= 100; chatRoomId++) {
+            List<ChatMessageDTO> recent = cache.getRecent(chatRoomId, 20, limit -> List.of());
+            assertTrue(recent.isEmpty());
+        }
+
+        assertEquals(90.0, meterRegistry.counter("gjmarket.chat.recent.evictions").count());
+        assertEquals(maxBytes, meterRegistry.get("gjmarket.chat.recent.bytes").gauge().value());
+    }
+}
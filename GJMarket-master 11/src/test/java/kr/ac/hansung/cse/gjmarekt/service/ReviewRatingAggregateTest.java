@@ -0,0 +1,114 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import kr.ac.hansung.cse.gjmarekt.entity.Review;
+import kr.ac.hansung.cse.gjmarekt.repository.PostRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.ReviewRepository;
+import kr.ac.hansung.cse.gjmarekt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// 리뷰를 작성/수정/삭제할 때마다 바뀐 만큼만 반영한 별점 집계(applyRatingChange)가
+// 실제 리뷰 값, 그리고 reviews 테이블로부터 다시 만든 집계(rebuildRatings)와 같은지 확인한다.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gjmarket-rating;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ReviewRatingAggregateTest {
+
+    private static final int REVIEWEE = 1;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ReviewService reviewService;
+
+    @BeforeEach
+    void setUp() {
+        for (int id = 1; id <= 3; id++) {
+            jdbcTemplate.update("INSERT INTO users (id, email, password, nickname) VALUES (?, ?, 'x', ?)",
+                    id, "rating" + id + "@test", "rating" + id);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO posts (id, title, content, user_id, created_at, updated_at, price, view_count, "
+                + "wishlist_count, status) VALUES (1, 'title', 'content', 1, ?, ?, 1000, 0, 0, 2)", now, now);
+
+        UserService userService = mock(UserService.class);
+        when(userService.getUserById(anyInt())).thenAnswer(invocation ->
+                userRepository.findById(invocation.getArgument(0)).orElseThrow());
+        doAnswer(invocation -> userRepository.applyRatingChange(invocation.getArgument(0),
+                invocation.getArgument(1), invocation.getArgument(2)))
+                .when(userService).applyRatingChange(anyInt(), anyLong(), anyInt());
+        PostService postService = mock(PostService.class);
+        when(postService.getPostById(anyInt())).thenAnswer(invocation ->
+                postRepository.findById(invocation.getArgument(0)).orElseThrow());
+        reviewService = new ReviewService(reviewRepository, userService, postService);
+    }
+
+    @Test
+    void incrementalAggregateMatchesReviewsAfterEveryChange() {
+        Review first = reviewService.createReview(1, 2, REVIEWEE, 5, "좋아요");
+        assertRating(5, 1, 5.0f);
+
+        Review second = reviewService.createReview(1, 3, REVIEWEE, 2, "별로");
+        assertRating(7, 2, 3.5f);
+
+        reviewService.updateReview(first.getId(), 2, 3, "보통");
+        assertRating(5, 2, 2.5f);
+
+        // 별점 없이 내용만 고치면 집계는 그대로
+        reviewService.patchReview(second.getId(), 3, null, "생각보다 괜찮아요");
+        assertRating(5, 2, 2.5f);
+
+        reviewService.deleteReview(second.getId(), 3);
+        assertRating(3, 1, 3.0f);
+
+        reviewService.deleteReview(first.getId(), 2);
+        assertRating(0, 0, null);
+    }
+
+    // 바뀐 만큼 반영한 값이 기대값과 같고, reviews 테이블로부터 다시 만들어도 그대로인지 확인
+    private void assertRating(long sum, int count, Float rating) {
+        Map<String, Object> incremental = ratingRow();
+        assertEquals(sum, ((Number) incremental.get("rating_sum")).longValue());
+        assertEquals(count, ((Number) incremental.get("rating_count")).intValue());
+        if (rating == null) {
+            assertNull(incremental.get("rating"));
+        } else {
+            assertEquals(rating, ((Number) incremental.get("rating")).floatValue(), 0.0001f);
+        }
+
+        userRepository.rebuildRatings();
+        Map<String, Object> rebuilt = ratingRow();
+        assertEquals(incremental.get("rating_sum"), rebuilt.get("rating_sum"));
+        assertEquals(incremental.get("rating_count"), rebuilt.get("rating_count"));
+        if (rating == null) {
+            assertNull(rebuilt.get("rating"));
+        } else {
+            assertEquals(rating, ((Number) rebuilt.get("rating")).floatValue(), 0.0001f);
+        }
+    }
+
+    private Map<String, Object> ratingRow() {
+        return jdbcTemplate.queryForMap("SELECT rating, rating_sum, rating_count FROM users WHERE id = ?", REVIEWEE);
+    }
+}
@@ -0,0 +1,69 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// 조회수 증가와 flush(누적기 제거)가 겹쳐도 증가분이 사라지지 않는지 확인한다.
+class ViewCountServiceTest {
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        LongAdder written = new LongAdder();
+        when(jdbcTemplate.batchUpdate(eq("UPDATE posts SET view_count = view_count + ? WHERE id = ?"), anyList()))
+                .thenAnswer(invocation -> {
+                    List<Object[]> batch = invocation.getArgument(1);
+                    for (Object[] row : batch) {
+                        written.add((Long) row[0]);
+                    }
+                    return new int[batch.size()];
+                });
+        ViewCountService service = new ViewCountService(jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "bucketMs", 600000L);
+
+        // 게시물마다 드문드문 조회해서 누적기가 자주 제거되게 한다
+        int threads = 4;
+        int perThread = 20000;
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        executor.submit(() -> {
+            while (running.get()) {
+                service.flush();
+            }
+        });
+        List<Future<?>> incrementers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            incrementers.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    service.increment(i % 50);
+                }
+            }));
+        }
+        for (Future<?> future : incrementers) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        service.drain();
+        assertEquals((long) threads * perThread, written.sum());
+    }
+}
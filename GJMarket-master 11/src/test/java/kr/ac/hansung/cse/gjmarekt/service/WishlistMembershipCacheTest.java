@@ -0,0 +1,81 @@
+package kr.ac.hansung.cse.gjmarekt.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.repository.WishlistRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// 찜 추가/삭제가 DB를 다시 읽지 않고 반영되는지, 읽는 중에 바뀐 결과는 보관하지 않는지, 한도를 넘으면 오래된 사용자부터 빠지는지 확인한다.
+class WishlistMembershipCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WishlistRepository wishlistRepository;
+
+    @BeforeEach
+    void setUp() {
+        wishlistRepository = mock(WishlistRepository.class);
+    }
+
+    @Test
+    void membershipIsKeptInSyncWithoutReloading() {
+        when(wishlistRepository.findPostIdsByUserId(7)).thenReturn(List.of(30, 10, 20));
+        WishlistMembershipCache cache = cache(1000);
+
+        assertArrayEquals(new int[]{10, 20, 30}, cache.get(7));
+        assertTrue(cache.contains(7, 20));
+        assertFalse(cache.contains(7, 25));
+
+        cache.added(7, 25);
+        cache.added(7, 5);
+        cache.removed(7, 20);
+        cache.removed(7, 99);
+
+        assertArrayEquals(new int[]{5, 10, 25, 30}, cache.get(7));
+        verify(wishlistRepository, times(1)).findPostIdsByUserId(7);
+        assertEquals(3.0, meterRegistry.counter("gjmarket.wishlist.cache.hits").count());
+    }
+
+    @Test
+    void changeDuringLoadIsNotOverwritten() {
+        WishlistMembershipCache cache = cache(1000);
+        when(wishlistRepository.findPostIdsByUserId(7)).thenAnswer(invocation -> {
+            // 예전 목록을 읽은 직후 찜이 추가되었다
+            cache.added(7, 2);
+            return List.of(1);
+        });
+        assertArrayEquals(new int[]{1}, cache.get(7));
+
+        when(wishlistRepository.findPostIdsByUserId(7)).thenReturn(List.of(1, 2));
+        assertArrayEquals(new int[]{1, 2}, cache.get(7));
+        verify(wishlistRepository, times(2)).findPostIdsByUserId(7);
+    }
+
+    @Test
+    void leastRecentlyUsedUsersAreDroppedOverTheLimit() {
+        when(wishlistRepository.findPostIdsByUserId(1)).thenReturn(List.of(1, 2));
+        when(wishlistRepository.findPostIdsByUserId(2)).thenReturn(List.of(3, 4));
+        when(wishlistRepository.findPostIdsByUserId(3)).thenReturn(List.of());
+        // 사용자마다 찜 수 + 1을 센다
+        WishlistMembershipCache cache = cache(6);
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+
+        assertEquals(4.0, meterRegistry.get("gjmarket.wishlist.cache.ids").gauge().value());
+        assertEquals(1.0, meterRegistry.counter("gjmarket.wishlist.cache.evictions").count());
+        cache.get(1);
+        verify(wishlistRepository, times(1)).findPostIdsByUserId(1);
+        cache.get(2);
+        verify(wishlistRepository, times(2)).findPostIdsByUserId(2);
+    }
+
+    private WishlistMembershipCache cache(long maxIds) {
+        return new WishlistMembershipCache(wishlistRepository, meterRegistry, maxIds, 60000);
+    }
+}
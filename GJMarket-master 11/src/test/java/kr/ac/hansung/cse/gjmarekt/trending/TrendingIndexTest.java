@@ -0,0 +1,77 @@
+package kr.ac.hansung.cse.gjmarekt.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 반감기마다 점수가 절반이 되는지, 오래된 인기보다 최근 활동이 앞서는지, 기준 시각을 옮겨도 순위가 유지되는지 확인한다.
+class TrendingIndexTest {
+
+    private static final long HOUR = 3600_000L;
+
+    @Test
+    void scoresHalveEveryHalfLife() {
+        TrendingIndex index = new TrendingIndex(HOUR, 1000);
+        long now = System.currentTimeMillis();
+        index.add(1, 8, now);
+
+        assertEquals(8, index.top(1, now).get(0).getScore(), 1e-9);
+        assertEquals(4, index.top(1, now + HOUR).get(0).getScore(), 1e-9);
+        assertEquals(1, index.top(1, now + 3 * HOUR).get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void recentActivityOvertakesOldPopularity() {
+        TrendingIndex index = new TrendingIndex(HOUR, 1000);
+        long now = System.currentTimeMillis();
+        // 1번은 세 시간 전에 10, 2번은 지금 2
+        index.add(1, 10, now - 3 * HOUR);
+        index.add(2, 2, now);
+        index.add(3, 1, now);
+
+        assertEquals(List.of(2, 1, 3), ids(index.top(10, now)));
+        assertEquals(List.of(2, 1), ids(index.top(2, now)));
+
+        // 같은 게시물에 이벤트가 쌓이면 더해진다
+        index.add(3, 2, now);
+        assertEquals(List.of(3, 2, 1), ids(index.top(10, now)));
+    }
+
+    @Test
+    void rankingSurvivesLandmarkRescale() {
+        TrendingIndex index = new TrendingIndex(1, 1000);
+        long now = System.currentTimeMillis();
+        index.add(1, 1, now);
+        index.add(2, 4, now + 1);
+        // 반감기 1ms, 100ms 뒤면 지수가 한도를 넘어 기준 시각이 옮겨진다
+        index.add(3, 1, now + 100);
+        index.add(4, 3, now + 100);
+
+        List<TrendingIndex.Scored> top = index.top(10, now + 100);
+        assertEquals(List.of(4, 3), ids(top).subList(0, 2));
+        assertEquals(3, top.get(0).getScore(), 1e-9);
+        assertFalse(Double.isInfinite(top.get(0).getScore()));
+    }
+
+    @Test
+    void lowestScoresAreDroppedOverCapacity() {
+        TrendingIndex index = new TrendingIndex(HOUR, 2);
+        long now = System.currentTimeMillis();
+        index.add(1, 3, now);
+        index.add(2, 1, now);
+        index.add(3, 2, now);
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(1, 3), ids(index.top(10, now)));
+
+        index.remove(1);
+        assertEquals(List.of(3), ids(index.top(10, now)));
+    }
+
+    private List<Integer> ids(List<TrendingIndex.Scored> scored) {
+        return scored.stream().map(TrendingIndex.Scored::getPostId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,142 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.dto.ChatMessageDTO;
+import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
+import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.service.ChatMessageService;
+import kr.ac.hansung.cse.gjmarekt.service.ChatRoomMembershipCache;
+import kr.ac.hansung.cse.gjmarekt.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// 채팅방 세션 수가 늘어나도 메시지 하나당 DB 조회와 직렬화는 한번만 일어나는지 확인한다.
+// 세션 수별 메시지당 처리 시간은 debug 로그로 남긴다.
+class ChatBroadcastBenchmarkTest {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final int CHAT_ROOM_ID = 1;
+    private static final int MESSAGES = 200;
+
+    @Test
+    void perMessageCostStaysFlatAsSessionsGrow() throws Exception {
+        for (int sessionCount : new int[]{1, 10, 100, 1000}) {
+            ChatMessageService chatMessageService = mock(ChatMessageService.class);
+            UserService userService = mock(UserService.class);
+            JWTUtil jwtUtil = mock(JWTUtil.class);
+            ObjectMapper objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+
+            GJUser sender = new GJUser();
+            sender.setId(7);
+            sender.setNickname("seller");
+            when(jwtUtil.getUserId(anyString())).thenReturn(7);
+            when(userService.getUserById(7)).thenReturn(sender);
+            when(chatMessageService.sendMessage(anyInt(), any(), anyString())).thenAnswer(invocation -> {
+                ChatMessageDTO chatMessageDTO = new ChatMessageDTO();
+                chatMessageDTO.setId(1L);
+                chatMessageDTO.setChatRoomId(invocation.getArgument(0));
+                chatMessageDTO.setSender(invocation.getArgument(1));
+                chatMessageDTO.setContent(invocation.getArgument(2));
+                chatMessageDTO.setSentAt(LocalDateTime.now());
+                return CompletableFuture.completedFuture(chatMessageDTO);
+            });
+
+            ChatRoomMembershipCache chatRoomMembershipCache = mock(ChatRoomMembershipCache.class);
+            when(chatRoomMembershipCache.isMember(anyInt(), anyInt())).thenReturn(true);
+
+            OutboundSessionFactory outboundSessionFactory =
+                    new OutboundSessionFactory(new SimpleMeterRegistry(), 4, 1000, 10000, "drop-oldest");
+            LocalRoomMessageBus roomMessageBus = new LocalRoomMessageBus();
+            PresenceService presenceService = new PresenceService(roomMessageBus, new ObjectMapper(), outboundSessionFactory,
+                    new SimpleMeterRegistry(), 60000, 3000, 0);
+            ChatWebSocketHandler handler = new ChatWebSocketHandler(chatMessageService, objectMapper, jwtUtil, userService, outboundSessionFactory, roomMessageBus, chatRoomMembershipCache, presenceService);
+
+            AtomicLong sent = new AtomicLong();
+            WebSocketSession senderSession = null;
+            for (int i = 0; i < sessionCount; i++) {
+                WebSocketSession session = openSession(handler, "s" + i, sent);
+                if (senderSession == null) {
+                    senderSession = session;
+                }
+            }
+
+            // 첫 세션 접속시 보낸 온라인 이벤트는 세지 않는다
+            awaitSent(sent, 1);
+            sent.set(0);
+
+            // JIT 예열
+            for (int i = 0; i < MESSAGES; i++) {
+                handler.handleTextMessage(senderSession, new TextMessage("warmup " + i));
+            }
+            awaitSent(sent, (long) MESSAGES * sessionCount);
+            clearInvocations(objectMapper, userService, chatMessageService);
+            sent.set(0);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < MESSAGES; i++) {
+                handler.handleTextMessage(senderSession, new TextMessage("message " + i));
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("sessions=%4d  per message=%8.1f us  per recipient=%6.3f us",
+                        sessionCount, elapsed / 1000.0 / MESSAGES, elapsed / 1000.0 / MESSAGES / sessionCount));
+            }
+
+            // 세션 수와 관계없이 메시지당 저장 1번, 직렬화 1번, 유저 조회 0번 (유저는 인증할 때 세션당 한번만 조회)
+            verify(chatMessageService, times(MESSAGES)).sendMessage(anyInt(), any(), anyString());
+            verify(objectMapper, times(MESSAGES)).writeValueAsString(any());
+            verify(userService, never()).getUserById(any());
+            // 전송은 세션별 큐를 거쳐 비동기로 이루어진다
+            awaitSent(sent, (long) MESSAGES * sessionCount);
+            assertEquals((long) MESSAGES * sessionCount, sent.get());
+            outboundSessionFactory.shutdown();
+        }
+    }
+
+    private void awaitSent(AtomicLong sent, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sent.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private WebSocketSession openSession(ChatWebSocketHandler handler, String id, AtomicLong sent) throws Exception {
+        // 호출 기록을 남기지 않는 stub으로 만들어 세션 수가 많아도 측정에 영향이 적도록 한다
+        WebSocketSession session = mock(WebSocketSession.class, withSettings().stubOnly());
+        Map<String, Object> attributes = new HashMap<>();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Authorization", "Bearer token");
+        when(session.getId()).thenReturn(id);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.getUri()).thenReturn(new URI("/ws/chat/" + CHAT_ROOM_ID));
+        when(session.getHandshakeHeaders()).thenReturn(headers);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sent.incrementAndGet();
+            return null;
+        }).when(session).sendMessage(any());
+
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+}
@@ -0,0 +1,159 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
+import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.service.ChatMessageService;
+import kr.ac.hansung.cse.gjmarekt.service.ChatRoomMembershipCache;
+import kr.ac.hansung.cse.gjmarekt.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// 잘못된 토큰은 서버 오류(1011)가 아니라 error frame과 POLICY_VIOLATION으로 끊는지,
+// 채팅방 단위 연결에서 입력 중 표시처럼 보이는 채팅 글이 버려지지 않는지 확인한다.
+class ChatWebSocketHandlerTest {
+
+    private static final int CHAT_ROOM_ID = 1;
+
+    private OutboundSessionFactory outboundSessionFactory;
+    private ChatMessageService chatMessageService;
+    private PresenceService presenceService;
+    private ChatWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        JWTUtil jwtUtil = mock(JWTUtil.class);
+        when(jwtUtil.getUserId("valid")).thenReturn(7);
+        when(jwtUtil.getUserId("expired")).thenThrow(new ExpiredJwtException(null, null, "expired"));
+        when(jwtUtil.getUserId("forged")).thenThrow(new MalformedJwtException("forged"));
+        when(jwtUtil.getUserId("")).thenThrow(new IllegalArgumentException("empty"));
+        UserService userService = mock(UserService.class);
+        GJUser user = new GJUser();
+        user.setId(7);
+        when(userService.getUserById(7)).thenReturn(user);
+
+        outboundSessionFactory = new OutboundSessionFactory(new SimpleMeterRegistry(), 2, 100, 10000, "drop-oldest");
+        LocalRoomMessageBus roomMessageBus = new LocalRoomMessageBus();
+        presenceService = spy(new PresenceService(roomMessageBus, new ObjectMapper(), outboundSessionFactory,
+                new SimpleMeterRegistry(), 60000, 3000, 0));
+        chatMessageService = mock(ChatMessageService.class);
+        when(chatMessageService.sendMessage(anyInt(), any(), anyString())).thenReturn(new CompletableFuture<>());
+        ChatRoomMembershipCache chatRoomMembershipCache = mock(ChatRoomMembershipCache.class);
+        when(chatRoomMembershipCache.isMember(7, CHAT_ROOM_ID)).thenReturn(true);
+        handler = new ChatWebSocketHandler(chatMessageService, new ObjectMapper(), jwtUtil, userService,
+                outboundSessionFactory, roomMessageBus, chatRoomMembershipCache, presenceService);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        outboundSessionFactory.shutdown();
+    }
+
+    @Test
+    void invalidHandshakeTokenIsRejected() throws Exception {
+        for (String token : List.of("expired", "forged")) {
+            List<String> received = new CopyOnWriteArrayList<>();
+            WebSocketSession session = session("Bearer " + token, received);
+
+            handler.afterConnectionEstablished(session);
+
+            verify(session, timeout(1000)).close(CloseStatus.POLICY_VIOLATION);
+            assertEquals(List.of("{\"type\":\"error\",\"reason\":\"invalid token\"}"), received);
+            assertNotEquals(Boolean.TRUE, session.getAttributes().get("authenticated"));
+        }
+    }
+
+    @Test
+    void invalidAuthFrameIsRejected() throws Exception {
+        for (String frame : List.of("{\"type\":\"auth\",\"token\":\"expired\"}", "{\"type\":\"auth\"}")) {
+            List<String> received = new CopyOnWriteArrayList<>();
+            WebSocketSession session = session(null, received);
+            handler.afterConnectionEstablished(session);
+
+            handler.handleTextMessage(session, new TextMessage(frame));
+
+            verify(session, timeout(1000)).close(CloseStatus.POLICY_VIOLATION);
+            assertEquals(List.of("{\"type\":\"error\",\"reason\":\"invalid token\"}"), received);
+        }
+    }
+
+    @Test
+    void validAuthFrameAuthenticates() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        WebSocketSession session = session(null, received);
+        handler.afterConnectionEstablished(session);
+
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"auth\",\"token\":\"valid\"}"));
+
+        assertEquals(Boolean.TRUE, session.getAttributes().get("authenticated"));
+        assertEquals(7, session.getAttributes().get("userId"));
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void typingFramesAreNotConfusedWithChatText() throws Exception {
+        WebSocketSession session = session("Bearer valid", new CopyOnWriteArrayList<>(), "/ws/chat/" + CHAT_ROOM_ID);
+        handler.afterConnectionEstablished(session);
+
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"typing\",\"typing\":true}"));
+        verify(presenceService).typing(any(), eq(CHAT_ROOM_ID), eq(true));
+
+        List<String> chatTexts = List.of(
+                "{\"type\":\"typing\" is how the client marks typing",
+                "{\"type\":\"typing\",\"typing\":true} and some text",
+                "{\"type\":\"typing\",\"typing\":\"yes\"}",
+                "{\"type\":\"typing\",\"typing\":true,\"note\":1}");
+        for (String text : chatTexts) {
+            handler.handleTextMessage(session, new TextMessage(text));
+            verify(chatMessageService).sendMessage(eq(CHAT_ROOM_ID), any(), eq(text));
+        }
+        verify(presenceService, times(1)).typing(any(), anyInt(), anyBoolean());
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    private WebSocketSession session(String authorization, List<String> received) throws Exception {
+        return session(authorization, received, ChatWebSocketHandler.USER_PATH);
+    }
+
+    private WebSocketSession session(String authorization, List<String> received, String path) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        HttpHeaders headers = new HttpHeaders();
+        if (authorization != null) {
+            headers.add("Authorization", authorization);
+        }
+        when(session.getId()).thenReturn("s");
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.getUri()).thenReturn(new URI(path));
+        when(session.getHandshakeHeaders()).thenReturn(headers);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            received.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+}
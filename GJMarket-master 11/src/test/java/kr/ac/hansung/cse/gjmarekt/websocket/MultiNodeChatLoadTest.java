@@ -0,0 +1,250 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import kr.ac.hansung.cse.gjmarekt.GjMarektApplication;
+import kr.ac.hansung.cse.gjmarekt.dto.PostDTO;
+import kr.ac.hansung.cse.gjmarekt.entity.ChatRoom;
+import kr.ac.hansung.cse.gjmarekt.entity.GJUser;
+import kr.ac.hansung.cse.gjmarekt.entity.Post;
+import kr.ac.hansung.cse.gjmarekt.jwt.JWTUtil;
+import kr.ac.hansung.cse.gjmarekt.repository.UserRepository;
+import kr.ac.hansung.cse.gjmarekt.service.ChatRoomService;
+import kr.ac.hansung.cse.gjmarekt.service.PostService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 서버 두 대를 같은 DB와 Redis(대역)에 붙여 띄우고, 판매자는 1번 서버, 구매자는 2번 서버에 접속해 채팅한다.
+// 모든 메시지가 양쪽 모두에게 한번씩 전달되는지 확인하고, 전달 지연 시간은 debug 로그로 남긴다.
+class MultiNodeChatLoadTest {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final int ROOMS = 20;
+    private static final int MESSAGES_PER_USER = 25;
+
+    private static StandInRedisBroker broker;
+    private static ConfigurableApplicationContext node1;
+    private static ConfigurableApplicationContext node2;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        broker = new StandInRedisBroker();
+        String uploadPath = Files.createTempDirectory("gjmarket-upload").toString();
+        node1 = startNode(1, uploadPath);
+        node2 = startNode(2, uploadPath);
+    }
+
+    private static ConfigurableApplicationContext startNode(int nodeId, String uploadPath) {
+        return new SpringApplicationBuilder(GjMarektApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:gjmarket-load;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jwt.secret=load-test-secret-load-test-secret-load-test-secret",
+                        "file.upload.path=" + uploadPath,
+                        "gjmarket.node-id=" + nodeId,
+                        "gjmarket.chat.bus=redis",
+                        "spring.data.redis.host=127.0.0.1",
+                        "spring.data.redis.port=" + broker.getPort(),
+                        "management.health.redis.enabled=false")
+                .run();
+    }
+
+    @AfterAll
+    static void stopNodes() throws Exception {
+        if (node2 != null) {
+            node2.close();
+        }
+        if (node1 != null) {
+            node1.close();
+        }
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    @Test
+    void messagesReachParticipantsOnBothNodes() throws Exception {
+        UserRepository userRepository = node1.getBean(UserRepository.class);
+        PostService postService = node1.getBean(PostService.class);
+        ChatRoomService chatRoomService = node1.getBean(ChatRoomService.class);
+        JWTUtil jwtUtil = node1.getBean(JWTUtil.class);
+
+        int expectedPerClient = MESSAGES_PER_USER * 2;
+        CountDownLatch done = new CountDownLatch(ROOMS * 2 * expectedPerClient);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        List<Participant> participants = new ArrayList<>();
+
+        for (int room = 0; room < ROOMS; room++) {
+            GJUser seller = user(userRepository, "seller" + room);
+            GJUser buyer = user(userRepository, "buyer" + room);
+            PostDTO postDTO = new PostDTO();
+            postDTO.setTitle("post " + room);
+            postDTO.setContent("content");
+            postDTO.setPrice(1000);
+            Post post = postService.createPost(postDTO, seller.getId(), new ArrayList<>());
+            ChatRoom chatRoom = chatRoomService.createChatRoom(post.getId(), buyer.getId());
+
+            // 판매자는 1번 서버, 구매자는 2번 서버
+            participants.add(connect(client, node1, chatRoom.getId(), jwtUtil.createJwt(seller.getId(), seller.getEmail(), "ROLE_USER", 600000L), done, latencies));
+            participants.add(connect(client, node2, chatRoom.getId(), jwtUtil.createJwt(buyer.getId(), buyer.getEmail(), "ROLE_USER", 600000L), done, latencies));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES_PER_USER; i++) {
+            for (Participant participant : participants) {
+                // 보낸 시간을 내용에 넣어 받는 쪽에서 지연 시간을 계산한다
+                participant.session.sendMessage(new TextMessage("t=" + System.nanoTime() + "=" + i));
+            }
+        }
+        boolean delivered = done.await(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("nodes=2 rooms=%d messages=%d deliveries=%d elapsed=%d ms p50=%.2f ms p99=%.2f ms max=%.2f ms",
+                    ROOMS, ROOMS * 2 * MESSAGES_PER_USER, sorted.length, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0)));
+        }
+
+        assertTrue(delivered, "missing deliveries: " + done.getCount());
+        for (Participant participant : participants) {
+            assertEquals(expectedPerClient, participant.received.size());
+            participant.session.close();
+        }
+    }
+
+    @Test
+    void oneUserConnectionServesManyRooms() throws Exception {
+        UserRepository userRepository = node1.getBean(UserRepository.class);
+        PostService postService = node1.getBean(PostService.class);
+        ChatRoomService chatRoomService = node1.getBean(ChatRoomService.class);
+        JWTUtil jwtUtil = node1.getBean(JWTUtil.class);
+
+        GJUser seller = user(userRepository, "multiplexed-seller");
+        PostDTO postDTO = new PostDTO();
+        postDTO.setTitle("multiplexed post");
+        postDTO.setContent("content");
+        postDTO.setPrice(1000);
+        Post post = postService.createPost(postDTO, seller.getId(), new ArrayList<>());
+
+        // 구매자 ROOMS명은 2번 서버에 채팅방마다 연결하고, 판매자는 1번 서버에 연결 하나로 모든 채팅방을 구독한다
+        CountDownLatch buyersDone = new CountDownLatch(ROOMS * 2);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        List<Integer> chatRoomIds = new ArrayList<>();
+        List<Participant> buyers = new ArrayList<>();
+        for (int room = 0; room < ROOMS; room++) {
+            GJUser buyer = user(userRepository, "multiplexed-buyer" + room);
+            ChatRoom chatRoom = chatRoomService.createChatRoom(post.getId(), buyer.getId());
+            chatRoomIds.add(chatRoom.getId());
+            buyers.add(connect(client, node2, chatRoom.getId(), jwtUtil.createJwt(buyer.getId(), buyer.getEmail(), "ROLE_USER", 600000L), buyersDone, latencies));
+        }
+
+        ConcurrentLinkedQueue<String> sellerReceived = new ConcurrentLinkedQueue<>();
+        CountDownLatch subscribed = new CountDownLatch(ROOMS);
+        CountDownLatch sellerDone = new CountDownLatch(ROOMS * 2);
+        int port = ((ServletWebServerApplicationContext) node1).getWebServer().getPort();
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.add("Authorization", "Bearer " + jwtUtil.createJwt(seller.getId(), seller.getEmail(), "ROLE_USER", 600000L));
+        WebSocketSession sellerSession = client.execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                String payload = message.getPayload();
+                if (payload.contains("\"type\":\"subscribed\"")) {
+                    subscribed.countDown();
+                } else if (payload.contains("t=")) {
+                    sellerReceived.add(payload);
+                    sellerDone.countDown();
+                }
+            }
+        }, headers, URI.create("ws://127.0.0.1:" + port + ChatWebSocketHandler.USER_PATH)).get(10, TimeUnit.SECONDS);
+
+        for (Integer chatRoomId : chatRoomIds) {
+            sellerSession.sendMessage(new TextMessage("{\"type\":\"subscribe\",\"chatRoomId\":" + chatRoomId + "}"));
+        }
+        assertTrue(subscribed.await(10, TimeUnit.SECONDS));
+
+        for (int room = 0; room < ROOMS; room++) {
+            sellerSession.sendMessage(new TextMessage("{\"type\":\"message\",\"chatRoomId\":" + chatRoomIds.get(room)
+                    + ",\"content\":\"t=" + System.nanoTime() + "=seller\"}"));
+            buyers.get(room).session.sendMessage(new TextMessage("t=" + System.nanoTime() + "=buyer"));
+        }
+
+        assertTrue(buyersDone.await(30, TimeUnit.SECONDS), "missing buyer deliveries: " + buyersDone.getCount());
+        assertTrue(sellerDone.await(30, TimeUnit.SECONDS), "missing seller deliveries: " + sellerDone.getCount());
+        for (Integer chatRoomId : chatRoomIds) {
+            assertEquals(2, sellerReceived.stream().filter(payload -> payload.contains("\"chatRoomId\":" + chatRoomId + ",")).count());
+        }
+        sellerSession.close();
+        for (Participant buyer : buyers) {
+            buyer.session.close();
+        }
+    }
+
+    private GJUser user(UserRepository userRepository, String name) {
+        GJUser user = new GJUser();
+        user.setEmail(name + "@load.test");
+        user.setPassword("password");
+        user.setNickname(name);
+        return userRepository.save(user);
+    }
+
+    private Participant connect(StandardWebSocketClient client, ConfigurableApplicationContext node, Integer chatRoomId,
+                                String token, CountDownLatch done, ConcurrentLinkedQueue<Long> latencies) throws Exception {
+        int port = ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.add("Authorization", "Bearer " + token);
+        Participant participant = new Participant();
+        participant.session = client.execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                String payload = message.getPayload();
+                int start = payload.indexOf("t=");
+                if (start < 0) {
+                    return;
+                }
+                long sentAt = Long.parseLong(payload.substring(start + 2, payload.indexOf('=', start + 2)));
+                latencies.add(System.nanoTime() - sentAt);
+                participant.received.add(payload);
+                done.countDown();
+            }
+        }, headers, URI.create("ws://127.0.0.1:" + port + "/ws/chat/" + chatRoomId)).get(10, TimeUnit.SECONDS);
+        return participant;
+    }
+
+    private double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static class Participant {
+        private WebSocketSession session;
+        private final ConcurrentLinkedQueue<String> received = new ConcurrentLinkedQueue<>();
+    }
+}
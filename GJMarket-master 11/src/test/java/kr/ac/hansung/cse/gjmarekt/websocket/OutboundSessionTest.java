@@ -0,0 +1,184 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// 느린 세션 하나가 다른 세션으로의 전송을 막지 않는지, 큐가 넘칠 때 정책대로 동작하는지 확인한다.
+class OutboundSessionTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboundSessionFactory factory;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        factory.shutdown();
+    }
+
+    @Test
+    void stalledSessionDoesNotBlockOthers() throws Exception {
+        factory = new OutboundSessionFactory(meterRegistry, 2, 16, 10000, "drop-oldest");
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession stalled = session(message -> {
+            sending.countDown();
+            release.await();
+        });
+        List<String> received = new CopyOnWriteArrayList<>();
+        WebSocketSession healthy = session(message -> received.add(message.getPayload()));
+
+        OutboundSession slow = factory.wrap(stalled);
+        OutboundSession fast = factory.wrap(healthy);
+
+        slow.sendMessage(new TextMessage("m0"));
+        fast.sendMessage(new TextMessage("m0"));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 1; i < 20; i++) {
+            slow.sendMessage(new TextMessage("m" + i));
+            if (i < 10) {
+                fast.sendMessage(new TextMessage("m" + i));
+            }
+        }
+        // 보내는 쪽은 큐에 넣기만 하고 바로 돌아온다
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        awaitSize(received, 10);
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9"), received);
+        // 첫 메시지는 보내는 중이고, 나머지 19개 중 가장 오래된 3개가 버려져 최근 16개만 남는다
+        assertEquals(16, slow.getQueueSize());
+        assertEquals(3.0, meterRegistry.counter("gjmarket.ws.outbound.dropped").count());
+        release.countDown();
+    }
+
+    @Test
+    void closePolicyClosesSlowSession() throws Exception {
+        factory = new OutboundSessionFactory(meterRegistry, 1, 2, 10000, "close");
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession stalled = session(message -> release.await());
+        OutboundSession slow = factory.wrap(stalled);
+
+        for (int i = 0; i < 4; i++) {
+            slow.sendMessage(new TextMessage("m" + i));
+        }
+        release.countDown();
+
+        verify(stalled, timeout(1000)).close(OutboundSession.TOO_SLOW);
+        assertEquals(1.0, meterRegistry.counter("gjmarket.ws.outbound.closed.slow").count());
+    }
+
+    @Test
+    void sendTimeLimitClosesStalledSession() throws Exception {
+        factory = new OutboundSessionFactory(meterRegistry, 1, 16, 50, "drop-oldest");
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession stalled = session(message -> release.await());
+        OutboundSession slow = factory.wrap(stalled);
+
+        slow.sendMessage(new TextMessage("m0"));
+        Thread.sleep(100);
+        factory.checkSendTimeLimits();
+        release.countDown();
+
+        verify(stalled, timeout(1000)).close(OutboundSession.TOO_SLOW);
+    }
+
+    @Test
+    void moreStalledSessionsThanSenderThreads() throws Exception {
+        factory = new OutboundSessionFactory(meterRegistry, 2, 16, 50, "drop-oldest");
+        // 연결이 끊길 때까지 전송이 풀리지 않는 세션 4개 (전송 스레드는 2개)
+        List<WebSocketSession> stalled = new CopyOnWriteArrayList<>();
+        CountDownLatch sending = new CountDownLatch(2);
+        for (int i = 0; i < 4; i++) {
+            CountDownLatch closed = new CountDownLatch(1);
+            WebSocketSession session = session(message -> {
+                sending.countDown();
+                closed.await();
+            });
+            doAnswer(invocation -> {
+                closed.countDown();
+                return null;
+            }).when(session).close(any(CloseStatus.class));
+            stalled.add(session);
+            factory.wrap(session).sendMessage(new TextMessage("m0"));
+        }
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        OutboundSession healthy = factory.wrap(session(message -> received.add(message.getPayload())));
+        healthy.sendMessage(new TextMessage("m0"));
+
+        // 막힌 세션들이 끊기고 남은 세션이 모두 전송을 시작할 때까지 주기적으로 확인한다
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(60);
+            factory.checkSendTimeLimits();
+        }
+        assertEquals(List.of("m0"), received);
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(60);
+            factory.checkSendTimeLimits();
+        }
+        for (WebSocketSession session : stalled) {
+            verify(session, timeout(1000)).close(OutboundSession.TOO_SLOW);
+        }
+
+        // 막힌 전송이 모두 풀렸으므로 이후 전송은 바로 나간다
+        healthy.sendMessage(new TextMessage("m1"));
+        awaitSize(received, 2);
+        assertEquals(List.of("m0", "m1"), received);
+        assertEquals(4.0, meterRegistry.counter("gjmarket.ws.outbound.closed.slow").count());
+    }
+
+    @Test
+    void resumeSendsMissedMessagesBeforeLiveOnes() throws Exception {
+        factory = new OutboundSessionFactory(meterRegistry, 2, 16, 10000, "drop-oldest");
+        List<String> received = new CopyOnWriteArrayList<>();
+        OutboundSession outbound = factory.wrap(session(message -> received.add(message.getPayload())));
+
+        outbound.pause();
+        outbound.sendMessage(new TextMessage("live1"));
+        outbound.sendMessage(new TextMessage("live2"));
+        Thread.sleep(50);
+        assertTrue(received.isEmpty());
+
+        outbound.resume(List.of(new TextMessage("missed1"), new TextMessage("missed2")));
+        awaitSize(received, 4);
+        assertEquals(List.of("missed1", "missed2", "live1", "live2"), received);
+    }
+
+    private WebSocketSession session(Send send) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            send.accept(invocation.getArgument(0));
+            return null;
+        }).when(session).sendMessage(any());
+        doNothing().when(session).close(any(CloseStatus.class));
+        return session;
+    }
+
+    private void awaitSize(List<String> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private interface Send {
+        void accept(TextMessage message) throws Exception;
+    }
+}
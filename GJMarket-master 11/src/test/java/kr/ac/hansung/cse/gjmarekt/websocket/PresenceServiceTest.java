@@ -0,0 +1,205 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// 응답 없는 세션이 정리되어 빈 채팅방까지 지워지는지, 접속/입력 중 상태가 참여자에게 (다른 서버에도) 전달되는지 확인한다.
+class PresenceServiceTest {
+
+    private static final int CHAT_ROOM_ID = 1;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboundSessionFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        factory = new OutboundSessionFactory(meterRegistry, 1, 64, 10000, "drop-oldest");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        factory.shutdown();
+    }
+
+    @Test
+    void silentSessionsAreReapedAndEmptyRoomsRemoved() throws Exception {
+        PresenceService presenceService = presenceService(0);
+        WebSocketSession seller = session(new CopyOnWriteArrayList<>());
+        WebSocketSession buyer = session(new CopyOnWriteArrayList<>());
+        join(presenceService, seller, 7);
+        join(presenceService, buyer, 8);
+        assertEquals(2, presenceService.sessions(CHAT_ROOM_ID).size());
+
+        Thread.sleep(5);
+        presenceService.heartbeat();
+
+        verify(seller, timeout(1000)).close(PresenceService.HEARTBEAT_TIMEOUT);
+        verify(buyer, timeout(1000)).close(PresenceService.HEARTBEAT_TIMEOUT);
+        assertTrue(presenceService.sessions(CHAT_ROOM_ID).isEmpty());
+        assertEquals(0.0, meterRegistry.get("gjmarket.ws.presence.rooms").gauge().value());
+        assertEquals(0.0, meterRegistry.get("gjmarket.ws.presence.sessions").gauge().value());
+        assertEquals(0.0, meterRegistry.get("gjmarket.ws.outbound.sessions").gauge().value());
+        assertEquals(2.0, meterRegistry.counter("gjmarket.ws.presence.reaped").count());
+    }
+
+    @Test
+    void liveSessionsArePinged() throws Exception {
+        PresenceService presenceService = presenceService(60000);
+        List<WebSocketMessage<?>> received = new CopyOnWriteArrayList<>();
+        join(presenceService, session(received), 7);
+
+        presenceService.heartbeat();
+
+        awaitMatch(received, message -> message instanceof PingMessage);
+        assertEquals(1, presenceService.sessions(CHAT_ROOM_ID).size());
+    }
+
+    @Test
+    void presenceAndTypingArePushedToPeers() throws Exception {
+        PresenceService presenceService = presenceService(60000);
+        List<WebSocketMessage<?>> sellerReceived = new CopyOnWriteArrayList<>();
+        List<WebSocketMessage<?>> buyerReceived = new CopyOnWriteArrayList<>();
+        OutboundSession seller = join(presenceService, session(sellerReceived), 7);
+        OutboundSession buyer = join(presenceService, session(buyerReceived), 8);
+
+        // 나중에 들어온 구매자도 판매자가 접속 중인 것을 알 수 있다
+        awaitMatch(sellerReceived, message -> payload(message).contains("\"userId\":8,\"online\":true"));
+        awaitMatch(buyerReceived, message -> payload(message).contains("\"userId\":7,\"online\":true"));
+
+        presenceService.typing(seller, CHAT_ROOM_ID, true);
+        presenceService.typing(seller, CHAT_ROOM_ID, true);
+        awaitMatch(buyerReceived, message -> payload(message).contains("\"userId\":7,\"typing\":true"));
+        assertEquals(1, buyerReceived.stream().filter(message -> payload(message).contains("\"typing\"")).count());
+
+        presenceService.disconnect(buyer);
+        awaitMatch(sellerReceived, message -> payload(message).contains("\"userId\":8,\"online\":false"));
+    }
+
+    @Test
+    void typingExpiresWithoutHeartbeat() throws Exception {
+        PresenceService presenceService = new PresenceService(new LocalRoomMessageBus(), new ObjectMapper(), factory,
+                meterRegistry, 60000, 10, 0);
+        List<WebSocketMessage<?>> buyerReceived = new CopyOnWriteArrayList<>();
+        OutboundSession seller = join(presenceService, session(new CopyOnWriteArrayList<>()), 7);
+        join(presenceService, session(buyerReceived), 8);
+
+        presenceService.typing(seller, CHAT_ROOM_ID, true);
+        Thread.sleep(30);
+        presenceService.expireTyping();
+
+        awaitMatch(buyerReceived, message -> payload(message).contains("\"userId\":7,\"typing\":false"));
+    }
+
+    @Test
+    void onlyOtherNodesJoinsAreAnswered() throws Exception {
+        // 두 서버가 같은 버스를 쓴다
+        LocalRoomMessageBus bus = new LocalRoomMessageBus();
+        PresenceService node1 = new PresenceService(bus, new ObjectMapper(), factory, meterRegistry, 60000, 3000, 1);
+        PresenceService node2 = new PresenceService(bus, new ObjectMapper(), factory, meterRegistry, 60000, 3000, 2);
+        List<WebSocketMessage<?>> sellerReceived = new CopyOnWriteArrayList<>();
+        List<WebSocketMessage<?>> buyerReceived = new CopyOnWriteArrayList<>();
+        List<WebSocketMessage<?>> buyer2Received = new CopyOnWriteArrayList<>();
+        OutboundSession seller = join(node1, session(sellerReceived), 7);
+        OutboundSession buyer = join(node2, session(buyerReceived), 8);
+
+        // 2번 서버의 구매자는 1번 서버의 답으로 판매자 접속을 안다
+        awaitMatch(buyerReceived, message -> payload(message).contains("\"userId\":7,\"online\":true"));
+
+        // 같은 서버에 들어온 사용자는 버스를 거치지 않고 바로 받는다
+        join(node1, session(buyer2Received), 9);
+        awaitMatch(buyer2Received, message -> payload(message).contains("\"userId\":7,\"online\":true"));
+        awaitMatch(buyer2Received, message -> payload(message).contains("\"userId\":8,\"online\":true"));
+
+        // 오프라인 이벤트에는 답하지 않는다
+        node2.disconnect(buyer);
+        awaitMatch(sellerReceived, message -> payload(message).contains("\"userId\":8,\"online\":false"));
+        Thread.sleep(20);
+        // 1번 서버는 2번 서버의 구매자가 들어올 때 한번만 답한다 (같은 서버의 접속과 오프라인에는 답하지 않음)
+        assertEquals(1, sellerReceived.stream()
+                .filter(message -> payload(message).contains("\"userId\":7,\"online\":true,\"reply\":true")).count());
+        node1.disconnect(seller);
+    }
+
+    @Test
+    void oneSessionCanJoinManyRooms() throws Exception {
+        PresenceService presenceService = presenceService(60000);
+        OutboundSession seller = factory.wrap(session(new CopyOnWriteArrayList<>()));
+        presenceService.connect(seller);
+        presenceService.authenticate(seller, 7);
+        for (int chatRoomId = 1; chatRoomId <= 30; chatRoomId++) {
+            presenceService.join(seller, chatRoomId);
+        }
+        List<WebSocketMessage<?>> buyerReceived = new CopyOnWriteArrayList<>();
+        OutboundSession buyer = join(presenceService, session(buyerReceived), 8);
+
+        assertEquals(30, presenceService.roomCount(seller));
+        assertEquals(List.of(seller), List.copyOf(presenceService.sessionsOf(7)));
+        assertEquals(2, presenceService.sessions(CHAT_ROOM_ID).size());
+
+        // 한 채팅방에서만 나가면 그 채팅방에만 오프라인이 전달된다
+        presenceService.leave(seller, CHAT_ROOM_ID);
+        awaitMatch(buyerReceived, message -> payload(message).contains("\"userId\":7,\"online\":false"));
+        assertEquals(29, presenceService.roomCount(seller));
+        assertEquals(List.of(buyer), List.copyOf(presenceService.sessions(CHAT_ROOM_ID)));
+
+        presenceService.disconnect(seller);
+        presenceService.disconnect(buyer);
+        assertTrue(presenceService.sessionsOf(7).isEmpty());
+        assertEquals(0.0, meterRegistry.get("gjmarket.ws.presence.rooms").gauge().value());
+        assertEquals(0.0, meterRegistry.get("gjmarket.ws.presence.users").gauge().value());
+    }
+
+    private PresenceService presenceService(long timeoutMs) {
+        return new PresenceService(new LocalRoomMessageBus(), new ObjectMapper(), factory, meterRegistry, timeoutMs, 3000, 0);
+    }
+
+    private OutboundSession join(PresenceService presenceService, WebSocketSession session, int userId) {
+        OutboundSession outbound = factory.wrap(session);
+        presenceService.connect(outbound);
+        presenceService.authenticate(outbound, userId);
+        presenceService.join(outbound, CHAT_ROOM_ID);
+        return outbound;
+    }
+
+    private WebSocketSession session(List<WebSocketMessage<?>> received) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0));
+            return null;
+        }).when(session).sendMessage(any());
+        doNothing().when(session).close(any(CloseStatus.class));
+        return session;
+    }
+
+    private String payload(WebSocketMessage<?> message) {
+        return message instanceof TextMessage ? ((TextMessage) message).getPayload() : "";
+    }
+
+    private void awaitMatch(List<WebSocketMessage<?>> received, Predicate<WebSocketMessage<?>> match)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.stream().noneMatch(match)) {
+            assertTrue(System.nanoTime() < deadline, "expected message not received: " + received);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package kr.ac.hansung.cse.gjmarekt.websocket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 테스트용 Redis 대역
+// RedisRoomMessageBus가 쓰는 pub/sub 명령(SUBSCRIBE, UNSUBSCRIBE, PUBLISH)과 접속시 명령만 RESP2로 처리한다.
+class StandInRedisBroker implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    StandInRedisBroker() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "stand-in-redis");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Connection connection = new Connection(serverSocket.accept());
+                connections.add(connection);
+                Thread thread = new Thread(connection::serve, "stand-in-redis-conn");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private class Connection {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final Set<String> channels = ConcurrentHashMap.newKeySet();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.socket.setTcpNoDelay(true);
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void serve() {
+            try {
+                List<String> command;
+                while ((command = readCommand()) != null) {
+                    handle(command);
+                }
+            } catch (IOException e) {
+                // 연결 종료
+            } finally {
+                for (String channel : channels) {
+                    unsubscribe(channel);
+                }
+                close();
+            }
+        }
+
+        private void handle(List<String> command) throws IOException {
+            String name = command.get(0).toUpperCase();
+            switch (name) {
+                case "SUBSCRIBE":
+                    for (String channel : command.subList(1, command.size())) {
+                        channels.add(channel);
+                        subscribers.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet()).add(this);
+                        write(new String[]{"subscribe", channel}, channels.size());
+                    }
+                    break;
+                case "UNSUBSCRIBE":
+                    List<String> targets = command.size() > 1 ? command.subList(1, command.size()) : new ArrayList<>(channels);
+                    for (String channel : targets) {
+                        unsubscribe(channel);
+                        write(new String[]{"unsubscribe", channel}, channels.size());
+                    }
+                    break;
+                case "PUBLISH":
+                    Set<Connection> receivers = subscribers.getOrDefault(command.get(1), Set.of());
+                    for (Connection receiver : receivers) {
+                        receiver.write(new String[]{"message", command.get(1), command.get(2)}, null);
+                    }
+                    writeRaw(":" + receivers.size() + "\r\n");
+                    break;
+                case "PING":
+                    writeRaw(channels.isEmpty() ? "+PONG\r\n" : "*2\r\n$4\r\npong\r\n$0\r\n\r\n");
+                    break;
+                case "HELLO":
+                    // RESP3를 지원하지 않으므로 클라이언트는 RESP2로 접속한다
+                    writeRaw("-ERR unknown command 'HELLO'\r\n");
+                    break;
+                case "QUIT":
+                    writeRaw("+OK\r\n");
+                    close();
+                    break;
+                default:
+                    // CLIENT SETNAME/SETINFO, SELECT 등
+                    writeRaw("+OK\r\n");
+            }
+        }
+
+        private void unsubscribe(String channel) {
+            channels.remove(channel);
+            Set<Connection> set = subscribers.get(channel);
+            if (set != null) {
+                set.remove(this);
+            }
+        }
+
+        // 배열 응답, count가 있으면 마지막 원소로 정수를 붙인다
+        private void write(String[] items, Integer count) throws IOException {
+            StringBuilder builder = new StringBuilder();
+            builder.append('*').append(items.length + (count == null ? 0 : 1)).append("\r\n");
+            for (String item : items) {
+                byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+                builder.append('$').append(bytes.length).append("\r\n").append(item).append("\r\n");
+            }
+            if (count != null) {
+                builder.append(':').append(count).append("\r\n");
+            }
+            writeRaw(builder.toString());
+        }
+
+        private void writeRaw(String response) throws IOException {
+            synchronized (out) {
+                out.write(response.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        }
+
+        private List<String> readCommand() throws IOException {
+            int type = in.read();
+            if (type == -1) {
+                return null;
+            }
+            if (type != '*') {
+                // 인라인 명령
+                String line = (char) type + readLine();
+                return new ArrayList<>(List.of(line.trim().split("\\s+")));
+            }
+            int count = Integer.parseInt(readLine());
+            List<String> command = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("bulk string expected");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] bytes = in.readNBytes(length);
+                in.readNBytes(2);
+                command.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return command;
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\r') {
+                    in.read();
+                    break;
+                }
+                line.write(b);
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        void close() {
+            connections.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}